@@ -3,12 +3,24 @@ package uk.ac.bris.cs.gamekit.graph;
 import java.io.Serializable;
 import java.util.Objects;
 
+/**
+ * A directed edge in a {@link Graph}
+ *
+ * The hash code is computed once and the reversed edge is kept once made, so
+ * edges make cheap map keys and graphs can share one edge for each direction.
+ *
+ * @param <N> the type for {@link Node} values
+ * @param <D> the type of the data this edge holds
+ */
 public class Edge<N, D> implements Serializable {
 
 	private static final long serialVersionUID = -6248988489116039832L;
 	private final Node<N> source;
 	private final Node<N> destination;
 	private final D data;
+	// Not serialised since hash codes, e.g. of enums, may differ between runs.
+	private transient int hash;
+	private transient Edge<N, D> reverse;
 
 	public Edge(Node<N> source, Node<N> destination, D data) {
 		this.source = source;
@@ -39,12 +51,28 @@ public class Edge<N, D> implements Serializable {
 	}
 
 	/**
-	 * Returns a <b>new</b> edge with destination and source swapped
+	 * Returns the edge with destination and source swapped. The swapped edge
+	 * is made on the first call and returned from then on, and swapping it
+	 * again returns this edge.
 	 * 
 	 * @return the swapped edge; never null
 	 */
 	public Edge<N, D> swap() {
-		return new Edge<>(destination, source, data);
+		Edge<N, D> reverse = this.reverse;
+		if (reverse == null) {
+			// Racing threads may each make one, but they are all equal.
+			reverse = new Edge<>(destination, source, data);
+			pair(this, reverse);
+		}
+		return reverse;
+	}
+
+	/**
+	 * Makes two edges each other's {@link #swap()}
+	 */
+	static <N, D> void pair(Edge<N, D> edge, Edge<N, D> reverse) {
+		reverse.reverse = edge;
+		edge.reverse = reverse;
 	}
 
 	@Override
@@ -52,13 +80,17 @@ public class Edge<N, D> implements Serializable {
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		Edge<?, ?> edge = (Edge<?, ?>) o;
+		if (hash != 0 && edge.hash != 0 && hash != edge.hash) return false;
 		return Objects.equals(source, edge.source) && Objects.equals(destination, edge.destination)
 				&& Objects.equals(data, edge.data);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(source, destination, data);
+		int hash = this.hash;
+		if (hash == 0)
+			this.hash = hash = Objects.hash(source, destination, data);
+		return hash;
 	}
 
 	@Override
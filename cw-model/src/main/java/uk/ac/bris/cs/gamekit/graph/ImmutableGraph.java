@@ -20,8 +20,47 @@ public final class ImmutableGraph<V, D> extends AbstractGraph<V, D>
 	private static final long serialVersionUID = -54523690732483278L;
 	private final Graph<V, D> graph;
 
+	/**
+	 * Wraps a graph without copying it, so changes to the graph still show.
+	 * Wrapping another {@link ImmutableGraph} shares the graph it wraps.
+	 *
+	 * @param graph the graph; not null
+	 */
 	public ImmutableGraph(Graph<V, D> graph) {
-		this.graph = Objects.requireNonNull(graph);
+		Objects.requireNonNull(graph);
+		this.graph = graph instanceof ImmutableGraph ? ((ImmutableGraph<V, D>) graph).graph : graph;
+	}
+
+	/**
+	 * Returns an immutable graph with the same nodes and edges that can
+	 * never change. Graphs that cannot change already, i.e. immutable graphs
+	 * over a frozen {@link UndirectedGraph} or an {@link IntGraph}, are shared
+	 * rather than copied, so this is free for most graphs in practice.
+	 *
+	 * @param graph the graph; not null
+	 * @param <V> the type for {@link Node} values
+	 * @param <D> the type for {@link Edge} data
+	 * @return the immutable graph; never null
+	 */
+	public static <V, D> ImmutableGraph<V, D> copyOf(Graph<V, D> graph) {
+		Objects.requireNonNull(graph);
+		if (graph instanceof ImmutableGraph && isFrozen(((ImmutableGraph<V, D>) graph).graph))
+			return (ImmutableGraph<V, D>) graph;
+		if (isFrozen(graph))
+			return new ImmutableGraph<>(graph);
+		return new ImmutableGraph<>(new UndirectedGraph<>(graph).freeze());
+	}
+
+	private static boolean isFrozen(Graph<?, ?> graph) {
+		return graph instanceof IntGraph
+				|| graph instanceof UndirectedGraph && ((UndirectedGraph<?, ?>) graph).isFrozen();
+	}
+
+	/**
+	 * @return the graph this graph wraps
+	 */
+	Graph<V, D> delegate() {
+		return graph;
 	}
 
 	@Override
@@ -0,0 +1,505 @@
+package uk.ac.bris.cs.gamekit.graph;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * An immutable graph over int node ids stored in compressed sparse row form.
+ * The edges leaving node {@code n} are the indices from {@link #edgeStart(int)}
+ * to {@link #edgeEnd(int)}; {@link #target(int)} and {@link #data(int)} give
+ * the destination and data of each edge, so walking neighbours is plain array
+ * access. Edge data is stored as one byte per edge indexing a palette of at
+ * most 256 distinct values.
+ *
+ * Node ids must be non-negative and are used as array indices, so they should
+ * be reasonably dense. The graph also implements {@link Graph} for code that
+ * works with {@link Node} and {@link Edge}; those objects are created on first
+ * use and cached. Nodes come from {@link Node#of(int)} and the two directions
+ * of an undirected edge are each other's {@link Edge#swap()}.
+ *
+ * @param <D> the type for {@link Edge} data
+ */
+public final class IntGraph<D> extends AbstractGraph<Integer, D>
+		implements Graph<Integer, D>, Serializable {
+
+	private static final long serialVersionUID = 4155139870421035384L;
+	private static final int MAX_PALETTE = 256;
+
+	private final int[] nodes;
+	private final boolean[] present;
+	private final int[] offsets;
+	private final int[] targets;
+	private final byte[] data;
+	private final Object[] palette;
+
+	private transient volatile Adapter<D> adapter;
+
+	private IntGraph(int[] nodes, boolean[] present, int[] offsets, int[] targets, byte[] data,
+			Object[] palette) {
+		this.nodes = nodes;
+		this.present = present;
+		this.offsets = offsets;
+		this.targets = targets;
+		this.data = data;
+		this.palette = palette;
+	}
+
+	/**
+	 * Converts a graph with integer node values. Returns the graph itself if it
+	 * already is an {@link IntGraph}, also when wrapped in an
+	 * {@link ImmutableGraph}. Otherwise nodes keep their order and each node's
+	 * edges keep the order of {@link Graph#getEdgesFrom(Node)}.
+	 *
+	 * @param graph the graph; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the graph in compressed form; never null
+	 */
+	public static <D> IntGraph<D> of(Graph<Integer, D> graph) {
+
+		Objects.requireNonNull(graph);
+
+		while (graph instanceof ImmutableGraph)
+			graph = ((ImmutableGraph<Integer, D>) graph).delegate();
+
+		if (graph instanceof IntGraph)
+			return (IntGraph<D>) graph;
+
+		Builder<D> builder = new Builder<>();
+		List<Node<Integer>> nodes = graph.getNodes();
+		for (Node<Integer> node : nodes)
+			builder.addNode(node.value());
+		for (Node<Integer> node : nodes)
+			for (Edge<Integer, D> edge : graph.getEdgesFrom(node))
+				builder.addEdge(node.value(), edge.destination().value(), edge.data());
+		return builder.build();
+
+	}
+
+	/**
+	 * Creates a graph directly from its compressed arrays, e.g. when loading a
+	 * graph saved with the accessors of this class. The arrays are checked and
+	 * then used as they are, so they must not be changed afterwards.
+	 *
+	 * @param nodes the node ids in insertion order, see {@link #nodeId(int)}
+	 * @param offsets the first edge of every id from 0 to the largest node id,
+	 *        followed by the number of edges, see {@link #edgeStart(int)}
+	 * @param targets the destination of every edge, see {@link #target(int)}
+	 * @param data the palette index of every edge, see {@link #dataIndex(int)}
+	 * @param palette the distinct edge data values; not null
+	 * @param <D> the type for {@link Edge} data
+	 * @return the graph; never null
+	 * @throws IllegalArgumentException if the arrays do not form a graph
+	 */
+	public static <D> IntGraph<D> ofArrays(int[] nodes, int[] offsets, int[] targets,
+			byte[] data, List<D> palette) {
+
+		if (palette.size() > MAX_PALETTE)
+			throw new IllegalArgumentException("More than " + MAX_PALETTE + " distinct edge data values");
+		if (data.length != targets.length)
+			throw new IllegalArgumentException("Expected data for " + targets.length + " edges, got " + data.length);
+
+		int maxId = -1;
+		for (int id : nodes) {
+			if (id < 0) throw new IllegalArgumentException("Node id must be >= 0, got " + id);
+			maxId = Math.max(maxId, id);
+		}
+
+		boolean[] present = new boolean[maxId + 1];
+		for (int id : nodes) {
+			if (present[id]) throw new IllegalArgumentException("Node " + id + " is already in the graph");
+			present[id] = true;
+		}
+
+		if (offsets.length != maxId + 2 || offsets[0] != 0 || offsets[maxId + 1] != targets.length)
+			throw new IllegalArgumentException("Offsets do not cover " + targets.length + " edges");
+		for (int id = 0; id <= maxId; id++)
+			if (offsets[id + 1] < offsets[id] || (!present[id] && offsets[id + 1] != offsets[id]))
+				throw new IllegalArgumentException("Bad offsets for node " + id);
+
+		for (int e = 0; e < targets.length; e++) {
+			if (targets[e] < 0 || targets[e] > maxId || !present[targets[e]])
+				throw new IllegalArgumentException("destination node " + targets[e] + " is not in the graph");
+			if ((data[e] & 0xFF) >= palette.size())
+				throw new IllegalArgumentException("Edge " + e + " has no data in the palette");
+		}
+
+		Object[] values = palette.toArray();
+		for (Object value : values)
+			Objects.requireNonNull(value);
+
+		return new IntGraph<>(nodes, present, offsets, targets, data, values);
+
+	}
+
+	/**
+	 * @return the number of edges, counting each direction of an undirected
+	 *         edge
+	 */
+	public int edgeCount() {
+		return targets.length;
+	}
+
+	/**
+	 * @return the largest id a node could have in this graph
+	 */
+	public int maxNodeId() {
+		return present.length - 1;
+	}
+
+	/**
+	 * @param id the node id
+	 * @return true if the graph has a node with the id
+	 */
+	public boolean containsNode(int id) {
+		return id >= 0 && id < present.length && present[id];
+	}
+
+	/**
+	 * @param index the position of the node in insertion order, from 0 to
+	 *        {@link #size()} - 1
+	 * @return the id of the node
+	 */
+	public int nodeId(int index) {
+		return nodes[index];
+	}
+
+	/**
+	 * @param id the id of a node in the graph
+	 * @return the index of the first edge leaving the node
+	 */
+	public int edgeStart(int id) {
+		return offsets[id];
+	}
+
+	/**
+	 * @param id the id of a node in the graph
+	 * @return one past the index of the last edge leaving the node
+	 */
+	public int edgeEnd(int id) {
+		return offsets[id + 1];
+	}
+
+	/**
+	 * @param id the id of a node in the graph
+	 * @return the number of edges leaving the node
+	 */
+	public int degree(int id) {
+		return offsets[id + 1] - offsets[id];
+	}
+
+	/**
+	 * @param edge the edge index
+	 * @return the id of the node the edge leads to
+	 */
+	public int target(int edge) {
+		return targets[edge];
+	}
+
+	/**
+	 * @param edge the edge index
+	 * @return the index of the edge's data in {@link #palette()}
+	 */
+	public int dataIndex(int edge) {
+		return data[edge] & 0xFF;
+	}
+
+	/**
+	 * @param edge the edge index
+	 * @return the data of the edge
+	 */
+	@SuppressWarnings("unchecked")
+	public D data(int edge) {
+		return (D) palette[data[edge] & 0xFF];
+	}
+
+	/**
+	 * @return the distinct edge data values in the order they were first seen;
+	 *         never null
+	 */
+	@SuppressWarnings("unchecked")
+	public List<D> palette() {
+		return Collections.unmodifiableList(Arrays.asList((D[]) palette.clone()));
+	}
+
+	@Override
+	public void addNode(Node<Integer> node) {
+		throw new UnsupportedOperationException("Adding node is not supported in an IntGraph");
+	}
+
+	@Override
+	public void addEdge(Edge<Integer, D> edge) {
+		throw new UnsupportedOperationException("Adding edge is not supported in an IntGraph");
+	}
+
+	@Override
+	public Node<Integer> getNode(Integer value) {
+		return value == null ? null : getNode(value.intValue());
+	}
+
+	/**
+	 * @param id the node id
+	 * @return the node, or null if it is not in the graph
+	 */
+	public Node<Integer> getNode(int id) {
+		return containsNode(id) ? adapter().nodes[id] : null;
+	}
+
+	@Override
+	public boolean containsNode(Integer value) {
+		return value != null && containsNode(value.intValue());
+	}
+
+	@Override
+	public List<Node<Integer>> getNodes() {
+		return adapter().nodeList;
+	}
+
+	@Override
+	public Collection<Edge<Integer, D>> getEdges() {
+		return adapter().edges;
+	}
+
+	@Override
+	public Collection<Edge<Integer, D>> getEdgesFrom(Node<Integer> source) {
+		if (!containsNode(source.value())) return Collections.emptyList();
+		return adapter().edgesFrom[source.value()];
+	}
+
+	@Override
+	public Collection<Edge<Integer, D>> getEdgesTo(Node<Integer> destination) {
+		if (!containsNode(destination.value())) return Collections.emptyList();
+		return adapter().edgesTo().get(destination.value());
+	}
+
+	@Override
+	public boolean isEmpty() {
+		return nodes.length == 0;
+	}
+
+	@Override
+	public int size() {
+		return nodes.length;
+	}
+
+	private Adapter<D> adapter() {
+		Adapter<D> adapter = this.adapter;
+		if (adapter == null) {
+			synchronized (this) {
+				adapter = this.adapter;
+				if (adapter == null)
+					this.adapter = adapter = new Adapter<>(this);
+			}
+		}
+		return adapter;
+	}
+
+	/**
+	 * The {@link Node} and {@link Edge} objects backing the {@link Graph}
+	 * methods
+	 */
+	private static final class Adapter<D> {
+
+		final IntGraph<D> graph;
+		final Node<Integer>[] nodes;
+		final List<Node<Integer>> nodeList;
+		final List<Edge<Integer, D>>[] edgesFrom;
+		final List<Edge<Integer, D>> edges;
+		private Map<Integer, List<Edge<Integer, D>>> edgesTo;
+
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		Adapter(IntGraph<D> graph) {
+
+			this.graph = graph;
+			this.nodes = new Node[graph.present.length];
+			this.edgesFrom = new List[graph.present.length];
+
+			List<Node<Integer>> nodeList = new ArrayList<>(graph.nodes.length);
+			for (int id : graph.nodes) {
+				nodes[id] = Node.of(id);
+				nodeList.add(nodes[id]);
+			}
+
+			Edge<Integer, D>[] byIndex = new Edge[graph.targets.length];
+			List<Edge<Integer, D>> edges = new ArrayList<>(graph.targets.length);
+			for (int id : graph.nodes) {
+				List<Edge<Integer, D>> from = new ArrayList<>(graph.degree(id));
+				for (int e = graph.edgeStart(id); e < graph.edgeEnd(id); e++) {
+					byIndex[e] = new Edge<>(nodes[id], nodes[graph.target(e)], graph.data(e));
+					from.add(byIndex[e]);
+				}
+				edgesFrom[id] = Collections.unmodifiableList(from);
+				edges.addAll(from);
+			}
+			pairReverseEdges(byIndex);
+
+			this.nodeList = Collections.unmodifiableList(nodeList);
+			this.edges = Collections.unmodifiableList(edges);
+
+		}
+
+		/**
+		 * Pairs each edge with an unpaired edge going back with the same data
+		 */
+		private void pairReverseEdges(Edge<Integer, D>[] byIndex) {
+			boolean[] paired = new boolean[byIndex.length];
+			for (int id : graph.nodes) {
+				for (int e = graph.edgeStart(id); e < graph.edgeEnd(id); e++) {
+					int target = graph.target(e);
+					if (paired[e] || target == id) continue;
+					for (int f = graph.edgeStart(target); f < graph.edgeEnd(target); f++) {
+						if (!paired[f] && graph.target(f) == id && graph.data[f] == graph.data[e]) {
+							Edge.pair(byIndex[e], byIndex[f]);
+							paired[e] = paired[f] = true;
+							break;
+						}
+					}
+				}
+			}
+		}
+
+		synchronized Map<Integer, List<Edge<Integer, D>>> edgesTo() {
+			if (edgesTo == null) {
+				Map<Integer, List<Edge<Integer, D>>> map = new HashMap<>();
+				for (int id : graph.nodes)
+					map.put(id, new ArrayList<>());
+				for (Edge<Integer, D> edge : edges)
+					map.get(edge.destination().value()).add(edge);
+				map.replaceAll((id, list) -> Collections.unmodifiableList(list));
+				edgesTo = map;
+			}
+			return edgesTo;
+		}
+
+	}
+
+	@Override
+	public String toString() {
+		return "IntGraph{nodes=" + nodes.length + ", edges=" + targets.length
+				+ ", palette=" + Arrays.toString(palette) + '}';
+	}
+
+	/**
+	 * Builds an {@link IntGraph}. Edges leaving the same node keep the order
+	 * they were added in.
+	 *
+	 * @param <D> the type for {@link Edge} data
+	 */
+	public static final class Builder<D> {
+
+		private int[] nodes = new int[16];
+		private int nodeCount;
+		private boolean[] present = new boolean[16];
+		private int[] sources = new int[16];
+		private int[] destinations = new int[16];
+		private byte[] data = new byte[16];
+		private int edgeCount;
+		private final List<D> palette = new ArrayList<>();
+		private final Map<D, Integer> paletteIndex = new HashMap<>();
+
+		/**
+		 * Adds a node
+		 *
+		 * @param id the node id, must be &gt;= 0 and not already added
+		 * @return this builder
+		 */
+		public Builder<D> addNode(int id) {
+			if (id < 0) throw new IllegalArgumentException("Node id must be >= 0, got " + id);
+			if (id >= present.length)
+				present = Arrays.copyOf(present, Math.max(id + 1, present.length * 2));
+			if (present[id]) throw new IllegalArgumentException("Node " + id + " is already in the graph");
+			present[id] = true;
+			if (nodeCount == nodes.length) nodes = Arrays.copyOf(nodes, nodeCount * 2);
+			nodes[nodeCount++] = id;
+			return this;
+		}
+
+		/**
+		 * Adds an edge in one direction
+		 *
+		 * @param source the id of the source node, must already be added
+		 * @param destination the id of the destination node, must already be
+		 *        added
+		 * @param data the edge data; not null
+		 * @return this builder
+		 */
+		public Builder<D> addEdge(int source, int destination, D data) {
+			checkNode(source, "source");
+			checkNode(destination, "destination");
+			Objects.requireNonNull(data);
+			Integer index = paletteIndex.get(data);
+			if (index == null) {
+				if (palette.size() == MAX_PALETTE)
+					throw new IllegalArgumentException("More than " + MAX_PALETTE + " distinct edge data values");
+				index = palette.size();
+				palette.add(data);
+				paletteIndex.put(data, index);
+			}
+			if (edgeCount == sources.length) {
+				sources = Arrays.copyOf(sources, edgeCount * 2);
+				destinations = Arrays.copyOf(destinations, edgeCount * 2);
+				this.data = Arrays.copyOf(this.data, edgeCount * 2);
+			}
+			sources[edgeCount] = source;
+			destinations[edgeCount] = destination;
+			this.data[edgeCount++] = (byte) index.intValue();
+			return this;
+		}
+
+		/**
+		 * Adds an edge in both directions, in the same order as
+		 * {@link UndirectedGraph#addEdge(Edge)}
+		 *
+		 * @param a the id of one node, must already be added
+		 * @param b the id of the other node, must already be added
+		 * @param data the edge data; not null
+		 * @return this builder
+		 */
+		public Builder<D> addUndirectedEdge(int a, int b, D data) {
+			addEdge(a, b, data);
+			return addEdge(b, a, data);
+		}
+
+		private void checkNode(int id, String name) {
+			if (id < 0 || id >= present.length || !present[id])
+				throw new IllegalArgumentException(name + " node " + id + " is not in the graph");
+		}
+
+		/**
+		 * @return the graph; never null
+		 */
+		public IntGraph<D> build() {
+
+			int maxId = present.length - 1;
+			while (maxId >= 0 && !present[maxId]) maxId--;
+
+			int[] offsets = new int[maxId + 2];
+			for (int e = 0; e < edgeCount; e++)
+				offsets[sources[e] + 1]++;
+			for (int id = 0; id <= maxId; id++)
+				offsets[id + 1] += offsets[id];
+
+			// A stable counting sort keeps the order edges were added in.
+			int[] next = Arrays.copyOf(offsets, maxId + 1);
+			int[] targets = new int[edgeCount];
+			byte[] data = new byte[edgeCount];
+			for (int e = 0; e < edgeCount; e++) {
+				int slot = next[sources[e]]++;
+				targets[slot] = destinations[e];
+				data[slot] = this.data[e];
+			}
+
+			return new IntGraph<>(Arrays.copyOf(nodes, nodeCount),
+					Arrays.copyOf(present, maxId + 1), offsets, targets, data, palette.toArray());
+
+		}
+
+	}
+
+}
@@ -5,18 +5,45 @@ import java.util.Objects;
 
 /**
  * A node in a {@link Graph}
+ *
+ * Nodes with small int values can be shared through {@link #of(int)}, and the
+ * hash code of every node is computed once, so nodes make cheap map keys.
  * 
  * @param <V> the type of the value this node holds
  */
 public final class Node<V> implements Serializable{
 
 	private static final long serialVersionUID = 6923768108710951907L;
+	private static final int POOL_SIZE = 1024;
 	private final V value;
+	// Not serialised since hash codes, e.g. of enums, may differ between runs.
+	private transient int hash;
 
 	public Node(V value) {
 		this.value = Objects.requireNonNull(value);
 	}
 
+	/**
+	 * Returns the node holding an int value. Values from 0 to 1023 come from a
+	 * pool, so every call with the same value returns the same node.
+	 *
+	 * @param value the value
+	 * @return the node; never null
+	 */
+	public static Node<Integer> of(int value) {
+		return value >= 0 && value < POOL_SIZE ? Pool.NODES[value] : new Node<>(value);
+	}
+
+	private static final class Pool {
+		@SuppressWarnings({"unchecked", "rawtypes"})
+		static final Node<Integer>[] NODES = new Node[POOL_SIZE];
+
+		static {
+			for (int i = 0; i < NODES.length; i++)
+				NODES[i] = new Node<>(i);
+		}
+	}
+
 	/**
 	 * @return the value this node holds, never null
 	 */
@@ -29,12 +56,17 @@ public final class Node<V> implements Serializable{
 		if (this == o) return true;
 		if (o == null || getClass() != o.getClass()) return false;
 		Node<?> node = (Node<?>) o;
+		if (hash != 0 && node.hash != 0 && hash != node.hash) return false;
 		return Objects.equals(value, node.value);
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(value);
+		// Like String, 0 means not computed yet, which only costs a rehash.
+		int hash = this.hash;
+		if (hash == 0)
+			this.hash = hash = Objects.hash(value);
+		return hash;
 	}
 
 	@Override
@@ -12,6 +12,11 @@ import java.util.Map;
 /**
  * An undirected graph implementation
  *
+ * Node and edge lists are read-only views that are created once, so they cost
+ * nothing to get. Once the graph is complete it can be {@link #freeze()
+ * frozen}; a frozen graph can no longer change, so
+ * {@link ImmutableGraph#copyOf(Graph)} shares it instead of copying it.
+ *
  * @param <V> the type for {@link Node} values
  * @param <D> the type for {@link Edge} data
  */
@@ -21,7 +26,12 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 	private final Map<V, Node<V>> valueNodeMap = new LinkedHashMap<>();
 	private final Map<Node<V>, List<Edge<V, D>>> sourceEdges = new HashMap<>();
 	private final Map<Node<V>, List<Edge<V, D>>> destinationEdges = new HashMap<>();
+	private final Map<Node<V>, Collection<Edge<V, D>>> sourceEdgeViews = new HashMap<>();
+	private final Map<Node<V>, Collection<Edge<V, D>>> destinationEdgeViews = new HashMap<>();
 	private final List<Edge<V, D>> edges = new ArrayList<>();
+	private final Collection<Edge<V, D>> edgesView = Collections.unmodifiableList(edges);
+	private transient List<Node<V>> nodes;
+	private boolean frozen;
 
 	/**
 	 * Creates a new undirected graph
@@ -36,14 +46,42 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 		other.getEdges().forEach(e -> appendEdge(getNode(e.source().value()), e));
 	}
 
+	/**
+	 * Stops the graph from changing any further. Adding nodes or edges to a
+	 * frozen graph throws {@link IllegalStateException}.
+	 *
+	 * @return this graph
+	 */
+	public UndirectedGraph<V, D> freeze() {
+		frozen = true;
+		return this;
+	}
+
+	/**
+	 * @return whether {@link #freeze()} was called
+	 */
+	public boolean isFrozen() {
+		return frozen;
+	}
+
+	private void checkNotFrozen() {
+		if (frozen) throw new IllegalStateException("The graph is frozen");
+	}
+
 	@Override
 	public void addNode(Node<V> node) {
 		if (node == null) throw new NullPointerException("node == null");
+		checkNotFrozen();
 		if (valueNodeMap.containsKey(node.value()))
 			throw new IllegalArgumentException(node + " is already in the graph");
 		valueNodeMap.put(node.value(), node);
-		sourceEdges.put(node, new ArrayList<>());
-		destinationEdges.put(node, new ArrayList<>());
+		List<Edge<V, D>> from = new ArrayList<>();
+		List<Edge<V, D>> to = new ArrayList<>();
+		sourceEdges.put(node, from);
+		destinationEdges.put(node, to);
+		sourceEdgeViews.put(node, Collections.unmodifiableList(from));
+		destinationEdgeViews.put(node, Collections.unmodifiableList(to));
+		nodes = null;
 	}
 
 	/**
@@ -55,6 +93,7 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 	@Override
 	public void addEdge(Edge<V, D> edge) {
 		if (edge == null) throw new NullPointerException("edge == null");
+		checkNotFrozen();
 		Node<V> source = getNode(edge.source().value());
 		if (source == null) throw new IllegalArgumentException(
 				"source of edge(" + edge.source() + ") is not in the graph");
@@ -83,22 +122,30 @@ public final class UndirectedGraph<V, D> extends AbstractGraph<V, D> implements
 
 	@Override
 	public List<Node<V>> getNodes() {
-		return Collections.unmodifiableList(new ArrayList<>(valueNodeMap.values()));
+		// The copy is kept until a node is added.
+		List<Node<V>> nodes = this.nodes;
+		if (nodes == null)
+			this.nodes = nodes = Collections.unmodifiableList(new ArrayList<>(valueNodeMap.values()));
+		return nodes;
 	}
 
 	@Override
 	public Collection<Edge<V, D>> getEdges() {
-		return Collections.unmodifiableList(edges);
+		return edgesView;
 	}
 
 	@Override
 	public Collection<Edge<V, D>> getEdgesFrom(Node<V> source) {
-		return Collections.unmodifiableList(sourceEdges.get(source));
+		Collection<Edge<V, D>> edges = sourceEdgeViews.get(source);
+		if (edges == null) throw new NullPointerException("source not in graph: " + source);
+		return edges;
 	}
 
 	@Override
 	public Collection<Edge<V, D>> getEdgesTo(Node<V> destination) {
-		return Collections.unmodifiableList(destinationEdges.get(destination));
+		Collection<Edge<V, D>> edges = destinationEdgeViews.get(destination);
+		if (edges == null) throw new NullPointerException("destination not in graph: " + destination);
+		return edges;
 	}
 
 	@Override
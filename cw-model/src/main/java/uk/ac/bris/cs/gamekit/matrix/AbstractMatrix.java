@@ -2,6 +2,14 @@ package uk.ac.bris.cs.gamekit.matrix;
 
 import java.util.Objects;
 
+/**
+ * Equality and hashing for matrices. Two matrices are equal if they have the
+ * same sizes and equal cells, and the hash code is
+ * {@code Objects.hash(asList())}, but both are computed cell by cell so no
+ * lists are created.
+ *
+ * @param <T> the type of elements in the matrix
+ */
 public abstract class AbstractMatrix<T> implements Matrix<T> {
 
 	@Override
@@ -13,12 +21,21 @@ public abstract class AbstractMatrix<T> implements Matrix<T> {
 				this.columnSize() != that.columnSize() ||
 				this.rowSize() != that.rowSize())
 			return false;
-		return Objects.equals(this.asList(), that.asList());
+		for (int row = 0; row < rowSize(); row++)
+			for (int column = 0; column < columnSize(); column++)
+				if (!Objects.equals(this.get(row, column), that.get(row, column)))
+					return false;
+		return true;
 	}
 
 	@Override
 	public int hashCode() {
-		return Objects.hash(asList());
+		int hash = 1;
+		for (int row = 0; row < rowSize(); row++)
+			for (int column = 0; column < columnSize(); column++)
+				hash = 31 * hash + Objects.hashCode(get(row, column));
+		// The same as Objects.hash(asList()), which hashes a one element array
+		return 31 + hash;
 	}
 
 }
@@ -0,0 +1,332 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Predicate;
+
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+
+/**
+ * A square matrix of booleans packed 64 to a long, for reachability over
+ * graphs. The product of two matrices is the boolean product, so the
+ * {@code k}th power of an adjacency matrix holds which nodes are exactly
+ * {@code k} moves from each other.
+ *
+ * Each row is a bitset where column {@code c} is bit {@code c & 63} of word
+ * {@code c >>> 6}, the same layout as the node sets of the Scotland Yard
+ * model, so a row can be used as a node set directly.
+ *
+ * Multiplication ORs together the rows of the right matrix selected by each
+ * row of the left one, splitting the rows between the threads of the common
+ * {@link ForkJoinPool}.
+ */
+public final class BitMatrix {
+
+	private static final int SEQUENTIAL_WORDS = 1 << 12;
+
+	private final int size;
+	private final int stride;
+	private final long[] words;
+
+	/**
+	 * Creates a new {@code size*size} matrix of false cells
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 */
+	public BitMatrix(int size) {
+		if (size < 1) throw new IllegalArgumentException("Size must me > 0, got " + size);
+		this.size = size;
+		this.stride = (size + 63) >>> 6;
+		if ((long) size * stride > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Size " + size + " is too large");
+		this.words = new long[size * stride];
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param matrix the matrix to copy from
+	 */
+	public BitMatrix(BitMatrix matrix) {
+		this.size = matrix.size;
+		this.stride = matrix.stride;
+		this.words = matrix.words.clone();
+	}
+
+	/**
+	 * @param size size of the size*size grid, must be &gt; 0
+	 * @return a new matrix with only its main diagonal set; never null
+	 */
+	public static BitMatrix identity(int size) {
+		BitMatrix matrix = new BitMatrix(size);
+		for (int i = 0; i < size; i++)
+			matrix.set(i, i);
+		return matrix;
+	}
+
+	/**
+	 * Builds the adjacency matrix of a graph, indexed by node id, so the
+	 * matrix has one more row than the largest node id
+	 *
+	 * @param graph the graph; not null
+	 * @param include which edges to include, e.g. a single transport; not null
+	 * @param <D> the type of the edge data
+	 * @return the matrix, where cell (a, b) is set if there is an included edge
+	 *         from a to b; never null
+	 */
+	public static <D> BitMatrix adjacency(IntGraph<D> graph, Predicate<? super D> include) {
+		Objects.requireNonNull(include);
+		BitMatrix matrix = new BitMatrix(Math.max(graph.maxNodeId() + 1, 1));
+		boolean[] usable = new boolean[graph.palette().size()];
+		for (int i = 0; i < usable.length; i++)
+			usable[i] = include.test(graph.palette().get(i));
+		for (int i = 0; i < graph.size(); i++) {
+			int node = graph.nodeId(i);
+			for (int e = graph.edgeStart(node), end = graph.edgeEnd(node); e < end; e++)
+				if (usable[graph.dataIndex(e)]) matrix.set(node, graph.target(e));
+		}
+		return matrix;
+	}
+
+	private int word(int row, int column) {
+		return Objects.checkIndex(row, size) * stride + (Objects.checkIndex(column, size) >>> 6);
+	}
+
+	/**
+	 * @return the number of rows, which is also the number of columns
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param row the row of the cell
+	 * @param column the column of the cell
+	 * @return the value of the cell
+	 */
+	public boolean get(int row, int column) {
+		return (words[word(row, column)] & 1L << column) != 0;
+	}
+
+	/**
+	 * @param row the row of the cell
+	 * @param column the column of the cell
+	 */
+	public void set(int row, int column) {
+		words[word(row, column)] |= 1L << column;
+	}
+
+	/**
+	 * @param row the row of the cell
+	 * @param column the column of the cell
+	 */
+	public void clear(int row, int column) {
+		words[word(row, column)] &= ~(1L << column);
+	}
+
+	/**
+	 * @param row the row
+	 * @return a copy of the row as a bitset; never null
+	 */
+	public long[] row(int row) {
+		int start = Objects.checkIndex(row, size) * stride;
+		return Arrays.copyOfRange(words, start, start + stride);
+	}
+
+	/**
+	 * @param row the row
+	 * @return the number of set cells in the row
+	 */
+	public int cardinality(int row) {
+		int count = 0;
+		for (int i = Objects.checkIndex(row, size) * stride, end = i + stride; i < end; i++)
+			count += Long.bitCount(words[i]);
+		return count;
+	}
+
+	/**
+	 * @return the number of set cells
+	 */
+	public int cardinality() {
+		int count = 0;
+		for (long word : words)
+			count += Long.bitCount(word);
+		return count;
+	}
+
+	/**
+	 * Sets every cell that is set in another matrix
+	 *
+	 * @param other the matrix of the same size; not null
+	 * @return this matrix; never null
+	 */
+	public BitMatrix or(BitMatrix other) {
+		checkSize(other);
+		for (int i = 0; i < words.length; i++)
+			words[i] |= other.words[i];
+		return this;
+	}
+
+	/**
+	 * Follows one step from a set of rows: the result has column {@code c}
+	 * set if any row in the set has {@code c} set
+	 *
+	 * @param rows the set of rows as a bitset; rows past the matrix are
+	 *        ignored; not null
+	 * @return the set of columns as a bitset; never null
+	 */
+	public long[] step(long[] rows) {
+		long[] result = new long[stride];
+		for (int w = 0, words = Math.min(rows.length, stride); w < words; w++) {
+			for (long bits = rows[w]; bits != 0; bits &= bits - 1) {
+				int row = (w << 6) + Long.numberOfTrailingZeros(bits);
+				if (row >= size) break;
+				for (int i = 0, from = row * stride; i < stride; i++)
+					result[i] |= this.words[from + i];
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * @param other the right matrix of the same size; not null
+	 * @return a new matrix holding the boolean product of this and the other
+	 *         matrix; never null
+	 */
+	public BitMatrix multiply(BitMatrix other) {
+		checkSize(other);
+		BitMatrix product = new BitMatrix(size);
+		multiplyInto(other, product);
+		return product;
+	}
+
+	/**
+	 * ORs the boolean product of this and another matrix into a matrix,
+	 * without allocating the product
+	 *
+	 * @param other the right matrix of the same size; not null
+	 * @param into the matrix to OR the product into, which must not be this
+	 *        or the other matrix; not null
+	 * @return the matrix the product was ORed into; never null
+	 */
+	public BitMatrix multiplyInto(BitMatrix other, BitMatrix into) {
+		checkSize(other);
+		checkSize(into);
+		if (into == this || into == other)
+			throw new IllegalArgumentException("Cannot multiply into an operand");
+		Multiply task = new Multiply(this, other, into, 0, size);
+		if ((long) size * stride <= SEQUENTIAL_WORDS) task.compute();
+		else ForkJoinPool.commonPool().invoke(task);
+		return into;
+	}
+
+	/**
+	 * Raises this matrix to a power by repeated squaring
+	 *
+	 * @param exponent the power, must be &gt;= 0
+	 * @return a new matrix; the identity for an exponent of 0; never null
+	 */
+	public BitMatrix power(int exponent) {
+		if (exponent < 0) throw new IllegalArgumentException("Exponent must be >= 0, got " + exponent);
+		BitMatrix result = null;
+		BitMatrix square = this;
+		for (int e = exponent; e != 0; e >>>= 1) {
+			if ((e & 1) != 0)
+				result = result == null ? new BitMatrix(square) : result.multiply(square);
+			if (e > 1) square = square.multiply(square);
+		}
+		return result == null ? identity(size) : result;
+	}
+
+	/**
+	 * Computes every power up to a limit, one multiplication each, e.g. where
+	 * a player can be after each of the rounds of a game
+	 *
+	 * @param limit the largest power, must be &gt;= 0
+	 * @return {@code limit + 1} new matrices where element {@code k} is the
+	 *         {@code k}th power; never null
+	 */
+	public BitMatrix[] powers(int limit) {
+		if (limit < 0) throw new IllegalArgumentException("Limit must be >= 0, got " + limit);
+		BitMatrix[] powers = new BitMatrix[limit + 1];
+		powers[0] = identity(size);
+		for (int k = 1; k <= limit; k++)
+			powers[k] = k == 1 ? new BitMatrix(this) : powers[k - 1].multiply(this);
+		return powers;
+	}
+
+	private void checkSize(BitMatrix other) {
+		if (other.size != size)
+			throw new IllegalArgumentException("Size " + other.size + " != " + size);
+	}
+
+	/**
+	 * ORs rows {@code from} to {@code to} of a product into a matrix, halving
+	 * the rows until they are few enough to do directly
+	 */
+	private static final class Multiply extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final BitMatrix left, right, into;
+		private final int from, to;
+
+		Multiply(BitMatrix left, BitMatrix right, BitMatrix into, int from, int to) {
+			this.left = left;
+			this.right = right;
+			this.into = into;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			int stride = left.stride;
+			if ((long) (to - from) * stride > SEQUENTIAL_WORDS && to - from > 1) {
+				int middle = (from + to) >>> 1;
+				invokeAll(new Multiply(left, right, into, from, middle),
+						new Multiply(left, right, into, middle, to));
+				return;
+			}
+			long[] a = left.words, b = right.words, c = into.words;
+			for (int row = from; row < to; row++) {
+				int out = row * stride;
+				for (int w = 0; w < stride; w++) {
+					for (long bits = a[out + w]; bits != 0; bits &= bits - 1) {
+						int k = ((w << 6) + Long.numberOfTrailingZeros(bits)) * stride;
+						for (int i = 0; i < stride; i++)
+							c[out + i] |= b[k + i];
+					}
+				}
+			}
+		}
+
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		BitMatrix that = (BitMatrix) o;
+		return size == that.size && Arrays.equals(words, that.words);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * size + Arrays.hashCode(words);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder("[");
+		for (int row = 0; row < size; row++) {
+			if (row > 0) builder.append('\n');
+			for (int column = 0; column < size; column++)
+				builder.append(get(row, column) ? '1' : '0');
+		}
+		return builder.append(']').toString();
+	}
+
+}
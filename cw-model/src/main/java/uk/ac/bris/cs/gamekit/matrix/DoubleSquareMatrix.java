@@ -0,0 +1,372 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import static java.util.stream.Collectors.joining;
+
+import java.io.Serializable;
+import java.nio.DoubleBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.IntStream;
+
+/**
+ * A square matrix of doubles stored in one row-major array, so cells are never
+ * boxed. Rows and columns can be copied in bulk, and {@link #asMatrix()} gives
+ * a {@link Matrix} view for code that works with any matrix.
+ */
+public final class DoubleSquareMatrix implements Serializable {
+
+	private static final long serialVersionUID = 6171358201729830411L;
+	private final int size;
+	private final double[] cells;
+
+	/**
+	 * Creates a new {@code size*size} matrix of zeros
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 */
+	public DoubleSquareMatrix(int size) {
+		this(size, 0);
+	}
+
+	/**
+	 * Creates a new {@code size*size} matrix
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 * @param defaultValue initial value for all cells
+	 */
+	public DoubleSquareMatrix(int size, double defaultValue) {
+		if (size < 1) throw new IllegalArgumentException("Size must me > 0, got " + size);
+		if ((long) size * size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Size " + size + " is too large");
+		this.size = size;
+		this.cells = new double[size * size];
+		if (Double.doubleToRawLongBits(defaultValue) != 0) Arrays.fill(cells, defaultValue);
+	}
+
+	/**
+	 * Copy constructor
+	 *
+	 * @param matrix the matrix to copy from
+	 */
+	public DoubleSquareMatrix(DoubleSquareMatrix matrix) {
+		this.size = matrix.size;
+		this.cells = matrix.cells.clone();
+	}
+
+	/**
+	 * Copies a square matrix of boxed values
+	 *
+	 * @param matrix the matrix to copy from; not null, with no null cells
+	 * @return the copy; never null
+	 */
+	public static DoubleSquareMatrix copyOf(Matrix<? extends Number> matrix) {
+		if (matrix.rowSize() != matrix.columnSize())
+			throw new IllegalArgumentException("Matrix is not square: "
+					+ matrix.rowSize() + "x" + matrix.columnSize());
+		DoubleSquareMatrix copy = new DoubleSquareMatrix(matrix.rowSize());
+		for (int row = 0; row < copy.size; row++)
+			for (int column = 0; column < copy.size; column++)
+				copy.cells[row * copy.size + column] = matrix.get(row, column).doubleValue();
+		return copy;
+	}
+
+	private int index(int row, int column) {
+		// Both checks are intrinsics, so loops over a row only check once.
+		return Objects.checkIndex(row, size) * size + Objects.checkIndex(column, size);
+	}
+
+	/**
+	 * @return the number of rows, which is also the number of columns
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @param row the row of the cell
+	 * @param column the column of the cell
+	 * @return the value of the cell
+	 */
+	public double get(int row, int column) {
+		return cells[index(row, column)];
+	}
+
+	/**
+	 * @param row the row of the cell
+	 * @param column the column of the cell
+	 * @param value the new value of the cell
+	 */
+	public void put(int row, int column, double value) {
+		cells[index(row, column)] = value;
+	}
+
+	/**
+	 * @param row the row to test
+	 * @param column the column to test
+	 * @return true if the given location is within bounds
+	 */
+	public boolean inBounds(int row, int column) {
+		return row >= 0 && row < size && column >= 0 && column < size;
+	}
+
+	/**
+	 * @param value the new value of every cell
+	 */
+	public void fill(double value) {
+		Arrays.fill(cells, value);
+	}
+
+	/**
+	 * @param row the row
+	 * @return a copy of the row; never null
+	 */
+	public double[] row(int row) {
+		double[] values = new double[size];
+		copyRow(row, values, 0);
+		return values;
+	}
+
+	/**
+	 * Copies a row into an array
+	 *
+	 * @param row the row
+	 * @param into the array to copy into; not null
+	 * @param offset where the row starts in the array
+	 */
+	public void copyRow(int row, double[] into, int offset) {
+		System.arraycopy(cells, index(row, 0), into, offset, size);
+	}
+
+	/**
+	 * Sets an entire row
+	 *
+	 * @param row the row to set
+	 * @param values the values; not null, with {@link #size()} values
+	 */
+	public void row(int row, double[] values) {
+		if (values.length != size) throw new IllegalArgumentException("size != values.length");
+		System.arraycopy(values, 0, cells, index(row, 0), size);
+	}
+
+	/**
+	 * @param row the row
+	 * @return a view of the row that writes through to this matrix; never null
+	 */
+	public DoubleBuffer rowView(int row) {
+		return DoubleBuffer.wrap(cells, index(row, 0), size).slice();
+	}
+
+	/**
+	 * @param column the column
+	 * @return a copy of the column; never null
+	 */
+	public double[] column(int column) {
+		double[] values = new double[size];
+		copyColumn(column, values, 0);
+		return values;
+	}
+
+	/**
+	 * Copies a column into an array
+	 *
+	 * @param column the column
+	 * @param into the array to copy into; not null
+	 * @param offset where the column starts in the array
+	 */
+	public void copyColumn(int column, double[] into, int offset) {
+		Objects.checkFromIndexSize(offset, size, into.length);
+		for (int i = 0, cell = index(0, column); i < size; i++, cell += size)
+			into[offset + i] = cells[cell];
+	}
+
+	/**
+	 * Sets an entire column
+	 *
+	 * @param column the column to set
+	 * @param values the values; not null, with {@link #size()} values
+	 */
+	public void column(int column, double[] values) {
+		if (values.length != size) throw new IllegalArgumentException("size != values.length");
+		for (int i = 0, cell = index(0, column); i < size; i++, cell += size)
+			cells[cell] = values[i];
+	}
+
+	/**
+	 * @return a copy of the main diagonal; never null
+	 */
+	public double[] mainDiagonal() {
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++)
+			values[i] = cells[i * (size + 1)];
+		return values;
+	}
+
+	/**
+	 * @return a copy of the antidiagonal; never null
+	 */
+	public double[] antiDiagonal() {
+		double[] values = new double[size];
+		for (int i = 0; i < size; i++)
+			values[i] = cells[(i + 1) * (size - 1)];
+		return values;
+	}
+
+	/**
+	 * @return a copy of every cell, row by row; never null
+	 */
+	public double[] toArray() {
+		return cells.clone();
+	}
+
+	/**
+	 * Visits every cell row by row, without boxing
+	 *
+	 * @param visitor the visitor; not null
+	 */
+	public void forEachCell(DoubleCellVisitor visitor) {
+		for (int row = 0, cell = 0; row < size; row++)
+			for (int column = 0; column < size; column++, cell++)
+				visitor.visit(row, column, cells[cell]);
+	}
+
+	/**
+	 * Receives the cells of a matrix
+	 *
+	 * @see #forEachCell(DoubleCellVisitor)
+	 */
+	@FunctionalInterface
+	public interface DoubleCellVisitor {
+		/**
+		 * @param row the row of the cell
+		 * @param column the column of the cell
+		 * @param value the value of the cell
+		 */
+		void visit(int row, int column, double value);
+	}
+
+	/**
+	 * Returns this matrix as a {@link Matrix}. The matrix and the lists it
+	 * returns are views of this matrix, so they cost nothing to create but box
+	 * every value read through them. Null cannot be put.
+	 *
+	 * @return the view; never null
+	 */
+	public Matrix<Double> asMatrix() {
+		return new View();
+	}
+
+	private final class View extends AbstractMatrix<Double> {
+
+		@Override
+		public Double get(int row, int column) {
+			return cells[index(row, column)];
+		}
+
+		@Override
+		public void put(int row, int column, Double cell) {
+			cells[index(row, column)] = Objects.requireNonNull(cell);
+		}
+
+		@Override
+		public boolean inBounds(int row, int column) {
+			return DoubleSquareMatrix.this.inBounds(row, column);
+		}
+
+		@Override
+		public List<Double> row(int row) {
+			return list(index(row, 0), 1, size);
+		}
+
+		@Override
+		public void row(int row, List<Double> values) {
+			if (size != values.size()) throw new IllegalArgumentException("size != value.size()");
+			for (int i = 0, cell = index(row, 0); i < size; i++)
+				cells[cell + i] = values.get(i);
+		}
+
+		@Override
+		public List<Double> column(int column) {
+			return list(index(0, column), size, size);
+		}
+
+		@Override
+		public void column(int column, List<Double> values) {
+			if (size != values.size()) throw new IllegalArgumentException("size != value.size()");
+			for (int i = 0, cell = index(0, column); i < size; i++, cell += size)
+				cells[cell] = values.get(i);
+		}
+
+		@Override
+		public List<Double> mainDiagonal() {
+			return list(0, size + 1, size);
+		}
+
+		@Override
+		public List<Double> antiDiagonal() {
+			return list(size - 1, size - 1, size);
+		}
+
+		@Override
+		public List<Double> asList() {
+			return list(0, 1, cells.length);
+		}
+
+		@Override
+		public int columnSize() {
+			return size;
+		}
+
+		@Override
+		public int rowSize() {
+			return size;
+		}
+
+		@Override
+		public String toString() {
+			return DoubleSquareMatrix.this.toString();
+		}
+
+	}
+
+	/**
+	 * @return an unmodifiable view of {@code length} cells starting at
+	 *         {@code start}, {@code step} cells apart
+	 */
+	private List<Double> list(int start, int step, int length) {
+		return new AbstractList<Double>() {
+			@Override
+			public Double get(int index) {
+				return cells[start + Objects.checkIndex(index, length) * step];
+			}
+
+			@Override
+			public int size() {
+				return length;
+			}
+		};
+	}
+
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		DoubleSquareMatrix that = (DoubleSquareMatrix) o;
+		return size == that.size && Arrays.equals(cells, that.cells);
+	}
+
+	@Override
+	public int hashCode() {
+		return 31 * size + Arrays.hashCode(cells);
+	}
+
+	@Override
+	public String toString() {
+		return IntStream.range(0, size)
+				.mapToObj(row -> Arrays.stream(cells, row * size, (row + 1) * size)
+						.mapToObj(Double::toString).collect(joining(", ")))
+				.collect(joining("\n", "[", "]"));
+	}
+
+}
@@ -4,6 +4,12 @@ import java.io.Serializable;
 import java.util.List;
 import java.util.Objects;
 
+/**
+ * A read only view of another matrix, which sees any change made to the
+ * wrapped matrix.
+ *
+ * @param <T> the type of elements in the matrix
+ */
 public final class ImmutableMatrix<T> extends AbstractMatrix<T> implements Serializable {
 
 	private static final long serialVersionUID = -5993100663042974328L;
@@ -78,6 +84,11 @@ public final class ImmutableMatrix<T> extends AbstractMatrix<T> implements Seria
 		return matrix.rowSize();
 	}
 
+	@Override
+	public void forEachCell(CellVisitor<? super T> visitor) {
+		matrix.forEachCell(visitor);
+	}
+
 	@Override
 	public String toString() {
 		return String.format("ImmutableMatrix{\n%s\n}", matrix);
@@ -0,0 +1,464 @@
+package uk.ac.bris.cs.gamekit.matrix;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.IntUnaryOperator;
+import java.util.zip.CRC32;
+
+/**
+ * A square matrix of fixed width integer cells kept in a memory mapped file
+ * instead of on the heap, for tables too large for an
+ * {@link IntSquareMatrix}, such as all-pairs distances over very large maps.
+ * Processes opening the same file read-only share its pages through the
+ * operating system's page cache.
+ *
+ * The file is big endian and laid out as:
+ * <pre>
+ * int     magic, "SYMX"
+ * int     version, 1
+ * int     size N
+ * int     cell width in bytes, 1, 2 or 4
+ * int     CRC32 of the cells
+ * byte[12] reserved, zero
+ * cells   N*N cells row by row
+ * </pre>
+ * Byte and short cells are unsigned, int cells are signed.
+ *
+ * The cells are mapped in segments of whole rows of up to 1GB, each mapped the
+ * first time one of its rows is used, and the operating system then pages in
+ * only what is read. {@link #load()} pages in everything up front instead.
+ * Reads are thread safe; writes are not synchronised.
+ */
+public final class MappedMatrix implements Closeable {
+
+	/**
+	 * The width of every cell
+	 */
+	public enum Width {
+		BYTE(1, 0xFF), SHORT(2, 0xFFFF), INT(4, -1);
+
+		private final int bytes;
+		private final int mask;
+
+		Width(int bytes, int mask) {
+			this.bytes = bytes;
+			this.mask = mask;
+		}
+
+		/**
+		 * @return the number of bytes of a cell
+		 */
+		public int bytes() {
+			return bytes;
+		}
+
+		/**
+		 * @param value a value
+		 * @return whether a cell of this width can hold the value
+		 */
+		public boolean fits(int value) {
+			return this == INT || (value & ~mask) == 0;
+		}
+
+		static Width of(int bytes) {
+			for (Width width : values())
+				if (width.bytes == bytes) return width;
+			return null;
+		}
+	}
+
+	private static final int MAGIC = 0x5359_4D58;
+	private static final int VERSION = 1;
+	private static final int HEADER_BYTES = 32;
+	private static final int CHECKSUM_OFFSET = 16;
+	private static final long SEGMENT_BYTES = 1L << 30;
+
+	private final FileChannel channel;
+	private final boolean writable;
+	private final int size;
+	private final Width width;
+	private final int rowBytes;
+	private final int rowsPerSegment;
+	private final AtomicReferenceArray<ByteBuffer> segments;
+	private int checksum;
+
+	private MappedMatrix(FileChannel channel, boolean writable, int size, Width width, int checksum) {
+		this.channel = channel;
+		this.writable = writable;
+		this.size = size;
+		this.width = width;
+		this.rowBytes = size * width.bytes;
+		this.rowsPerSegment = (int) Math.max(1, Math.min(size, SEGMENT_BYTES / rowBytes));
+		this.segments = new AtomicReferenceArray<>((size + rowsPerSegment - 1) / rowsPerSegment);
+		this.checksum = checksum;
+	}
+
+	/**
+	 * Creates a file holding a matrix of zeros, replacing any existing file.
+	 * The checksum is written by {@link #force()} or {@link #close()}.
+	 *
+	 * @param file the file; not null
+	 * @param size size of the size*size grid, must be &gt; 0
+	 * @param width the width of every cell; not null
+	 * @return the matrix, open for writing; never null
+	 * @throws IOException if the file cannot be created
+	 */
+	public static MappedMatrix create(Path file, int size, Width width) throws IOException {
+		if (size < 1) throw new IllegalArgumentException("Size must me > 0, got " + size);
+		if ((long) size * width.bytes > Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Size " + size + " is too large");
+		FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.READ, StandardOpenOption.WRITE,
+				StandardOpenOption.TRUNCATE_EXISTING);
+		try {
+			MappedMatrix matrix = new MappedMatrix(channel, true, size, width, 0);
+			matrix.writeHeader();
+			// Grows the file to its full length; the cells read as zero.
+			channel.write(ByteBuffer.allocate(1), HEADER_BYTES + (long) size * size * width.bytes - 1);
+			return matrix;
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Writes a matrix to a file, replacing any existing file
+	 *
+	 * @param file the file; not null
+	 * @param matrix the matrix to write; not null
+	 * @param width the width of every cell, which every value must fit; not
+	 *        null
+	 * @return the written matrix, open for writing; never null
+	 * @throws IOException if the file cannot be written
+	 */
+	public static MappedMatrix copyOf(Path file, IntSquareMatrix matrix, Width width)
+			throws IOException {
+		MappedMatrix copy = create(file, matrix.size(), width);
+		try {
+			int[] row = new int[matrix.size()];
+			for (int i = 0; i < row.length; i++) {
+				matrix.copyRow(i, row, 0);
+				for (int j = 0; j < row.length; j++)
+					copy.put(i, j, row[j]);
+			}
+			copy.force();
+			return copy;
+		} catch (IOException | RuntimeException e) {
+			copy.channel.close();
+			throw e;
+		}
+	}
+
+	/**
+	 * Opens a matrix read-only, checking the header but not the checksum
+	 *
+	 * @param file the file; not null
+	 * @return the matrix; never null
+	 * @throws IOException if the file cannot be read or is not a matrix
+	 */
+	public static MappedMatrix open(Path file) throws IOException {
+		return open(file, false);
+	}
+
+	/**
+	 * Opens a matrix
+	 *
+	 * @param file the file; not null
+	 * @param writable whether cells may be changed
+	 * @return the matrix; never null
+	 * @throws IOException if the file cannot be read or is not a matrix
+	 */
+	public static MappedMatrix open(Path file, boolean writable) throws IOException {
+		FileChannel channel = writable
+				? FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)
+				: FileChannel.open(file, StandardOpenOption.READ);
+		try {
+			ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+			while (header.hasRemaining() && channel.read(header) >= 0);
+			if (header.hasRemaining() || header.getInt(0) != MAGIC)
+				throw new IOException("Not a mapped matrix");
+			int version = header.getInt(4);
+			if (version != VERSION)
+				throw new IOException("Unsupported mapped matrix version " + version);
+			int size = header.getInt(8);
+			Width width = Width.of(header.getInt(12));
+			if (size < 1 || width == null
+					|| channel.size() != HEADER_BYTES + (long) size * size * width.bytes)
+				throw new IOException("Corrupt mapped matrix header");
+			return new MappedMatrix(channel, writable, size, width, header.getInt(CHECKSUM_OFFSET));
+		} catch (IOException | RuntimeException e) {
+			channel.close();
+			throw e;
+		}
+	}
+
+	private void writeHeader() throws IOException {
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.BIG_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putInt(size).putInt(width.bytes).putInt(checksum);
+		header.clear();
+		while (header.hasRemaining())
+			channel.write(header, header.position());
+	}
+
+	private ByteBuffer segment(int index) {
+		ByteBuffer segment = segments.get(index);
+		if (segment == null) {
+			synchronized (segments) {
+				segment = segments.get(index);
+				if (segment == null) {
+					int rows = Math.min(rowsPerSegment, size - index * rowsPerSegment);
+					try {
+						segment = channel.map(writable ? MapMode.READ_WRITE : MapMode.READ_ONLY,
+								HEADER_BYTES + (long) index * rowsPerSegment * rowBytes,
+								(long) rows * rowBytes).order(ByteOrder.BIG_ENDIAN);
+					} catch (IOException e) {
+						throw new IllegalStateException("Cannot map rows of " + this, e);
+					}
+					segments.set(index, segment);
+				}
+			}
+		}
+		return segment;
+	}
+
+	/**
+	 * @return the number of rows, which is also the number of columns
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the width of every cell; never null
+	 */
+	public Width width() {
+		return width;
+	}
+
+	/**
+	 * @param row the row of the cell
+	 * @param column the column of the cell
+	 * @return the value of the cell
+	 */
+	public int get(int row, int column) {
+		Objects.checkIndex(row, size);
+		Objects.checkIndex(column, size);
+		ByteBuffer segment = segment(row / rowsPerSegment);
+		int offset = (row % rowsPerSegment) * rowBytes + column * width.bytes;
+		switch (width) {
+			case BYTE:
+				return segment.get(offset) & 0xFF;
+			case SHORT:
+				return segment.getShort(offset) & 0xFFFF;
+			default:
+				return segment.getInt(offset);
+		}
+	}
+
+	/**
+	 * @param row the row of the cell
+	 * @param column the column of the cell
+	 * @param value the new value of the cell, which must fit the width
+	 * @throws UnsupportedOperationException if the matrix is read-only
+	 */
+	public void put(int row, int column, int value) {
+		if (!writable) throw new UnsupportedOperationException("The matrix is read-only");
+		if (!width.fits(value))
+			throw new IllegalArgumentException(value + " does not fit in a " + width + " cell");
+		Objects.checkIndex(row, size);
+		Objects.checkIndex(column, size);
+		ByteBuffer segment = segment(row / rowsPerSegment);
+		int offset = (row % rowsPerSegment) * rowBytes + column * width.bytes;
+		switch (width) {
+			case BYTE:
+				segment.put(offset, (byte) value);
+				break;
+			case SHORT:
+				segment.putShort(offset, (short) value);
+				break;
+			default:
+				segment.putInt(offset, value);
+		}
+	}
+
+	/**
+	 * Maps every segment and pages all of it into memory, so later reads do
+	 * not wait for the disk
+	 */
+	public void load() {
+		for (int i = 0; i < segments.length(); i++) {
+			ByteBuffer segment = segment(i);
+			if (segment instanceof MappedByteBuffer)
+				((MappedByteBuffer) segment).load();
+		}
+	}
+
+	/**
+	 * @return the checksum stored in the header, which is current after
+	 *         {@link #force()}
+	 */
+	public int checksum() {
+		return checksum;
+	}
+
+	private int computeChecksum() {
+		CRC32 crc = new CRC32();
+		for (int i = 0; i < segments.length(); i++)
+			crc.update(segment(i).duplicate().clear());
+		return (int) crc.getValue();
+	}
+
+	/**
+	 * Reads every cell to check them against the stored checksum
+	 *
+	 * @return whether the cells match the checksum
+	 */
+	public boolean verify() {
+		return computeChecksum() == checksum;
+	}
+
+	/**
+	 * Updates the checksum and writes every change to the file
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	public void force() throws IOException {
+		if (!writable) return;
+		checksum = computeChecksum();
+		writeHeader();
+		for (int i = 0; i < segments.length(); i++) {
+			ByteBuffer segment = segments.get(i);
+			if (segment instanceof MappedByteBuffer)
+				((MappedByteBuffer) segment).force();
+		}
+		channel.force(false);
+	}
+
+	/**
+	 * Forces changes to the file and closes it. Mapped segments stay readable
+	 * until they are garbage collected, but no new segments can be mapped.
+	 *
+	 * @throws IOException if the file cannot be written
+	 */
+	@Override
+	public void close() throws IOException {
+		try {
+			force();
+		} finally {
+			channel.close();
+		}
+	}
+
+	/**
+	 * Returns this matrix as a {@link Matrix}. The lists it returns are views
+	 * that read the file as they are used. Changing the view is only supported
+	 * if this matrix is writable.
+	 *
+	 * @return the view; never null
+	 */
+	public Matrix<Integer> asMatrix() {
+		return new AbstractMatrix<Integer>() {
+
+			@Override
+			public Integer get(int row, int column) {
+				return MappedMatrix.this.get(row, column);
+			}
+
+			@Override
+			public void put(int row, int column, Integer cell) {
+				MappedMatrix.this.put(row, column, Objects.requireNonNull(cell));
+			}
+
+			@Override
+			public boolean inBounds(int row, int column) {
+				return row >= 0 && row < size && column >= 0 && column < size;
+			}
+
+			@Override
+			public List<Integer> row(int row) {
+				Objects.checkIndex(row, size);
+				return list(i -> MappedMatrix.this.get(row, i), size);
+			}
+
+			@Override
+			public void row(int row, List<Integer> values) {
+				if (size != values.size()) throw new IllegalArgumentException("size != value.size()");
+				for (int i = 0; i < size; i++)
+					put(row, i, values.get(i));
+			}
+
+			@Override
+			public List<Integer> column(int column) {
+				Objects.checkIndex(column, size);
+				return list(i -> MappedMatrix.this.get(i, column), size);
+			}
+
+			@Override
+			public void column(int column, List<Integer> values) {
+				if (size != values.size()) throw new IllegalArgumentException("size != value.size()");
+				for (int i = 0; i < size; i++)
+					put(i, column, values.get(i));
+			}
+
+			@Override
+			public List<Integer> mainDiagonal() {
+				return list(i -> MappedMatrix.this.get(i, i), size);
+			}
+
+			@Override
+			public List<Integer> antiDiagonal() {
+				return list(i -> MappedMatrix.this.get(i, size - 1 - i), size);
+			}
+
+			@Override
+			public List<Integer> asList() {
+				if ((long) size * size > Integer.MAX_VALUE)
+					throw new UnsupportedOperationException("Too many cells for a list");
+				return list(i -> MappedMatrix.this.get(i / size, i % size), size * size);
+			}
+
+			@Override
+			public int columnSize() {
+				return size;
+			}
+
+			@Override
+			public int rowSize() {
+				return size;
+			}
+
+		};
+	}
+
+	private static List<Integer> list(IntUnaryOperator cell, int length) {
+		return new AbstractList<Integer>() {
+			@Override
+			public Integer get(int index) {
+				return cell.applyAsInt(Objects.checkIndex(index, length));
+			}
+
+			@Override
+			public int size() {
+				return length;
+			}
+		};
+	}
+
+	@Override
+	public String toString() {
+		return "MappedMatrix{size=" + size + ", width=" + width + ", writable=" + writable + '}';
+	}
+
+}
@@ -110,4 +110,31 @@ public interface Matrix<T> {
 	 * @return the row size of the matrix
 	 */
 	int rowSize();
+
+	/**
+	 * Visits every cell row by row, without creating any lists
+	 *
+	 * @param visitor the visitor; not null
+	 */
+	default void forEachCell(CellVisitor<? super T> visitor) {
+		for (int row = 0; row < rowSize(); row++)
+			for (int column = 0; column < columnSize(); column++)
+				visitor.visit(row, column, get(row, column));
+	}
+
+	/**
+	 * Receives the cells of a matrix
+	 *
+	 * @param <T> the type of elements in the matrix
+	 * @see #forEachCell(CellVisitor)
+	 */
+	@FunctionalInterface
+	interface CellVisitor<T> {
+		/**
+		 * @param row the row of the cell
+		 * @param column the column of the cell
+		 * @param cell the element; could be null
+		 */
+		void visit(int row, int column, T cell);
+	}
 }
@@ -7,6 +7,7 @@ import static java.util.stream.Collectors.toCollection;
 import static java.util.stream.Collectors.toList;
 
 import java.io.Serializable;
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -105,7 +106,28 @@ public final class SquareMatrix<T> extends AbstractMatrix<T> implements Serializ
 
 	@Override
 	public List<T> asList() {
-		return cells.stream().flatMap(List::stream).collect(toList());
+		int size = size();
+		return new AbstractList<T>() {
+			@Override
+			public T get(int index) {
+				Objects.checkIndex(index, size * size);
+				return cells.get(index / size).get(index % size);
+			}
+
+			@Override
+			public int size() {
+				return size * size;
+			}
+		};
+	}
+
+	@Override
+	public void forEachCell(CellVisitor<? super T> visitor) {
+		for (int row = 0; row < cells.size(); row++) {
+			List<T> cells = this.cells.get(row);
+			for (int column = 0; column < cells.size(); column++)
+				visitor.visit(row, column, cells.get(column));
+		}
 	}
 
 	@Override
@@ -130,12 +152,17 @@ public final class SquareMatrix<T> extends AbstractMatrix<T> implements Serializ
 
 	@Override
 	public boolean equals(Object o) {
+		if (o instanceof SquareMatrix) return cells.equals(((SquareMatrix<?>) o).cells);
 		return super.equals(o);
 	}
 
 	@Override
 	public int hashCode() {
-		return super.hashCode();
+		int hash = 1;
+		for (List<T> row : cells)
+			for (int column = 0; column < row.size(); column++)
+				hash = 31 * hash + Objects.hashCode(row.get(column));
+		return 31 + hash;
 	}
 
 	@Override
@@ -55,7 +55,7 @@ public final class ResourceManager implements ResourceProvider {
 				ticket -> loadImage(format("/tickets/%s.png", ticket.name().toLowerCase())))));
 
 		mapCoordinates = ImmutableMap.copyOf(StandardGame.pngMapPositionEntries());
-		graph = new ImmutableGraph<>(StandardGame.standardGraph());
+		graph = ImmutableGraph.copyOf(StandardGame.standardGraph());
 	}
 
 	private static Image loadImage(String path) {
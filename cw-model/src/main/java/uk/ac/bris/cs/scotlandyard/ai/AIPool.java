@@ -3,6 +3,7 @@ package uk.ac.bris.cs.scotlandyard.ai;
 import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 
+import java.time.Duration;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -17,13 +18,18 @@ import java.util.stream.Stream;
 
 import com.google.common.collect.ImmutableSet;
 
+import javafx.geometry.Point2D;
+import javafx.scene.image.Image;
 import javafx.scene.layout.Pane;
+import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.scotlandyard.ResourceManager;
 import uk.ac.bris.cs.scotlandyard.model.Colour;
 import uk.ac.bris.cs.scotlandyard.model.Move;
 import uk.ac.bris.cs.scotlandyard.model.Player;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
 
 /**
  * <b> Not a public API, do not use!</b> <br>
@@ -48,10 +54,11 @@ public class AIPool<G> {
 		groups.computeIfAbsent(group, g -> new AIGroup()).add(colour, ai);
 	}
 
-	public void initialise(ResourceManager manager, ScotlandYardGame game) {
+	public void initialise(ResourceManager manager, ScotlandYardGame game, Duration moveTimeout) {
+		ResourceProvider provider = new TimedResources(manager, moveTimeout);
 		groups.values().forEach(group -> {
 			try {
-				group.initialise(manager, game);
+				group.initialise(provider, game);
 			} catch (Exception e) {
 				e.printStackTrace();
 				exceptionHandler.accept(e);
@@ -99,14 +106,14 @@ public class AIPool<G> {
 			ais.put(colour, ai);
 		}
 
-		void initialise(ResourceManager manager, ScotlandYardGame game) throws Exception {
+		void initialise(ResourceProvider provider, ScotlandYardGame game) throws Exception {
 			factories = ais.values().stream()
 					.distinct()
 					.collect(toMap(Function.identity(), AI::instantiate));
 			factories.forEach((ai, factory) -> {
 				factory.createSpectators(game).forEach(game::registerSpectator);
 				Pane pane = surface.onCreate(ai);
-				factory.ready(() -> pane, manager);
+				factory.ready(() -> pane, provider);
 			});
 		}
 
@@ -124,6 +131,46 @@ public class AIPool<G> {
 
 	}
 
+	/**
+	 * The resources of a game, along with its move timeout
+	 */
+	static class TimedResources implements ResourceProvider {
+
+		private final ResourceManager manager;
+		private final Duration moveTimeout;
+
+		TimedResources(ResourceManager manager, Duration moveTimeout) {
+			this.manager = manager;
+			this.moveTimeout = moveTimeout;
+		}
+
+		@Override
+		public Image getMap() {
+			return manager.getMap();
+		}
+
+		@Override
+		public Image getTicket(Ticket ticket) {
+			return manager.getTicket(ticket);
+		}
+
+		@Override
+		public Graph<Integer, Transport> getGraph() {
+			return manager.getGraph();
+		}
+
+		@Override
+		public Point2D coordinateAtNode(int node) {
+			return manager.coordinateAtNode(node);
+		}
+
+		@Override
+		public Optional<Duration> getMoveTimeout() {
+			return Optional.ofNullable(moveTimeout);
+		}
+
+	}
+
 	static class ThreadedPlayer implements Player {
 
 		final static ExecutorService service = Executors.newWorkStealingPool();
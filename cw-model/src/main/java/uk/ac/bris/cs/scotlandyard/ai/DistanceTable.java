@@ -0,0 +1,234 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.IntStream;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.scotlandyard.model.GraphCache;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Shortest path distances, in moves, between every pair of nodes of a map
+ * using only some of the transports. The table is computed once by a breadth
+ * first search from every node, run in parallel, and stored as one flat array
+ * of bytes, or of shorts if the map is too large for bytes, so a lookup is a
+ * single array access.
+ *
+ * The table needs one or two bytes for every pair of nodes, which is 40KB for
+ * the standard map but grows with the square of the map size.
+ *
+ * Tables are usually obtained through
+ * {@link ResourceProvider#getDistances(Set)}, which computes each table once.
+ */
+public final class DistanceTable {
+
+	/**
+	 * The distance between nodes with no path between them
+	 */
+	public static final int UNREACHABLE = -1;
+
+	private static final int BYTE_LIMIT = 0xFF;
+	private static final int SHORT_LIMIT = 0xFFFF;
+	private static final int CHUNK = 16;
+
+	private static final GraphCache<DistanceTable> cache =
+			new GraphCache<>(1 << Transport.values().length);
+
+	private final EnumSet<Transport> transports;
+	private final int[] index;
+	private final int size;
+	private final byte[] bytes;
+	private final short[] shorts;
+
+	private DistanceTable(EnumSet<Transport> transports, int[] index, int size, byte[] bytes,
+			short[] shorts) {
+		this.transports = transports;
+		this.index = index;
+		this.size = size;
+		this.bytes = bytes;
+		this.shorts = shorts;
+	}
+
+	/**
+	 * Computes the distances using every transport
+	 *
+	 * @param graph the map; not null
+	 * @return the table; never null
+	 */
+	public static DistanceTable of(Graph<Integer, Transport> graph) {
+		return of(graph, EnumSet.allOf(Transport.class));
+	}
+
+	/**
+	 * Computes the distances using only the given transports, e.g. taxis and
+	 * buses
+	 *
+	 * @param graph the map; not null
+	 * @param transports the transports that may be used; not null
+	 * @return the table; never null
+	 * @throws IllegalArgumentException if the map is too large for a table
+	 */
+	public static DistanceTable of(Graph<Integer, Transport> graph,
+			Collection<Transport> transports) {
+
+		IntGraph<Transport> intGraph = IntGraph.of(Objects.requireNonNull(graph));
+		EnumSet<Transport> allowed = EnumSet.noneOf(Transport.class);
+		allowed.addAll(transports);
+
+		int size = intGraph.size();
+		if ((long) size * size > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("A map of " + size + " nodes is too large for a distance table");
+
+		int[] index = new int[Math.max(intGraph.maxNodeId() + 1, 0)];
+		Arrays.fill(index, -1);
+		int[] nodes = new int[size];
+		for (int i = 0; i < size; i++) {
+			nodes[i] = intGraph.nodeId(i);
+			index[nodes[i]] = i;
+		}
+
+		boolean[] usable = new boolean[intGraph.palette().size()];
+		for (int i = 0; i < usable.length; i++)
+			usable[i] = allowed.contains(intGraph.palette().get(i));
+
+		// Most maps fit in bytes; only fall back to shorts when one does not.
+		byte[] bytes = new byte[size * size];
+		if (search(intGraph, nodes, index, usable, BYTE_LIMIT, bytes, null))
+			return new DistanceTable(allowed, index, size, bytes, null);
+
+		short[] shorts = new short[size * size];
+		if (search(intGraph, nodes, index, usable, SHORT_LIMIT, null, shorts))
+			return new DistanceTable(allowed, index, size, null, shorts);
+
+		throw new IllegalArgumentException("Map distances do not fit in a distance table");
+
+	}
+
+	/**
+	 * Fills one row per source node, with {@code limit} marking unreachable
+	 * nodes
+	 *
+	 * @return false if a distance did not fit below the limit
+	 */
+	private static boolean search(IntGraph<Transport> graph, int[] nodes, int[] index,
+			boolean[] usable, int limit, byte[] bytes, short[] shorts) {
+
+		int size = nodes.length;
+		AtomicBoolean overflow = new AtomicBoolean();
+
+		IntStream.range(0, (size + CHUNK - 1) / CHUNK).parallel().forEach(chunk -> {
+
+			int[] queue = new int[size];
+			int[] distance = new int[size];
+
+			for (int source = chunk * CHUNK, end = Math.min(size, source + CHUNK);
+					source < end && !overflow.get(); source++) {
+
+				Arrays.fill(distance, limit);
+				distance[source] = 0;
+				queue[0] = source;
+
+				for (int head = 0, tail = 1; head < tail; head++) {
+
+					int node = queue[head];
+					int next = distance[node] + 1;
+
+					for (int edge = graph.edgeStart(nodes[node]), last = graph.edgeEnd(nodes[node]);
+							edge < last; edge++) {
+						int target = index[graph.target(edge)];
+						if (distance[target] == limit && usable[graph.dataIndex(edge)]) {
+							if (next >= limit) {
+								overflow.set(true);
+								return;
+							}
+							distance[target] = next;
+							queue[tail++] = target;
+						}
+					}
+
+				}
+
+				int row = source * size;
+				for (int i = 0; i < size; i++) {
+					if (bytes != null) bytes[row + i] = (byte) distance[i];
+					else shorts[row + i] = (short) distance[i];
+				}
+
+			}
+
+		});
+
+		return !overflow.get();
+
+	}
+
+	/**
+	 * Returns the table of a map for the given transports, computing it only
+	 * if it is not already cached for that map instance. Tables are kept for
+	 * as long as their map is in use, and only callers waiting for the same
+	 * table block while it is computed.
+	 *
+	 * @param graph the map; not null
+	 * @param transports the transports that may be used; not null
+	 * @return the table; never null
+	 */
+	public static DistanceTable cached(Graph<Integer, Transport> graph,
+			Collection<Transport> transports) {
+
+		Objects.requireNonNull(graph);
+		EnumSet<Transport> allowed = EnumSet.noneOf(Transport.class);
+		allowed.addAll(transports);
+		int mask = 0;
+		for (Transport transport : allowed)
+			mask |= 1 << transport.ordinal();
+
+		return cache.get(graph, mask, () -> of(graph, allowed));
+
+	}
+
+	/**
+	 * @return the transports the distances may use; never null
+	 */
+	public Set<Transport> transports() {
+		return EnumSet.copyOf(transports);
+	}
+
+	/**
+	 * @param node any node
+	 * @return whether the node is on the map
+	 */
+	public boolean contains(int node) {
+		return node >= 0 && node < index.length && index[node] >= 0;
+	}
+
+	/**
+	 * Looks up the number of moves between two nodes
+	 *
+	 * @param from the node to start from
+	 * @param to the node to end at
+	 * @return the number of moves, or {@link #UNREACHABLE} if there is no
+	 *         path or either node is not on the map
+	 */
+	public int distance(int from, int to) {
+
+		if (!contains(from) || !contains(to))
+			return UNREACHABLE;
+
+		int cell = index[from] * size + index[to];
+		int distance = bytes != null ? bytes[cell] & BYTE_LIMIT : shorts[cell] & SHORT_LIMIT;
+		return distance == (bytes != null ? BYTE_LIMIT : SHORT_LIMIT) ? UNREACHABLE : distance;
+
+	}
+
+	@Override
+	public String toString() {
+		return "DistanceTable{" + size + " nodes, " + transports + "}";
+	}
+
+}
@@ -1,5 +1,10 @@
 package uk.ac.bris.cs.scotlandyard.ai;
 
+import java.time.Duration;
+import java.util.EnumSet;
+import java.util.Optional;
+import java.util.Set;
+
 import javafx.geometry.Point2D;
 import javafx.scene.image.Image;
 import uk.ac.bris.cs.gamekit.graph.Graph;
@@ -45,4 +50,61 @@ public interface ResourceProvider {
 	 */
 	Point2D coordinateAtNode(int node);
 
+	/**
+	 * Retrieves how long a player has to choose each move before the game
+	 * times it out. AIs that search for as long as they are allowed should
+	 * only use part of it.
+	 *
+	 * @return the timeout, or empty if moves are not timed; never null
+	 */
+	default Optional<Duration> getMoveTimeout() {
+		return Optional.empty();
+	}
+
+	/**
+	 * Retrieves the shortest distances between every pair of nodes of
+	 * {@link #getGraph()} using any transport. The table is computed on first
+	 * use and shared afterwards.
+	 *
+	 * @return the distance table; never null
+	 */
+	default DistanceTable getDistances() {
+		return getDistances(EnumSet.allOf(Transport.class));
+	}
+
+	/**
+	 * Retrieves the shortest distances between every pair of nodes of
+	 * {@link #getGraph()} using only the given transports, e.g. taxis and buses
+	 * for a detective without underground tickets. Each table is computed on
+	 * first use and shared afterwards.
+	 *
+	 * @param transports the transports that may be used; not null
+	 * @return the distance table; never null
+	 */
+	default DistanceTable getDistances(Set<Transport> transports) {
+		return DistanceTable.cached(getGraph(), transports);
+	}
+
+	/**
+	 * Retrieves shortest paths over {@link #getGraph()} that respect the
+	 * tickets a player holds. The engine is created on first use and shared
+	 * afterwards, so results computed by one player are reused by the others.
+	 *
+	 * @return the shortest path engine; never null
+	 */
+	default TicketPaths getTicketPaths() {
+		return TicketPaths.cached(getGraph());
+	}
+
+	/**
+	 * Creates a field of the distance from every node of {@link #getGraph()}
+	 * to the nearest detective. Every call creates a new field, which the
+	 * caller places the detectives on and then keeps up to date as they move.
+	 *
+	 * @return the field, without detectives; never null
+	 */
+	default ThreatField createThreatField() {
+		return new ThreatField(getGraph());
+	}
+
 }
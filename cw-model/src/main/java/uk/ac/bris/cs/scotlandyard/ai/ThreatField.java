@@ -0,0 +1,278 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * The distance, in moves, from every node of a map to the nearest detective,
+ * and which detective that is. Detectives are numbered from 0 in the order
+ * they are placed; when two detectives are equally near, the one with the
+ * smaller number is the nearest.
+ *
+ * {@link #place(int...)} computes the field with one breadth first search
+ * starting from every detective at once. {@link #move(int, int)} then updates
+ * it for a single detective: only the nodes that detective was nearest to are
+ * cleared, refilled from the nodes around them, and the detective's new
+ * location spreads out from there, using a queue with one bucket per distance.
+ * This only visits the part of the map that changes.
+ *
+ * Maps are assumed to be undirected, as every map read by
+ * {@link uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader} is. Fields
+ * are not thread safe; each player should use its own, e.g. from
+ * {@link ResourceProvider#createThreatField()}.
+ */
+public final class ThreatField {
+
+	/**
+	 * The distance of nodes no detective can reach, and of nodes not on the
+	 * map
+	 */
+	public static final int UNREACHABLE = -1;
+
+	/**
+	 * The nearest detective of nodes no detective can reach
+	 */
+	public static final int NONE = -1;
+
+	private static final int UNSET = Integer.MAX_VALUE;
+
+	private final IntGraph<Transport> graph;
+	private final boolean[] usable;
+	private final int[] distance;
+	private final int[] nearest;
+	private int[] locations = new int[0];
+
+	// Scratch space for searches, kept between calls.
+	private final int[] queue;
+	private int[][] buckets = new int[16][];
+	private int[] bucketSizes = new int[16];
+
+	/**
+	 * Creates a field without detectives over the transports detectives can
+	 * use, which is every transport but ferries
+	 *
+	 * @param graph the map; not null
+	 */
+	public ThreatField(Graph<Integer, Transport> graph) {
+		this(graph, EnumSet.complementOf(EnumSet.of(Transport.FERRY)));
+	}
+
+	/**
+	 * Creates a field without detectives
+	 *
+	 * @param graph the map; not null
+	 * @param transports the transports detectives may use; not null
+	 */
+	public ThreatField(Graph<Integer, Transport> graph, Collection<Transport> transports) {
+		this.graph = IntGraph.of(Objects.requireNonNull(graph));
+		EnumSet<Transport> allowed = EnumSet.noneOf(Transport.class);
+		allowed.addAll(transports);
+		this.usable = new boolean[this.graph.palette().size()];
+		for (int i = 0; i < usable.length; i++)
+			usable[i] = allowed.contains(this.graph.palette().get(i));
+		int ids = Math.max(this.graph.maxNodeId() + 1, 0);
+		this.distance = new int[ids];
+		this.nearest = new int[ids];
+		this.queue = new int[ids];
+		Arrays.fill(distance, UNSET);
+		Arrays.fill(nearest, NONE);
+	}
+
+	/**
+	 * Places every detective and computes the field from scratch. Locations
+	 * that are not on the map, such as 0, place a detective nowhere.
+	 *
+	 * @param locations the location of each detective; not null
+	 */
+	public void place(int... locations) {
+
+		this.locations = locations.clone();
+		Arrays.fill(distance, UNSET);
+		Arrays.fill(nearest, NONE);
+
+		int tail = 0;
+		for (int detective = 0; detective < locations.length; detective++) {
+			int location = locations[detective];
+			if (graph.containsNode(location) && nearest[location] == NONE) {
+				distance[location] = 0;
+				nearest[location] = detective;
+				queue[tail++] = location;
+			}
+		}
+
+		for (int head = 0; head < tail; head++) {
+			int node = queue[head];
+			int next = distance[node] + 1;
+			for (int e = graph.edgeStart(node), end = graph.edgeEnd(node); e < end; e++) {
+				if (!usable[graph.dataIndex(e)]) continue;
+				int target = graph.target(e);
+				if (distance[target] == UNSET) {
+					distance[target] = next;
+					nearest[target] = nearest[node];
+					queue[tail++] = target;
+				} else if (distance[target] == next && nearest[node] < nearest[target]) {
+					// Nodes a level further are only searched after this level is done.
+					nearest[target] = nearest[node];
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * Places the detectives of a game, numbered in the order of
+	 * {@link ScotlandYardView#getPlayers()}
+	 *
+	 * @param view the view of the game; not null
+	 */
+	public void place(ScotlandYardView view) {
+		int[] locations = view.getPlayers().stream()
+				.filter(Colour::isDetective)
+				.mapToInt(colour -> view.getPlayerLocation(colour).orElse(0))
+				.toArray();
+		place(locations);
+	}
+
+	/**
+	 * Moves one detective and updates the field
+	 *
+	 * @param detective the number of the detective, from 0 to
+	 *        {@link #detectives()}
+	 * @param location the new location of the detective, which places the
+	 *        detective nowhere if it is not on the map
+	 */
+	public void move(int detective, int location) {
+
+		if (detective < 0 || detective >= locations.length)
+			throw new IllegalArgumentException("No detective " + detective
+					+ ", there are " + locations.length);
+		if (locations[detective] == location)
+			return;
+
+		int old = locations[detective];
+		locations[detective] = location;
+
+		// Clear the nodes the detective was nearest to, which are connected to
+		// its old location through nodes it was also nearest to.
+		int cleared = 0;
+		if (graph.containsNode(old) && nearest[old] == detective) {
+			nearest[old] = NONE;
+			queue[cleared++] = old;
+			for (int head = 0; head < cleared; head++) {
+				int node = queue[head];
+				for (int e = graph.edgeStart(node), end = graph.edgeEnd(node); e < end; e++) {
+					int target = graph.target(e);
+					if (usable[graph.dataIndex(e)] && nearest[target] == detective
+							&& distance[target] == distance[node] + 1) {
+						nearest[target] = NONE;
+						queue[cleared++] = target;
+					}
+				}
+			}
+			for (int i = 0; i < cleared; i++)
+				distance[queue[i]] = UNSET;
+		}
+
+		// Refill the cleared nodes from the nodes around them.
+		for (int i = 0; i < cleared; i++) {
+			int node = queue[i];
+			for (int e = graph.edgeStart(node), end = graph.edgeEnd(node); e < end; e++) {
+				int target = graph.target(e);
+				if (usable[graph.dataIndex(e)] && distance[target] != UNSET)
+					offer(node, distance[target] + 1, nearest[target]);
+			}
+		}
+
+		// Detectives sharing the old location were hidden by this one until now.
+		if (cleared > 0)
+			for (int other = 0; other < locations.length; other++)
+				if (locations[other] == old)
+					offer(old, 0, other);
+
+		if (graph.containsNode(location))
+			offer(location, 0, detective);
+
+		// Spread the offers in order of distance.
+		for (int bucket = 0; bucket < bucketSizes.length; bucket++) {
+			for (int i = 0; i < bucketSizes[bucket]; i++) {
+				int node = buckets[bucket][i];
+				if (distance[node] != bucket) continue;
+				for (int e = graph.edgeStart(node), end = graph.edgeEnd(node); e < end; e++)
+					if (usable[graph.dataIndex(e)])
+						offer(graph.target(e), bucket + 1, nearest[node]);
+			}
+			bucketSizes[bucket] = 0;
+		}
+
+	}
+
+	/**
+	 * Gives a node a new distance and nearest detective if they are nearer,
+	 * queueing it to spread further
+	 */
+	private void offer(int node, int distance, int detective) {
+		if (distance > this.distance[node]
+				|| distance == this.distance[node] && detective >= nearest[node])
+			return;
+		this.distance[node] = distance;
+		nearest[node] = detective;
+		if (distance >= buckets.length) {
+			buckets = Arrays.copyOf(buckets, Math.max(distance + 1, buckets.length * 2));
+			bucketSizes = Arrays.copyOf(bucketSizes, buckets.length);
+		}
+		int[] bucket = buckets[distance];
+		if (bucket == null)
+			bucket = buckets[distance] = new int[16];
+		else if (bucketSizes[distance] == bucket.length)
+			bucket = buckets[distance] = Arrays.copyOf(bucket, bucket.length * 2);
+		bucket[bucketSizes[distance]++] = node;
+	}
+
+	/**
+	 * @return the number of detectives placed
+	 */
+	public int detectives() {
+		return locations.length;
+	}
+
+	/**
+	 * @param detective the number of the detective, from 0 to
+	 *        {@link #detectives()}
+	 * @return the location the detective was placed or moved at
+	 */
+	public int location(int detective) {
+		if (detective < 0 || detective >= locations.length)
+			throw new IllegalArgumentException("No detective " + detective
+					+ ", there are " + locations.length);
+		return locations[detective];
+	}
+
+	/**
+	 * @param node the node
+	 * @return the number of moves from the nearest detective to the node, or
+	 *         {@link #UNREACHABLE} if no detective can get there
+	 */
+	public int distance(int node) {
+		if (!graph.containsNode(node) || distance[node] == UNSET)
+			return UNREACHABLE;
+		return distance[node];
+	}
+
+	/**
+	 * @param node the node
+	 * @return the number of the nearest detective to the node, or
+	 *         {@link #NONE} if no detective can get there
+	 */
+	public int nearest(int node) {
+		return graph.containsNode(node) ? nearest[node] : NONE;
+	}
+
+}
@@ -0,0 +1,358 @@
+package uk.ac.bris.cs.scotlandyard.ai;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.GraphCache;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.model.TransportAdjacency;
+
+/**
+ * Shortest paths that respect the tickets a player holds. Unlike a
+ * {@link DistanceTable}, a path here can only take a bus as many times as the
+ * player has bus tickets, and ferries or transports the player has run out of
+ * need secret tickets.
+ *
+ * Tickets are passed as a wallet packing the taxi, bus, underground and secret
+ * counts into one int, see {@link #wallet(int, int, int, int)}; counts above
+ * {@value #MAX_TICKETS} are treated as {@value #MAX_TICKETS}. Double tickets
+ * are ignored since they only change who moves when, not how far.
+ *
+ * Each query runs a label-setting search one move at a time, where a label is
+ * a node with the tickets left after reaching it. A label is dropped when
+ * another label at the same node has at least as many of every ticket, and the
+ * search ends when no labels are left, which is after at most as many moves as
+ * there are tickets. The distances to every node are then kept for the
+ * (source, wallet) pair, so repeated queries are a map lookup.
+ *
+ * Instances are thread safe.
+ */
+public final class TicketPaths {
+
+	/**
+	 * The distance to nodes that cannot be reached with the tickets given
+	 */
+	public static final int UNREACHABLE = -1;
+
+	/**
+	 * The largest count of each ticket a wallet can hold
+	 */
+	public static final int MAX_TICKETS = 127;
+
+	private static final int DEFAULT_CACHE_SIZE = 4096;
+	private static final int TAXI_SHIFT = 0, BUS_SHIFT = 8, UNDERGROUND_SHIFT = 16, SECRET_SHIFT = 24;
+	private static final int HIGH_BITS = 0x80808080;
+
+	private static final GraphCache<TicketPaths> engines = new GraphCache<>(1);
+
+	private final IntGraph<Transport> graph;
+	private final int[] shifts;
+	private final Map<Long, short[]> cache;
+
+	/**
+	 * Creates an engine remembering up to 4096 (source, wallet) pairs
+	 *
+	 * @param graph the map; not null
+	 */
+	public TicketPaths(Graph<Integer, Transport> graph) {
+		this(graph, DEFAULT_CACHE_SIZE);
+	}
+
+	/**
+	 * @param graph the map; not null
+	 * @param cacheSize the number of (source, wallet) pairs to remember, the
+	 *        least recently used are forgotten first, must be &gt; 0
+	 */
+	public TicketPaths(Graph<Integer, Transport> graph, int cacheSize) {
+
+		if (cacheSize < 1) throw new IllegalArgumentException("cacheSize must be > 0, got " + cacheSize);
+
+		this.graph = IntGraph.of(Objects.requireNonNull(graph));
+
+		// The wallet byte each edge uses when not paying with a secret ticket.
+		this.shifts = new int[this.graph.palette().size()];
+		for (int i = 0; i < shifts.length; i++)
+			shifts[i] = shift(this.graph.palette().get(i));
+
+		this.cache = new LinkedHashMap<Long, short[]>(16, 0.75f, true) {
+			private static final long serialVersionUID = 1L;
+
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Long, short[]> eldest) {
+				return size() > cacheSize;
+			}
+		};
+
+	}
+
+	private static int shift(Transport transport) {
+		switch (transport) {
+			case TAXI:
+				return TAXI_SHIFT;
+			case BUS:
+				return BUS_SHIFT;
+			case UNDERGROUND:
+				return UNDERGROUND_SHIFT;
+			default:
+				return SECRET_SHIFT;
+		}
+	}
+
+	/**
+	 * Returns the engine of a map, creating it only if it is not already
+	 * cached for that map instance. Engines are kept for as long as their map
+	 * is in use.
+	 *
+	 * @param graph the map; not null
+	 * @return the engine; never null
+	 */
+	public static TicketPaths cached(Graph<Integer, Transport> graph) {
+		return engines.get(graph, 0, () -> new TicketPaths(graph));
+	}
+
+	/**
+	 * Packs ticket counts into a wallet
+	 *
+	 * @param taxi the number of taxi tickets, must be &gt;= 0
+	 * @param bus the number of bus tickets, must be &gt;= 0
+	 * @param underground the number of underground tickets, must be &gt;= 0
+	 * @param secret the number of secret tickets, must be &gt;= 0
+	 * @return the wallet
+	 */
+	public static int wallet(int taxi, int bus, int underground, int secret) {
+		if (taxi < 0 || bus < 0 || underground < 0 || secret < 0)
+			throw new IllegalArgumentException("Ticket counts must be >= 0");
+		return Math.min(taxi, MAX_TICKETS) << TAXI_SHIFT
+				| Math.min(bus, MAX_TICKETS) << BUS_SHIFT
+				| Math.min(underground, MAX_TICKETS) << UNDERGROUND_SHIFT
+				| Math.min(secret, MAX_TICKETS) << SECRET_SHIFT;
+	}
+
+	/**
+	 * Packs ticket counts into a wallet
+	 *
+	 * @param tickets the ticket counts, missing tickets count as 0; not null
+	 * @return the wallet
+	 */
+	public static int wallet(Map<Ticket, Integer> tickets) {
+		return wallet(tickets.getOrDefault(Ticket.TAXI, 0),
+				tickets.getOrDefault(Ticket.BUS, 0),
+				tickets.getOrDefault(Ticket.UNDERGROUND, 0),
+				tickets.getOrDefault(Ticket.SECRET, 0));
+	}
+
+	/**
+	 * Packs the ticket counts of a player into a wallet
+	 *
+	 * @param view the view of the game; not null
+	 * @param colour the player; not null
+	 * @return the wallet
+	 */
+	public static int wallet(ScotlandYardView view, Colour colour) {
+		return wallet(view.getPlayerTickets(colour, Ticket.TAXI).orElse(0),
+				view.getPlayerTickets(colour, Ticket.BUS).orElse(0),
+				view.getPlayerTickets(colour, Ticket.UNDERGROUND).orElse(0),
+				view.getPlayerTickets(colour, Ticket.SECRET).orElse(0));
+	}
+
+	/**
+	 * @param wallet a wallet
+	 * @param ticket the ticket
+	 * @return the count of the ticket in the wallet, always 0 for double
+	 *         tickets
+	 */
+	public static int tickets(int wallet, Ticket ticket) {
+		switch (Objects.requireNonNull(ticket)) {
+			case TAXI:
+				return wallet >>> TAXI_SHIFT & 0xFF;
+			case BUS:
+				return wallet >>> BUS_SHIFT & 0xFF;
+			case UNDERGROUND:
+				return wallet >>> UNDERGROUND_SHIFT & 0xFF;
+			case SECRET:
+				return wallet >>> SECRET_SHIFT & 0xFF;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * Finds the minimum number of moves between two nodes
+	 *
+	 * @param from the node to start from
+	 * @param to the node to end at
+	 * @param wallet the tickets that may be used
+	 * @return the number of moves, or {@link #UNREACHABLE} if the tickets do
+	 *         not get there or either node is not on the map
+	 */
+	public int distance(int from, int to, int wallet) {
+		if (!graph.containsNode(from) || !graph.containsNode(to))
+			return UNREACHABLE;
+		return distances(from, wallet)[to];
+	}
+
+	/**
+	 * Finds every node that can be reached within a number of moves,
+	 * including the source itself
+	 *
+	 * @param from the node to start from
+	 * @param wallet the tickets that may be used
+	 * @param moves the maximum number of moves
+	 * @return the nodes reached, as a node set made by
+	 *         {@link TransportAdjacency#newNodeSet(int)}; never null
+	 */
+	public long[] reachable(int from, int wallet, int moves) {
+		long[] nodes = new long[(Math.max(graph.maxNodeId(), 0) >>> 6) + 1];
+		if (!graph.containsNode(from))
+			return nodes;
+		short[] distances = distances(from, wallet);
+		for (int node = 0; node < distances.length; node++)
+			if (distances[node] != UNREACHABLE && distances[node] <= moves)
+				TransportAdjacency.add(nodes, node);
+		return nodes;
+	}
+
+	private short[] distances(int from, int wallet) {
+
+		Long key = (long) from << 32 | wallet & 0xFFFFFFFFL;
+		short[] distances;
+		synchronized (cache) {
+			distances = cache.get(key);
+		}
+
+		if (distances == null) {
+			// Racing threads compute the same distances, so searching needs no lock.
+			distances = search(from, wallet & 0x7F7F7F7F);
+			synchronized (cache) {
+				cache.put(key, distances);
+			}
+		}
+
+		return distances;
+
+	}
+
+	/**
+	 * @return true if wallet {@code a} has at least as many of every ticket
+	 *         as wallet {@code b}
+	 */
+	private static boolean dominates(int a, int b) {
+		// Counts are below 128, so each byte subtracts without borrowing.
+		return (((a | HIGH_BITS) - b) & HIGH_BITS) == HIGH_BITS;
+	}
+
+	private short[] search(int source, int wallet) {
+
+		short[] distances = new short[graph.maxNodeId() + 1];
+		Arrays.fill(distances, (short) UNREACHABLE);
+		distances[source] = 0;
+
+		// The labels kept at each node, none of which dominates another.
+		int[][] labels = new int[graph.maxNodeId() + 1][];
+		int[] labelCounts = new int[labels.length];
+		addLabel(labels, labelCounts, source, wallet);
+
+		int[] layerNodes = new int[16];
+		int[] layerWallets = new int[16];
+		int[] nextNodes = new int[16];
+		int[] nextWallets = new int[16];
+		layerNodes[0] = source;
+		layerWallets[0] = wallet;
+		int layerSize = 1;
+
+		for (short moves = 1; layerSize > 0; moves++) {
+
+			int nextSize = 0;
+
+			for (int i = 0; i < layerSize; i++) {
+
+				int node = layerNodes[i];
+				int left = layerWallets[i];
+
+				for (int edge = graph.edgeStart(node), end = graph.edgeEnd(node); edge < end; edge++) {
+
+					int target = graph.target(edge);
+					int shift = shifts[graph.dataIndex(edge)];
+
+					for (int pay = 0; pay < 2; pay++) {
+
+						// Pay with the edge's own ticket first, then with a secret ticket.
+						int ticket = pay == 0 ? shift : SECRET_SHIFT;
+						if (pay == 1 && shift == SECRET_SHIFT)
+							break;
+						if ((left >>> ticket & 0xFF) == 0)
+							continue;
+
+						int next = left - (1 << ticket);
+						if (!addLabel(labels, labelCounts, target, next))
+							continue;
+
+						if (distances[target] == UNREACHABLE)
+							distances[target] = moves;
+
+						if (nextSize == nextNodes.length) {
+							nextNodes = Arrays.copyOf(nextNodes, nextSize * 2);
+							nextWallets = Arrays.copyOf(nextWallets, nextSize * 2);
+						}
+						nextNodes[nextSize] = target;
+						nextWallets[nextSize++] = next;
+
+					}
+
+				}
+
+			}
+
+			int[] swap = layerNodes;
+			layerNodes = nextNodes;
+			nextNodes = swap;
+			swap = layerWallets;
+			layerWallets = nextWallets;
+			nextWallets = swap;
+			layerSize = nextSize;
+
+		}
+
+		return distances;
+
+	}
+
+	/**
+	 * Adds a label unless one at the node dominates it, dropping the labels
+	 * it dominates
+	 *
+	 * @return false if the label was dominated
+	 */
+	private static boolean addLabel(int[][] labels, int[] counts, int node, int wallet) {
+
+		int[] kept = labels[node];
+		int count = counts[node];
+
+		for (int i = 0; i < count; i++)
+			if (dominates(kept[i], wallet))
+				return false;
+
+		int size = 0;
+		for (int i = 0; i < count; i++)
+			if (!dominates(wallet, kept[i]))
+				kept[size++] = kept[i];
+
+		if (kept == null)
+			kept = labels[node] = new int[4];
+		else if (size == kept.length)
+			kept = labels[node] = Arrays.copyOf(kept, size * 2);
+
+		kept[size++] = wallet;
+		counts[node] = size;
+		return true;
+
+	}
+
+}
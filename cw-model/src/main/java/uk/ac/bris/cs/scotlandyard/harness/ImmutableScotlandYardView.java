@@ -15,7 +15,6 @@ import java.util.stream.Stream;
 
 import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
-import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
 import uk.ac.bris.cs.scotlandyard.model.Colour;
 import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
 import uk.ac.bris.cs.scotlandyard.model.Move;
@@ -127,7 +126,7 @@ public final class ImmutableScotlandYardView implements ScotlandYardView {
 		currentRound = view.getCurrentRound();
 		currentPlayer = view.getCurrentPlayer();
 		rounds = ImmutableList.copyOf((view.getRounds()));
-		graph = new ImmutableGraph<>(new UndirectedGraph<>(view.getGraph()));
+		graph = ImmutableGraph.copyOf(view.getGraph());
 	}
 
 	@Override public List<Colour> getPlayers() { return colours; }
@@ -0,0 +1,278 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static java.util.Arrays.asList;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Objects;
+import java.util.TreeMap;
+
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+
+/**
+ * A map compiled into a compact binary file holding the nodes, edges,
+ * transports and node coordinates, so it can be loaded without parsing text.
+ *
+ * The file is big endian and laid out as:
+ * <pre>
+ * int     magic, "SYMP"
+ * int     version, 1
+ * int     node count N, largest node id M, edge count E, coordinate count C
+ * int[N]  node ids in order
+ * int[M+2] first edge of every id from 0 to M, then E
+ * int[E]  edge destinations
+ * byte[E] edge transports by ordinal, padded to a multiple of 4
+ * int[3C] node, x, y of every coordinate
+ * </pre>
+ * which is the layout of an {@link IntGraph}, so loading is a bulk copy of
+ * each section into the arrays of the graph. Files are loaded through a
+ * read-only memory mapping.
+ *
+ * Running this class converts the text files, e.g.
+ * {@code BinaryMap graph.txt pos.txt graph.bin}, which the build does to
+ * generate the standard map.
+ */
+public final class BinaryMap {
+
+	private static final int MAGIC = 0x53594D50;
+	private static final int VERSION = 1;
+	private static final int HEADER_INTS = 6;
+
+	private final IntGraph<Transport> graph;
+	private final Map<Integer, Entry<Integer, Integer>> coordinates;
+
+	private BinaryMap(IntGraph<Transport> graph, Map<Integer, Entry<Integer, Integer>> coordinates) {
+		this.graph = graph;
+		this.coordinates = coordinates;
+	}
+
+	/**
+	 * @param graph the map; not null
+	 * @param coordinates the coordinates of nodes on the map image; not null
+	 * @return the map; never null
+	 */
+	public static BinaryMap of(IntGraph<Transport> graph,
+			Map<Integer, Entry<Integer, Integer>> coordinates) {
+		return new BinaryMap(Objects.requireNonNull(graph),
+				Collections.unmodifiableMap(Objects.requireNonNull(coordinates)));
+	}
+
+	/**
+	 * Parses the text formats, see {@link ScotlandYardGraphReader} and
+	 * {@link #parseCoordinates(List)}
+	 *
+	 * @param graphLines the lines of the graph file; not null
+	 * @param coordinateLines the lines of the coordinate file; not null
+	 * @return the map; never null
+	 */
+	public static BinaryMap fromText(List<String> graphLines, List<String> coordinateLines) {
+		return of(ScotlandYardGraphReader.intGraphFromLines(graphLines),
+				parseCoordinates(coordinateLines));
+	}
+
+	/**
+	 * Parses coordinates given as lines of node, x and y separated by
+	 * whitespace. Lines without exactly three numbers, such as the leading
+	 * node count, are skipped.
+	 *
+	 * @param lines the lines; not null
+	 * @return the coordinates of each node; never null
+	 */
+	public static Map<Integer, Entry<Integer, Integer>> parseCoordinates(List<String> lines) {
+		Map<Integer, Entry<Integer, Integer>> map = new HashMap<>();
+		for (String line : lines) {
+			String[] values = line.trim().split("\\s+");
+			if (values.length != 3) continue;
+			map.put(Integer.parseInt(values[0]), new SimpleImmutableEntry<>(
+					Integer.parseInt(values[1]), Integer.parseInt(values[2])));
+		}
+		return map;
+	}
+
+	/**
+	 * @return the map graph; never null
+	 */
+	public IntGraph<Transport> graph() {
+		return graph;
+	}
+
+	/**
+	 * @return the coordinates of nodes on the map image, as stored; never
+	 *         null
+	 */
+	public Map<Integer, Entry<Integer, Integer>> coordinates() {
+		return coordinates;
+	}
+
+	/**
+	 * Writes the map in the binary format
+	 *
+	 * @param file the file to write; not null
+	 * @throws IOException if the file cannot be written
+	 */
+	public void write(Path file) throws IOException {
+
+		int nodes = graph.size();
+		int maxId = graph.maxNodeId();
+		int edges = graph.edgeCount();
+		int padded = (edges + 3) & ~3;
+
+		ByteBuffer buffer = ByteBuffer.allocate(4 * (HEADER_INTS + nodes + maxId + 2 + edges)
+				+ padded + 12 * coordinates.size());
+		buffer.putInt(MAGIC).putInt(VERSION)
+				.putInt(nodes).putInt(maxId).putInt(edges).putInt(coordinates.size());
+
+		for (int i = 0; i < nodes; i++)
+			buffer.putInt(graph.nodeId(i));
+		for (int id = 0; id <= maxId; id++)
+			buffer.putInt(graph.edgeStart(id));
+		buffer.putInt(edges);
+		for (int e = 0; e < edges; e++)
+			buffer.putInt(graph.target(e));
+		for (int e = 0; e < edges; e++)
+			buffer.put((byte) graph.data(e).ordinal());
+		buffer.position(buffer.position() + padded - edges);
+
+		// Sorted so the same map always compiles to the same bytes.
+		for (Entry<Integer, Entry<Integer, Integer>> entry : new TreeMap<>(coordinates).entrySet())
+			buffer.putInt(entry.getKey())
+					.putInt(entry.getValue().getKey())
+					.putInt(entry.getValue().getValue());
+
+		buffer.flip();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+				StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+
+	}
+
+	/**
+	 * Loads a map by memory mapping the file
+	 *
+	 * @param file the file; not null
+	 * @return the map; never null
+	 * @throws IOException if the file cannot be read or is not a valid map
+	 */
+	public static BinaryMap read(Path file) throws IOException {
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			return read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+		}
+	}
+
+	/**
+	 * Loads a map from a class path resource. Resources in a directory are
+	 * memory mapped, resources inside a jar are read into memory first.
+	 *
+	 * @param resource the resource name; not null
+	 * @return the map, or null if there is no such resource
+	 * @throws IOException if the resource cannot be read or is not a valid map
+	 */
+	public static BinaryMap readResource(String resource) throws IOException {
+
+		URL url = BinaryMap.class.getClassLoader().getResource(resource);
+		if (url == null)
+			return null;
+
+		if ("file".equals(url.getProtocol())) {
+			try {
+				return read(Paths.get(url.toURI()));
+			} catch (URISyntaxException e) {
+				throw new IOException("Bad resource location " + url, e);
+			}
+		}
+
+		try (InputStream stream = url.openStream()) {
+			return read(ByteBuffer.wrap(stream.readAllBytes()));
+		}
+
+	}
+
+	/**
+	 * Loads a map from a buffer holding the binary format
+	 *
+	 * @param buffer the buffer, read from its position; not null
+	 * @return the map; never null
+	 * @throws IOException if the buffer does not hold a valid map
+	 */
+	public static BinaryMap read(ByteBuffer buffer) throws IOException {
+
+		ByteBuffer bytes = buffer.slice().order(ByteOrder.BIG_ENDIAN);
+
+		try {
+
+			IntBuffer ints = bytes.asIntBuffer();
+			if (ints.remaining() < HEADER_INTS || ints.get() != MAGIC)
+				throw new IOException("Not a binary map");
+			int version = ints.get();
+			if (version != VERSION)
+				throw new IOException("Unsupported binary map version " + version);
+
+			int nodeCount = ints.get();
+			int maxId = ints.get();
+			int edgeCount = ints.get();
+			int coordinateCount = ints.get();
+			if (nodeCount < 0 || maxId < -1 || edgeCount < 0 || coordinateCount < 0)
+				throw new IOException("Corrupt binary map header");
+
+			int[] nodes = new int[nodeCount];
+			int[] offsets = new int[maxId + 2];
+			int[] targets = new int[edgeCount];
+			ints.get(nodes).get(offsets).get(targets);
+
+			byte[] data = new byte[edgeCount];
+			bytes.position(4 * ints.position());
+			bytes.get(data);
+			bytes.position(bytes.position() + (-edgeCount & 3));
+
+			int[] values = new int[3 * coordinateCount];
+			bytes.asIntBuffer().get(values);
+			Map<Integer, Entry<Integer, Integer>> coordinates = new HashMap<>();
+			for (int i = 0; i < values.length; i += 3)
+				coordinates.put(values[i], new SimpleImmutableEntry<>(values[i + 1], values[i + 2]));
+
+			return of(IntGraph.ofArrays(nodes, offsets, targets, data, asList(Transport.values())),
+					coordinates);
+
+		} catch (RuntimeException e) {
+			// Buffer underflows and graph validation both mean a corrupt file.
+			throw new IOException("Corrupt binary map", e);
+		}
+
+	}
+
+	/**
+	 * Converts the text map files into a binary map
+	 *
+	 * @param args the graph file, the coordinate file and the output file
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 3) {
+			System.err.println("Usage: BinaryMap <graph.txt> <pos.txt> <output>");
+			System.exit(1);
+		}
+		fromText(Files.readAllLines(Paths.get(args[0]), StandardCharsets.UTF_8),
+				Files.readAllLines(Paths.get(args[1]), StandardCharsets.UTF_8))
+				.write(Paths.get(args[2]));
+	}
+
+}
@@ -0,0 +1,615 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static java.util.Collections.emptySet;
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+
+/**
+ * An immutable snapshot of a Scotland Yard game. Unlike the view a game hands
+ * to its players, a state also knows Mr X's actual location, so it can be
+ * advanced with {@link #advance(Move)} to explore future positions.
+ *
+ * Advancing returns a new state sharing everything the move did not change:
+ * the graph, rounds and player list are shared by every state of a game, and
+ * the ticket counts of players who did not move are never copied. States are
+ * safe to share between threads.
+ */
+public final class GameState implements ScotlandYardView {
+
+	private static final int TICKET_TYPES = Ticket.values().length;
+
+	// Detectives are marked before generating moves and unmarked afterwards,
+	// so the cost does not grow with the map. Nested calls only unmark what
+	// they marked.
+	private static final ThreadLocal<long[]> OCCUPIED = ThreadLocal.withInitial(() -> new long[0]);
+
+	/**
+	 * The parts of a game that never change, shared by every state of it
+	 */
+	private static final class Setup {
+
+		final List<Colour> players;
+		final List<Boolean> rounds;
+		final Graph<Integer, Transport> graph;
+		final TransportAdjacency adjacency;
+		final int[] playerIndex = new int[Colour.values().length];
+
+		Setup(List<Colour> players, List<Boolean> rounds, Graph<Integer, Transport> graph) {
+
+			this.players = unmodifiableList(new ArrayList<>(players));
+			this.rounds = Objects.requireNonNull(rounds);
+			this.graph = Objects.requireNonNull(graph);
+			this.adjacency = TransportAdjacency.cached(graph);
+
+			if (this.players.isEmpty() || this.players.get(0) != BLACK)
+				throw new IllegalArgumentException("MrX should be the first player");
+
+			Arrays.fill(playerIndex, -1);
+			for (int i = 0; i < this.players.size(); i++) {
+				if (playerIndex[this.players.get(i).ordinal()] != -1)
+					throw new IllegalArgumentException("Duplicate colour " + this.players.get(i));
+				playerIndex[this.players.get(i).ordinal()] = i;
+			}
+
+		}
+
+	}
+
+	/**
+	 * The result of checking for the end of the game, computed on first use
+	 */
+	private static final class Outcome {
+
+		final boolean over;
+		final Set<Colour> winners;
+
+		Outcome(boolean over, Set<Colour> winners) {
+			this.over = over;
+			this.winners = winners;
+		}
+
+	}
+
+	private final Setup setup;
+	// Index 0 is always Mr X, whose actual location is stored here.
+	private final int[] locations;
+	private final int[][] tickets;
+	private final int round;
+	private final int lastMrX;
+	private final int current;
+	private final long key;
+
+	private Outcome outcome;
+
+	private GameState(Setup setup, int[] locations, int[][] tickets,
+			int round, int lastMrX, int current, long key) {
+		this.setup = setup;
+		this.locations = locations;
+		this.tickets = tickets;
+		this.round = round;
+		this.lastMrX = lastMrX;
+		this.current = current;
+		this.key = key;
+	}
+
+	/**
+	 * Creates a state from a view of a game. The view only reveals Mr X's last
+	 * known location, so his actual location is given separately.
+	 *
+	 * @param view the view of the game; not null
+	 * @param mrXLocation where Mr X actually is, or where he is assumed to be
+	 * @return a new state; never null
+	 */
+	public static GameState of(ScotlandYardView view, int mrXLocation) {
+		return of(view, view.getRounds(), view.getGraph(), mrXLocation);
+	}
+
+	/**
+	 * Creates a state from a view of a game, using the given rounds and graph
+	 * instead of asking the view for them
+	 */
+	static GameState of(ScotlandYardView view, List<Boolean> rounds,
+			Graph<Integer, Transport> graph, int mrXLocation) {
+		return of(new Setup(view.getPlayers(), rounds, graph), view, mrXLocation);
+	}
+
+	/**
+	 * Creates a state of the same game from its view at a later point, sharing
+	 * the setup of this state
+	 */
+	GameState snapshot(ScotlandYardView view, int mrXLocation) {
+		return of(setup, view, mrXLocation);
+	}
+
+	private static GameState of(Setup setup, ScotlandYardView view, int mrXLocation) {
+
+		int size = setup.players.size();
+		int[] locations = new int[size];
+		int[][] tickets = new int[size][TICKET_TYPES];
+
+		for (int i = 0; i < size; i++) {
+
+			Colour colour = setup.players.get(i);
+
+			for (Ticket ticket : Ticket.values())
+				tickets[i][ticket.ordinal()] = view.getPlayerTickets(colour, ticket)
+						.orElseThrow(IllegalArgumentException::new);
+
+			if (colour.isDetective())
+				locations[i] = view.getPlayerLocation(colour)
+						.orElseThrow(IllegalArgumentException::new);
+
+		}
+
+		locations[0] = mrXLocation;
+
+		return new GameState(setup, locations, tickets, view.getCurrentRound(),
+				view.getPlayerLocation(BLACK).orElse(0),
+				setup.playerIndex[view.getCurrentPlayer().ordinal()],
+				Zobrist.of(view, mrXLocation));
+
+	}
+
+	private int indexOf(Colour colour) {
+		int index = setup.playerIndex[Objects.requireNonNull(colour).ordinal()];
+		if (index < 0) throw new IllegalArgumentException(colour + " is not in the game");
+		return index;
+	}
+
+	/**
+	 * Plays a move for the current player. Same as
+	 * {@code advance(MoveCodec.encode(move))}.
+	 *
+	 * @param move the move; not null
+	 * @return the state after the move; never null
+	 */
+	public GameState advance(Move move) {
+		return advance(MoveCodec.encode(move));
+	}
+
+	/**
+	 * Plays an encoded move for the current player, see {@link MoveCodec}. The
+	 * move is not validated beyond its colour, so only play moves generated
+	 * with {@link #generateMoves(MoveSink)}.
+	 *
+	 * @param move the encoded move
+	 * @return the state after the move; never null
+	 * @throws IllegalArgumentException if the move is not for the current
+	 *         player
+	 */
+	public GameState advance(long move) {
+
+		if (MoveCodec.colour(move) != setup.players.get(current))
+			throw new IllegalArgumentException("Move " + MoveCodec.toString(move)
+					+ " is not for the current player " + setup.players.get(current));
+
+		int next = (current + 1) % setup.players.size();
+		List<Boolean> rounds = setup.rounds;
+		Colour colour = setup.players.get(current);
+		long key = this.key ^ Zobrist.current(colour) ^ Zobrist.current(setup.players.get(next));
+
+		switch (MoveCodec.kind(move)) {
+
+			case MoveCodec.PASS_MOVE:
+				if (current != 0)
+					return new GameState(setup, locations, tickets, round, lastMrX, next, key);
+				return new GameState(setup, locations, tickets, round + 1, lastMrX, next,
+						key ^ Zobrist.round(round) ^ Zobrist.round(round + 1));
+
+			case MoveCodec.TICKET_MOVE: {
+				Ticket ticket = MoveCodec.ticket(move);
+				int destination = MoveCodec.destination(move);
+				int[][] tickets = this.tickets.clone();
+				key ^= Zobrist.location(colour, locations[current])
+						^ Zobrist.location(colour, destination)
+						^ changeTickets(tickets, current, ticket, -1);
+				if (current == 0) {
+					int lastMrX = this.lastMrX;
+					if (round < rounds.size() && rounds.get(round)) {
+						key ^= Zobrist.lastMrX(lastMrX) ^ Zobrist.lastMrX(destination);
+						lastMrX = destination;
+					}
+					return new GameState(setup, moved(0, destination), tickets, round + 1,
+							lastMrX, next, key ^ Zobrist.round(round) ^ Zobrist.round(round + 1));
+				}
+				// Detectives transfer their tickets to Mr X.
+				key ^= changeTickets(tickets, 0, ticket, 1);
+				return new GameState(setup, moved(current, destination), tickets,
+						round, lastMrX, next, key);
+			}
+
+			case MoveCodec.DOUBLE_MOVE: {
+				int destination = MoveCodec.secondDestination(move);
+				int[][] tickets = this.tickets.clone();
+				key ^= Zobrist.location(colour, locations[0])
+						^ Zobrist.location(colour, destination)
+						^ changeTickets(tickets, 0, DOUBLE, -1)
+						^ changeTickets(tickets, 0, MoveCodec.ticket(move), -1)
+						^ changeTickets(tickets, 0, MoveCodec.secondTicket(move), -1)
+						^ Zobrist.round(round) ^ Zobrist.round(round + 2);
+				int lastMrX = this.lastMrX;
+				if (round < rounds.size() && rounds.get(round))
+					lastMrX = MoveCodec.destination(move);
+				if (round + 1 < rounds.size() && rounds.get(round + 1))
+					lastMrX = destination;
+				key ^= Zobrist.lastMrX(this.lastMrX) ^ Zobrist.lastMrX(lastMrX);
+				return new GameState(setup, moved(0, destination), tickets,
+						round + 2, lastMrX, next, key);
+			}
+
+			default:
+				throw new IllegalArgumentException("Not an encoded move: " + move);
+
+		}
+
+	}
+
+	/**
+	 * Changes a ticket count in a copy of the ticket rows, copying the row of
+	 * the player the first time it changes
+	 *
+	 * @return the change to the Zobrist key
+	 */
+	private long changeTickets(int[][] tickets, int player, Ticket ticket, int change) {
+		if (tickets[player] == this.tickets[player])
+			tickets[player] = tickets[player].clone();
+		int before = tickets[player][ticket.ordinal()];
+		tickets[player][ticket.ordinal()] = before + change;
+		return Zobrist.ticketsChanged(setup.players.get(player), ticket, before, before + change);
+	}
+
+	/**
+	 * The Zobrist key of this state, see {@link Zobrist}. The key is derived
+	 * from the previous state's key when advancing, so it costs nothing to
+	 * read.
+	 *
+	 * @return the key of this state
+	 */
+	public long zobristKey() {
+		return key;
+	}
+
+	private int[] moved(int player, int location) {
+		int[] locations = this.locations.clone();
+		locations[player] = location;
+		return locations;
+	}
+
+	/**
+	 * @return this thread's detective occupancy set, large enough for the map
+	 *         and empty apart from detectives marked by callers further up
+	 *         the stack
+	 */
+	private long[] occupancy() {
+		long[] occupied = OCCUPIED.get();
+		int size = (setup.adjacency.maxNodeId() >>> 6) + 1;
+		if (occupied.length < size) {
+			occupied = new long[size];
+			OCCUPIED.set(occupied);
+		}
+		return occupied;
+	}
+
+	/**
+	 * Marks the detectives of this state in an occupancy set
+	 *
+	 * @return the players whose locations were marked, as a mask of their
+	 *         indices, to be passed to {@link #unmark(long[], int)}
+	 */
+	private int mark(long[] occupied) {
+		int marked = 0;
+		for (int i = 1; i < locations.length; i++) {
+			int location = locations[i];
+			// Locations off the map cannot be reached, so need no mark.
+			if ((location >>> 6) >= occupied.length || TransportAdjacency.contains(occupied, location))
+				continue;
+			TransportAdjacency.add(occupied, location);
+			marked |= 1 << i;
+		}
+		return marked;
+	}
+
+	private void unmark(long[] occupied, int marked) {
+		for (int i = 1; i < locations.length; i++)
+			if ((marked & 1 << i) != 0)
+				TransportAdjacency.remove(occupied, locations[i]);
+	}
+
+	/**
+	 * Streams the valid moves of the current player into a sink, see
+	 * {@link MoveGenerator#generate}
+	 *
+	 * @param sink receives the encoded moves; not null
+	 * @return the number of moves emitted, at least one
+	 */
+	public int generateMoves(MoveSink sink) {
+		return generateMoves(setup.players.get(current), sink);
+	}
+
+	/**
+	 * Streams the valid moves of a player into a sink, see
+	 * {@link MoveGenerator#generate}
+	 *
+	 * @param colour the colour of the player; not null
+	 * @param sink receives the encoded moves; not null
+	 * @return the number of moves emitted, at least one
+	 */
+	public int generateMoves(Colour colour, MoveSink sink) {
+		int index = indexOf(colour);
+		Objects.requireNonNull(sink);
+		long[] occupied = occupancy();
+		int marked = mark(occupied);
+		try {
+			return MoveGenerator.generate(setup.adjacency, colour, locations[index], tickets[index],
+					round < setup.rounds.size() - 2, occupied, sink);
+		} finally {
+			unmark(occupied, marked);
+		}
+	}
+
+	/**
+	 * The actual location of a player, including Mr X when he is hidden
+	 *
+	 * @param colour the colour of the player; not null
+	 * @return the location of the player
+	 */
+	public int location(Colour colour) {
+		return locations[indexOf(colour)];
+	}
+
+	/**
+	 * The number of tickets of a type a player holds
+	 *
+	 * @param colour the colour of the player; not null
+	 * @param ticket the ticket type; not null
+	 * @return the number of tickets
+	 */
+	public int tickets(Colour colour, Ticket ticket) {
+		return tickets[indexOf(colour)][ticket.ordinal()];
+	}
+
+	private Outcome outcome() {
+
+		// Racing threads compute the same outcome, so the cache needs no lock.
+		Outcome outcome = this.outcome;
+		if (outcome != null)
+			return outcome;
+
+		TransportAdjacency adjacency = setup.adjacency;
+		long[] occupied = occupancy();
+		int marked = mark(occupied);
+		boolean noMoves = true;
+		boolean mrXStuck;
+		try {
+			for (int i = 1; i < locations.length; i++) {
+				if (MoveGenerator.hasAnyMove(adjacency, locations[i], tickets[i], occupied)) {
+					noMoves = false;
+					break;
+				}
+			}
+			mrXStuck = current == 0
+					&& !MoveGenerator.hasAnyMove(adjacency, locations[0], tickets[0], occupied);
+		} finally {
+			unmark(occupied, marked);
+		}
+
+		boolean captured = false;
+		for (int i = 1; i < locations.length; i++)
+			captured |= locations[i] == locations[0];
+		boolean mrXTurn = current == 0;
+		boolean roundsExceeded = mrXTurn && round >= setup.rounds.size();
+
+		Set<Colour> winners = emptySet();
+		if (captured || mrXStuck) {
+			winners = EnumSet.copyOf(setup.players.subList(1, setup.players.size()));
+		} else if (roundsExceeded || noMoves) {
+			winners = EnumSet.of(BLACK);
+		}
+
+		outcome = new Outcome(noMoves || roundsExceeded || captured || mrXStuck,
+				unmodifiableSet(winners));
+		this.outcome = outcome;
+		return outcome;
+
+	}
+
+	@Override
+	public List<Colour> getPlayers() {
+		return setup.players;
+	}
+
+	@Override
+	public Set<Colour> getWinningPlayers() {
+		return outcome().winners;
+	}
+
+	@Override
+	public Optional<Integer> getPlayerLocation(Colour colour) {
+
+		int index = setup.playerIndex[colour.ordinal()];
+
+		if (index < 0)
+			return Optional.empty();
+
+		if (index == 0 && (round == 0 || !setup.rounds.get(round - 1)))
+			return Optional.of(lastMrX);
+
+		return Optional.of(locations[index]);
+
+	}
+
+	@Override
+	public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
+
+		int index = setup.playerIndex[colour.ordinal()];
+
+		if (index < 0)
+			return Optional.empty();
+
+		return Optional.of(tickets[index][ticket.ordinal()]);
+
+	}
+
+	@Override
+	public boolean isDetectiveAt(int location) {
+		for (int i = 1; i < locations.length; i++)
+			if (locations[i] == location) return true;
+		return false;
+	}
+
+	@Override
+	public boolean isGameOver() {
+		return outcome().over;
+	}
+
+	@Override
+	public Colour getCurrentPlayer() {
+		return setup.players.get(current);
+	}
+
+	@Override
+	public int getCurrentRound() {
+		return round;
+	}
+
+	@Override
+	public List<Boolean> getRounds() {
+		return setup.rounds;
+	}
+
+	@Override
+	public Graph<Integer, Transport> getGraph() {
+		return setup.graph;
+	}
+
+	/**
+	 * States are equal when they belong to the same game and every player,
+	 * the round, Mr X's last known location and the current player match
+	 */
+	@Override
+	public boolean equals(Object o) {
+		if (this == o) return true;
+		if (o == null || getClass() != o.getClass()) return false;
+		GameState that = (GameState) o;
+		return round == that.round
+				&& lastMrX == that.lastMrX
+				&& current == that.current
+				&& sameGame(that)
+				&& Arrays.equals(locations, that.locations)
+				&& Arrays.deepEquals(tickets, that.tickets);
+	}
+
+	private boolean sameGame(GameState that) {
+		return setup == that.setup
+				|| (setup.players.equals(that.setup.players)
+						&& setup.rounds.equals(that.setup.rounds)
+						&& setup.graph.equals(that.setup.graph));
+	}
+
+	@Override
+	public int hashCode() {
+		return Long.hashCode(key);
+	}
+
+	/**
+	 * A view of a state that, like the view a game hands to its players, only
+	 * reveals Mr X's last known location
+	 */
+	private static final class PublicView implements ScotlandYardView {
+
+		private final GameState state;
+
+		PublicView(GameState state) {
+			this.state = state;
+		}
+
+		@Override
+		public List<Colour> getPlayers() {
+			return state.getPlayers();
+		}
+
+		@Override
+		public Set<Colour> getWinningPlayers() {
+			return state.getWinningPlayers();
+		}
+
+		@Override
+		public Optional<Integer> getPlayerLocation(Colour colour) {
+			return state.getPlayerLocation(colour);
+		}
+
+		@Override
+		public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
+			return state.getPlayerTickets(colour, ticket);
+		}
+
+		@Override
+		public boolean isDetectiveAt(int location) {
+			return state.isDetectiveAt(location);
+		}
+
+		@Override
+		public boolean isGameOver() {
+			return state.isGameOver();
+		}
+
+		@Override
+		public Colour getCurrentPlayer() {
+			return state.getCurrentPlayer();
+		}
+
+		@Override
+		public int getCurrentRound() {
+			return state.getCurrentRound();
+		}
+
+		@Override
+		public List<Boolean> getRounds() {
+			return state.getRounds();
+		}
+
+		@Override
+		public Graph<Integer, Transport> getGraph() {
+			return state.getGraph();
+		}
+
+	}
+
+	/**
+	 * Returns a view of this state that only reveals Mr X's last known
+	 * location, e.g. for spectators. The view cannot be turned back into this
+	 * state, so it cannot be advanced either.
+	 *
+	 * @return the view; never null
+	 */
+	public ScotlandYardView publicView() {
+		return new PublicView(this);
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("GameState{round=").append(round)
+				.append(", current=").append(getCurrentPlayer())
+				.append(", lastMrX=").append(lastMrX)
+				.append(", players=[");
+		for (int i = 0; i < locations.length; i++) {
+			if (i != 0) sb.append(", ");
+			sb.append(setup.players.get(i)).append('@').append(locations[i])
+					.append(Arrays.toString(tickets[i]));
+		}
+		return sb.append("]}").toString();
+	}
+
+}
@@ -0,0 +1,84 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import com.google.common.collect.MapMaker;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.Supplier;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+
+/**
+ * Values computed from maps, such as indices and distance tables, kept for
+ * as long as their map is in use. Maps are compared by identity and held
+ * weakly, so the values of any number of maps can be cached at once and are
+ * dropped with their map. Values must not refer back to their map.
+ *
+ * Every map has a fixed number of slots, e.g. one per transport mask. The
+ * value of a slot is computed once, by the first thread asking for it, while
+ * other threads asking for the same slot wait; values already computed and
+ * other slots can be read meanwhile.
+ *
+ * @param <V> the type of the values
+ */
+public final class GraphCache<V> {
+
+	private final int slots;
+	private final ConcurrentMap<Graph<?, ?>, AtomicReferenceArray<FutureTask<V>>> values =
+			new MapMaker().weakKeys().makeMap();
+
+	/**
+	 * Creates an empty cache
+	 *
+	 * @param slots the number of values of every map, must be &gt; 0
+	 */
+	public GraphCache(int slots) {
+		if (slots < 1) throw new IllegalArgumentException("slots must be > 0, got " + slots);
+		this.slots = slots;
+	}
+
+	/**
+	 * Returns a value of a map, computing it only if it is not already cached.
+	 * If the computation throws, the exception is rethrown to every thread
+	 * waiting for it and the next call tries again.
+	 *
+	 * @param graph the map; not null
+	 * @param slot the slot of the value, from 0 to the number of slots
+	 * @param compute computes the value; not null
+	 * @return the value; never null
+	 */
+	public V get(Graph<?, ?> graph, int slot, Supplier<? extends V> compute) {
+
+		Objects.requireNonNull(compute);
+		Objects.checkIndex(slot, slots);
+		AtomicReferenceArray<FutureTask<V>> tasks = values.computeIfAbsent(
+				Objects.requireNonNull(graph), key -> new AtomicReferenceArray<>(slots));
+
+		FutureTask<V> task = tasks.get(slot);
+		if (task == null) {
+			FutureTask<V> created = new FutureTask<>(() -> Objects.requireNonNull(compute.get()));
+			if (tasks.compareAndSet(slot, null, created)) {
+				task = created;
+				task.run();
+			} else {
+				task = tasks.get(slot);
+			}
+		}
+
+		try {
+			return Uninterruptibles.getUninterruptibly(task);
+		} catch (ExecutionException e) {
+			tasks.compareAndSet(slot, task, null);
+			Throwable cause = e.getCause();
+			if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+			if (cause instanceof Error) throw (Error) cause;
+			throw new IllegalStateException(cause);
+		}
+
+	}
+
+}
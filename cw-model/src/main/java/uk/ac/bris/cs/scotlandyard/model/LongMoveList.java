@@ -0,0 +1,137 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * A growable list of moves encoded with {@link MoveCodec}. Clearing keeps the
+ * backing array, so a single list can be reused for every move generation
+ * without allocating. Both this list and {@link LongMoveSet} are
+ * {@link MoveSink}s.
+ */
+public final class LongMoveList implements MoveSink {
+
+	private long[] moves;
+	private int size;
+
+	/**
+	 * Creates an empty list
+	 */
+	public LongMoveList() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty list
+	 *
+	 * @param capacity the initial capacity, must be &gt;= 0
+	 */
+	public LongMoveList(int capacity) {
+		if (capacity < 0) throw new IllegalArgumentException("Capacity must be >= 0, got " + capacity);
+		this.moves = new long[capacity];
+	}
+
+	/**
+	 * Appends an encoded move
+	 *
+	 * @param move the encoded move
+	 */
+	public void add(long move) {
+		if (size == moves.length)
+			moves = Arrays.copyOf(moves, Math.max(16, size * 2));
+		moves[size++] = move;
+	}
+
+	/**
+	 * @param index the index of the move
+	 * @return the encoded move at the given index
+	 */
+	public long get(int index) {
+		if (index < 0 || index >= size)
+			throw new IndexOutOfBoundsException("Index " + index + ", size " + size);
+		return moves[index];
+	}
+
+	/**
+	 * Same as {@link #add(long)}, so the list can be used as a {@link MoveSink}
+	 *
+	 * @param move the encoded move
+	 */
+	@Override
+	public void accept(long move) {
+		add(move);
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return true if the list contains the move
+	 */
+	public boolean contains(long move) {
+		for (int i = 0; i < size; i++)
+			if (moves[i] == move) return true;
+		return false;
+	}
+
+	/**
+	 * @return the number of moves in the list
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the list has no moves
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all moves, keeping the capacity
+	 */
+	public void clear() {
+		size = 0;
+	}
+
+	/**
+	 * Calls the consumer with every move in insertion order
+	 *
+	 * @param consumer the consumer; not null
+	 */
+	public void forEach(LongConsumer consumer) {
+		for (int i = 0; i < size; i++)
+			consumer.accept(moves[i]);
+	}
+
+	/**
+	 * @return a copy of the encoded moves; never null
+	 */
+	public long[] toArray() {
+		return Arrays.copyOf(moves, size);
+	}
+
+	/**
+	 * Decodes every move in the list
+	 *
+	 * @return a new mutable set of moves; never null
+	 */
+	public Set<Move> toMoveSet() {
+		Set<Move> set = new HashSet<>();
+		for (int i = 0; i < size; i++)
+			set.add(MoveCodec.decode(moves[i]));
+		return set;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("LongMoveList[");
+		for (int i = 0; i < size; i++) {
+			if (i != 0) sb.append(", ");
+			sb.append(MoveCodec.toString(moves[i]));
+		}
+		return sb.append(']').toString();
+	}
+
+}
@@ -0,0 +1,177 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.function.LongConsumer;
+
+/**
+ * An open addressing hash set of moves encoded with {@link MoveCodec}. Moves
+ * are stored unboxed and clearing keeps the table, so the set can be reused
+ * to de-duplicate generated moves without allocating.
+ */
+public final class LongMoveSet implements MoveSink {
+
+	// encodings are never negative so -1 marks a free slot
+	private static final long FREE = -1;
+
+	private long[] table;
+	private int size;
+
+	/**
+	 * Creates an empty set
+	 */
+	public LongMoveSet() {
+		this(16);
+	}
+
+	/**
+	 * Creates an empty set
+	 *
+	 * @param expectedSize the number of moves the set should hold before
+	 *        resizing, must be &gt;= 0
+	 */
+	public LongMoveSet(int expectedSize) {
+		if (expectedSize < 0)
+			throw new IllegalArgumentException("Expected size must be >= 0, got " + expectedSize);
+		this.table = newTable(Math.max(16, Integer.highestOneBit(expectedSize * 2 + 1) << 1));
+	}
+
+	private static long[] newTable(int capacity) {
+		long[] table = new long[capacity];
+		Arrays.fill(table, FREE);
+		return table;
+	}
+
+	private static int mix(long move) {
+		long h = move * 0x9E3779B97F4A7C15L;
+		return (int) (h ^ (h >>> 32));
+	}
+
+	/**
+	 * Adds an encoded move
+	 *
+	 * @param move the encoded move, must not be negative
+	 * @return true if the move was not already in the set
+	 */
+	public boolean add(long move) {
+		if (move < 0) throw new IllegalArgumentException("Not an encoded move: " + move);
+		int mask = table.length - 1;
+		int slot = mix(move) & mask;
+		while (table[slot] != FREE) {
+			if (table[slot] == move) return false;
+			slot = (slot + 1) & mask;
+		}
+		table[slot] = move;
+		if (++size * 2 > table.length) rehash(table.length * 2);
+		return true;
+	}
+
+	/**
+	 * Same as {@link #add(long)}, so the set can be used as a {@link MoveSink}
+	 *
+	 * @param move the encoded move
+	 */
+	@Override
+	public void accept(long move) {
+		add(move);
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return true if the set contains the move
+	 */
+	public boolean contains(long move) {
+		if (move < 0) return false;
+		int mask = table.length - 1;
+		int slot = mix(move) & mask;
+		while (table[slot] != FREE) {
+			if (table[slot] == move) return true;
+			slot = (slot + 1) & mask;
+		}
+		return false;
+	}
+
+	private void rehash(int capacity) {
+		long[] old = table;
+		table = newTable(capacity);
+		int mask = capacity - 1;
+		for (long move : old) {
+			if (move == FREE) continue;
+			int slot = mix(move) & mask;
+			while (table[slot] != FREE)
+				slot = (slot + 1) & mask;
+			table[slot] = move;
+		}
+	}
+
+	/**
+	 * @return the number of moves in the set
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return true if the set has no moves
+	 */
+	public boolean isEmpty() {
+		return size == 0;
+	}
+
+	/**
+	 * Removes all moves, keeping the capacity
+	 */
+	public void clear() {
+		if (size == 0) return;
+		Arrays.fill(table, FREE);
+		size = 0;
+	}
+
+	/**
+	 * Calls the consumer with every move in no particular order
+	 *
+	 * @param consumer the consumer; not null
+	 */
+	public void forEach(LongConsumer consumer) {
+		for (long move : table)
+			if (move != FREE) consumer.accept(move);
+	}
+
+	/**
+	 * @return the encoded moves in no particular order; never null
+	 */
+	public long[] toArray() {
+		long[] moves = new long[size];
+		int i = 0;
+		for (long move : table)
+			if (move != FREE) moves[i++] = move;
+		return moves;
+	}
+
+	/**
+	 * Decodes every move in the set
+	 *
+	 * @return a new mutable set of moves; never null
+	 */
+	public Set<Move> toMoveSet() {
+		Set<Move> set = new HashSet<>();
+		for (long move : table)
+			if (move != FREE) set.add(MoveCodec.decode(move));
+		return set;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder sb = new StringBuilder("LongMoveSet[");
+		boolean first = true;
+		for (long move : table) {
+			if (move == FREE) continue;
+			if (!first) sb.append(", ");
+			sb.append(MoveCodec.toString(move));
+			first = false;
+		}
+		return sb.append(']').toString();
+	}
+
+}
@@ -0,0 +1,257 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Objects;
+
+/**
+ * Packs moves into a single {@code long} so that they can be generated,
+ * stored and compared without allocating {@link Move} objects. Encodings are
+ * always non-negative and convert losslessly to and from the {@link Move}
+ * hierarchy using {@link #encode(Move)} and {@link #decode(long)}.
+ *
+ * <pre>
+ * bits  0-23  first (or only) destination
+ * bits 24-47  second destination, double moves only
+ * bits 48-50  first (or only) ticket
+ * bits 51-53  second ticket, double moves only
+ * bits 54-56  colour
+ * bits 57-58  kind, one of PASS_MOVE, TICKET_MOVE or DOUBLE_MOVE
+ * </pre>
+ */
+public final class MoveCodec {
+
+	/**
+	 * Kind of an encoded {@link PassMove}
+	 */
+	public static final int PASS_MOVE = 0;
+
+	/**
+	 * Kind of an encoded {@link TicketMove}
+	 */
+	public static final int TICKET_MOVE = 1;
+
+	/**
+	 * Kind of an encoded {@link DoubleMove}
+	 */
+	public static final int DOUBLE_MOVE = 2;
+
+	/**
+	 * The largest destination that can be encoded
+	 */
+	public static final int MAX_DESTINATION = (1 << 24) - 1;
+
+	private static final int SECOND_DESTINATION_SHIFT = 24;
+	private static final int FIRST_TICKET_SHIFT = 48;
+	private static final int SECOND_TICKET_SHIFT = 51;
+	private static final int COLOUR_SHIFT = 54;
+	private static final int KIND_SHIFT = 57;
+
+	private static final Colour[] COLOURS = Colour.values();
+	private static final Ticket[] TICKETS = Ticket.values();
+
+	private MoveCodec() {
+		// nope
+	}
+
+	/**
+	 * Encodes a pass move
+	 *
+	 * @param colour the colour of the player passing; not null
+	 * @return the encoded move
+	 */
+	public static long passMove(Colour colour) {
+		return (long) PASS_MOVE << KIND_SHIFT
+				| (long) Objects.requireNonNull(colour).ordinal() << COLOUR_SHIFT;
+	}
+
+	/**
+	 * Encodes a ticket move
+	 *
+	 * @param colour the colour of the player moving; not null
+	 * @param ticket the ticket used; not null
+	 * @param destination the destination, between 0 and
+	 *        {@link #MAX_DESTINATION}
+	 * @return the encoded move
+	 */
+	public static long ticketMove(Colour colour, Ticket ticket, int destination) {
+		return (long) TICKET_MOVE << KIND_SHIFT
+				| (long) Objects.requireNonNull(colour).ordinal() << COLOUR_SHIFT
+				| (long) Objects.requireNonNull(ticket).ordinal() << FIRST_TICKET_SHIFT
+				| checkDestination(destination);
+	}
+
+	/**
+	 * Encodes a double move
+	 *
+	 * @param colour the colour of the player moving; not null
+	 * @param first the ticket used for the first move; not null
+	 * @param firstDestination the first destination, between 0 and
+	 *        {@link #MAX_DESTINATION}
+	 * @param second the ticket used for the second move; not null
+	 * @param secondDestination the second destination, between 0 and
+	 *        {@link #MAX_DESTINATION}
+	 * @return the encoded move
+	 */
+	public static long doubleMove(Colour colour, Ticket first, int firstDestination,
+			Ticket second, int secondDestination) {
+		return (long) DOUBLE_MOVE << KIND_SHIFT
+				| (long) Objects.requireNonNull(colour).ordinal() << COLOUR_SHIFT
+				| (long) Objects.requireNonNull(first).ordinal() << FIRST_TICKET_SHIFT
+				| (long) Objects.requireNonNull(second).ordinal() << SECOND_TICKET_SHIFT
+				| checkDestination(secondDestination) << SECOND_DESTINATION_SHIFT
+				| checkDestination(firstDestination);
+	}
+
+	private static long checkDestination(int destination) {
+		if (destination < 0 || destination > MAX_DESTINATION)
+			throw new IllegalArgumentException("Destination " + destination
+					+ " is outside of 0.." + MAX_DESTINATION);
+		return destination;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return one of {@link #PASS_MOVE}, {@link #TICKET_MOVE} or
+	 *         {@link #DOUBLE_MOVE}
+	 */
+	public static int kind(long move) {
+		return (int) (move >>> KIND_SHIFT) & 0b11;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return true if the move is a pass move
+	 */
+	public static boolean isPass(long move) {
+		return kind(move) == PASS_MOVE;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return true if the move is a ticket move
+	 */
+	public static boolean isTicket(long move) {
+		return kind(move) == TICKET_MOVE;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return true if the move is a double move
+	 */
+	public static boolean isDouble(long move) {
+		return kind(move) == DOUBLE_MOVE;
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return the colour of the player making the move
+	 */
+	public static Colour colour(long move) {
+		return COLOURS[(int) (move >>> COLOUR_SHIFT) & 0b111];
+	}
+
+	/**
+	 * @param move the encoded ticket or double move
+	 * @return the ticket of a ticket move or the first ticket of a double move
+	 */
+	public static Ticket ticket(long move) {
+		return TICKETS[(int) (move >>> FIRST_TICKET_SHIFT) & 0b111];
+	}
+
+	/**
+	 * @param move the encoded ticket or double move
+	 * @return the destination of a ticket move or the first destination of a
+	 *         double move
+	 */
+	public static int destination(long move) {
+		return (int) move & MAX_DESTINATION;
+	}
+
+	/**
+	 * @param move the encoded double move
+	 * @return the ticket used for the second move
+	 */
+	public static Ticket secondTicket(long move) {
+		return TICKETS[(int) (move >>> SECOND_TICKET_SHIFT) & 0b111];
+	}
+
+	/**
+	 * @param move the encoded double move
+	 * @return the destination of the second move
+	 */
+	public static int secondDestination(long move) {
+		return (int) (move >>> SECOND_DESTINATION_SHIFT) & MAX_DESTINATION;
+	}
+
+	/**
+	 * @param move the encoded ticket or double move
+	 * @return where the player ends up after the move
+	 */
+	public static int finalDestination(long move) {
+		return isDouble(move) ? secondDestination(move) : destination(move);
+	}
+
+	/**
+	 * Encodes a move
+	 *
+	 * @param move the move; not null
+	 * @return the encoded move
+	 */
+	public static long encode(Move move) {
+		Encoder encoder = new Encoder();
+		Objects.requireNonNull(move).visit(encoder);
+		return encoder.encoded;
+	}
+
+	/**
+	 * Decodes an encoded move back into a {@link Move}
+	 *
+	 * @param move the encoded move
+	 * @return the move; never null
+	 */
+	public static Move decode(long move) {
+		switch (kind(move)) {
+			case PASS_MOVE:
+				return new PassMove(colour(move));
+			case TICKET_MOVE:
+				return new TicketMove(colour(move), ticket(move), destination(move));
+			case DOUBLE_MOVE:
+				return new DoubleMove(colour(move),
+						ticket(move), destination(move),
+						secondTicket(move), secondDestination(move));
+			default:
+				throw new IllegalArgumentException("Not an encoded move: " + move);
+		}
+	}
+
+	/**
+	 * @param move the encoded move
+	 * @return the same string as {@code decode(move).toString()}
+	 */
+	public static String toString(long move) {
+		return decode(move).toString();
+	}
+
+	private static class Encoder implements MoveVisitor {
+
+		private long encoded;
+
+		@Override
+		public void visit(PassMove move) {
+			encoded = passMove(move.colour());
+		}
+
+		@Override
+		public void visit(TicketMove move) {
+			encoded = ticketMove(move.colour(), move.ticket(), move.destination());
+		}
+
+		@Override
+		public void visit(DoubleMove move) {
+			encoded = doubleMove(move.colour(),
+					move.firstMove().ticket(), move.firstMove().destination(),
+					move.secondMove().ticket(), move.secondMove().destination());
+		}
+
+	}
+
+}
@@ -0,0 +1,146 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+
+/**
+ * Generates the valid moves of a player straight into a {@link MoveSink}
+ * without allocating. Ticket counts are passed as an array indexed by
+ * {@link Ticket#ordinal()} and detective locations as a node set made by
+ * {@link TransportAdjacency#newNodeSet(int)}, so any game representation can
+ * use it. Destinations are found a word at a time from the
+ * {@link TransportAdjacency} of the map.
+ */
+public final class MoveGenerator {
+
+	/**
+	 * The tickets a move can be made with
+	 */
+	private static final Ticket[] TICKETS = {
+			Ticket.TAXI, Ticket.BUS, Ticket.UNDERGROUND, Ticket.SECRET };
+
+	/**
+	 * The adjacency row each of {@link #TICKETS} can use, null for all
+	 * transports
+	 */
+	private static final Transport[] ROWS = {
+			Transport.TAXI, Transport.BUS, Transport.UNDERGROUND, null };
+
+	private MoveGenerator() {
+		// nope
+	}
+
+	/**
+	 * Generates every valid move for a player. If the player cannot move, a
+	 * single pass move is emitted. Every move is emitted once, even when
+	 * several edges connect the same two nodes.
+	 *
+	 * @param adjacency the map; not null
+	 * @param colour the colour of the player; not null
+	 * @param location the location of the player
+	 * @param tickets ticket counts of the player indexed by ticket ordinal
+	 * @param doubleAllowed whether there are enough rounds left for a double
+	 *        move
+	 * @param occupied the nodes holding a detective
+	 * @param sink receives the encoded moves
+	 * @return the number of moves emitted, at least one
+	 */
+	public static int generate(TransportAdjacency adjacency, Colour colour, int location,
+			int[] tickets, boolean doubleAllowed, long[] occupied, MoveSink sink) {
+
+		boolean canDouble = doubleAllowed && tickets[DOUBLE.ordinal()] > 0;
+		int count = 0;
+
+		for (int i = 0; i < TICKETS.length; i++) {
+
+			Ticket ticket = TICKETS[i];
+
+			if (tickets[ticket.ordinal()] <= 0)
+				continue;
+
+			for (int entry = adjacency.rowStart(location, ROWS[i]),
+					end = adjacency.rowEnd(location, ROWS[i]); entry < end; entry++) {
+
+				int word = adjacency.wordIndex(entry);
+
+				for (long bits = adjacency.word(entry) & ~occupied[word]; bits != 0; bits &= bits - 1) {
+
+					int destination = (word << 6) + Long.numberOfTrailingZeros(bits);
+					sink.accept(MoveCodec.ticketMove(colour, ticket, destination));
+					count++;
+
+					if (canDouble)
+						count += generateSecondMoves(adjacency, colour, tickets, occupied, sink,
+								ticket, destination);
+
+				}
+
+			}
+
+		}
+
+		if (count == 0) {
+			sink.accept(MoveCodec.passMove(colour));
+			count++;
+		}
+
+		return count;
+
+	}
+
+	private static int generateSecondMoves(TransportAdjacency adjacency, Colour colour,
+			int[] tickets, long[] occupied, MoveSink sink, Ticket ticket, int destination) {
+
+		int count = 0;
+
+		for (int i = 0; i < TICKETS.length; i++) {
+
+			Ticket ticket2 = TICKETS[i];
+
+			// Using the same ticket twice needs two of them.
+			if (tickets[ticket2.ordinal()] < (ticket2 == ticket ? 2 : 1))
+				continue;
+
+			for (int entry = adjacency.rowStart(destination, ROWS[i]),
+					end = adjacency.rowEnd(destination, ROWS[i]); entry < end; entry++) {
+
+				int word = adjacency.wordIndex(entry);
+
+				for (long bits = adjacency.word(entry) & ~occupied[word]; bits != 0; bits &= bits - 1) {
+					sink.accept(MoveCodec.doubleMove(colour, ticket, destination, ticket2,
+							(word << 6) + Long.numberOfTrailingZeros(bits)));
+					count++;
+				}
+
+			}
+
+		}
+
+		return count;
+
+	}
+
+	/**
+	 * Checks whether a player has at least one move other than a pass. This
+	 * agrees with {@link #generate} not emitting a pass move, but only tests
+	 * words of the adjacency and never expands double moves.
+	 *
+	 * @param adjacency the map; not null
+	 * @param location the location of the player
+	 * @param tickets ticket counts of the player indexed by ticket ordinal
+	 * @param occupied the nodes holding a detective
+	 * @return true if the player can move
+	 */
+	public static boolean hasAnyMove(TransportAdjacency adjacency, int location,
+			int[] tickets, long[] occupied) {
+
+		int mask = 0;
+
+		for (Ticket ticket : TICKETS)
+			if (tickets[ticket.ordinal()] > 0)
+				mask |= TransportAdjacency.mask(ticket);
+
+		return adjacency.hasNeighbour(location, mask, occupied);
+
+	}
+
+}
@@ -0,0 +1,17 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+/**
+ * Receives moves encoded with {@link MoveCodec} as they are generated, see
+ * {@link ScotlandYardModel#generateMoves(Colour, MoveSink)}
+ */
+@FunctionalInterface
+public interface MoveSink {
+
+	/**
+	 * Called for every generated move
+	 *
+	 * @param move the encoded move
+	 */
+	void accept(long move);
+
+}
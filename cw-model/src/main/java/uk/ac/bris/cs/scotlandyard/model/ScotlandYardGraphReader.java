@@ -1,12 +1,20 @@
 package uk.ac.bris.cs.scotlandyard.model;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.channels.SelectableChannel;
 import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 import java.util.Locale;
+import java.util.Objects;
 import java.util.regex.Pattern;
 
 import uk.ac.bris.cs.gamekit.graph.Edge;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
 import uk.ac.bris.cs.gamekit.graph.Node;
 import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
 
@@ -22,6 +30,19 @@ public class ScotlandYardGraphReader {
 		// nope
 	}
 
+	/**
+	 * Receives the nodes and edges read from a map
+	 */
+	private interface GraphSink {
+
+		void addNode(int node);
+
+		boolean containsNode(int node);
+
+		void addEdge(int source, int destination, Transport transport);
+
+	}
+
 	/**
 	 * Converts lines of strings into a Scotland Yard game map
 	 * 
@@ -29,6 +50,291 @@ public class ScotlandYardGraphReader {
 	 * @return a graph for {@link ScotlandYardGame} to use
 	 */
 	public static ImmutableGraph<Integer, Transport> fromLines(List<String> lines) {
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		read(lines, new GraphSink() {
+			@Override
+			public void addNode(int node) {
+				graph.addNode(Node.of(node));
+			}
+
+			@Override
+			public boolean containsNode(int node) {
+				return graph.containsNode(node);
+			}
+
+			@Override
+			public void addEdge(int source, int destination, Transport transport) {
+				graph.addEdge(new Edge<>(graph.getNode(source), graph.getNode(destination), transport));
+			}
+		});
+		return new ImmutableGraph<>(graph.freeze());
+	}
+
+	/**
+	 * Converts lines of strings into a Scotland Yard game map stored as arrays.
+	 * The graph has the same nodes and the same edges in the same order as the
+	 * one from {@link #fromLines(List)}, so moves are generated in the same
+	 * order.
+	 *
+	 * @param lines the lines
+	 * @return a graph for {@link ScotlandYardGame} to use
+	 */
+	public static IntGraph<Transport> intGraphFromLines(List<String> lines) {
+		IntGraphSink sink = new IntGraphSink();
+		read(lines, sink);
+		return sink.builder.build();
+	}
+
+	/**
+	 * Reads a Scotland Yard game map in the same format as
+	 * {@link #fromLines(List)} from a stream of characters. Numbers and
+	 * transports are parsed straight from a buffer as they arrive, without
+	 * holding the whole file or splitting lines into strings, so large maps
+	 * parse in time proportional to their size. Errors report the line number
+	 * counting from 1. The reader is not closed.
+	 *
+	 * @param reader the reader; not null
+	 * @return a graph for {@link ScotlandYardGame} to use, with the same nodes
+	 *         and edges in the same order as {@link #fromLines(List)}
+	 * @throws IOException if the reader fails
+	 */
+	public static ImmutableGraph<Integer, Transport> fromReader(Reader reader) throws IOException {
+		Objects.requireNonNull(reader);
+		return read(new Tokenizer(reader::read));
+	}
+
+	/**
+	 * Reads a Scotland Yard game map in the same format as
+	 * {@link #fromLines(List)} from a channel of ASCII bytes, see
+	 * {@link #fromReader(Reader)}. The channel must be in blocking mode and
+	 * is not closed.
+	 *
+	 * @param channel the blocking channel; not null
+	 * @return a graph for {@link ScotlandYardGame} to use
+	 * @throws IllegalArgumentException if the channel is non-blocking
+	 * @throws IOException if the channel fails, or returns no bytes because
+	 *         it was made non-blocking while reading
+	 */
+	public static ImmutableGraph<Integer, Transport> fromChannel(ReadableByteChannel channel)
+			throws IOException {
+		Objects.requireNonNull(channel);
+		if (channel instanceof SelectableChannel && !((SelectableChannel) channel).isBlocking())
+			throw new IllegalArgumentException("Channel must be blocking");
+		ByteBuffer bytes = ByteBuffer.allocate(Tokenizer.BUFFER_SIZE);
+		return read(new Tokenizer((chars, offset, length) -> {
+			bytes.clear().limit(length);
+			int read = channel.read(bytes);
+			// A blocking channel only returns 0 if asked for nothing.
+			if (read == 0 && length > 0) throw new IOException("Channel returned no bytes");
+			for (int i = 0; i < read; i++)
+				chars[offset + i] = (char) (bytes.get(i) & 0xFF);
+			return read;
+		}));
+	}
+
+	/**
+	 * Builds an {@link IntGraph}, tracking nodes in a bitset
+	 */
+	private static final class IntGraphSink implements GraphSink {
+
+		final IntGraph.Builder<Transport> builder = new IntGraph.Builder<>();
+		final BitSet nodes = new BitSet();
+
+		@Override
+		public void addNode(int node) {
+			if (node < 0) throw new IllegalArgumentException("Node " + node + " is negative");
+			builder.addNode(node);
+			nodes.set(node);
+		}
+
+		@Override
+		public boolean containsNode(int node) {
+			return node >= 0 && nodes.get(node);
+		}
+
+		@Override
+		public void addEdge(int source, int destination, Transport transport) {
+			builder.addUndirectedEdge(source, destination, transport);
+		}
+
+	}
+
+	private static ImmutableGraph<Integer, Transport> read(Tokenizer tokens) throws IOException {
+
+		IntGraphSink graph = new IntGraphSink();
+
+		if (tokens.atEnd())
+			throw new IllegalArgumentException("Input must not be empty!");
+
+		int numberOfNodes = tokens.nextInt();
+		int numberOfEdges = tokens.nextInt();
+		tokens.endLine();
+
+		if (numberOfNodes < 0 || numberOfEdges < 0)
+			throw new IllegalArgumentException("Negative node or edge count at line 1");
+
+		for (int i = 0; i < numberOfNodes; i++) {
+			tokens.startLine("node " + (i + 1) + " of " + numberOfNodes);
+			int node = tokens.nextInt();
+			if (node < 0)
+				throw new IllegalArgumentException("Negative node " + node + " at line " + tokens.line());
+			if (graph.containsNode(node))
+				throw new IllegalArgumentException("Duplicate node " + node + " at line " + tokens.line());
+			graph.addNode(node);
+			tokens.endLine();
+		}
+
+		for (int i = 0; i < numberOfEdges; i++) {
+			tokens.startLine("edge " + (i + 1) + " of " + numberOfEdges);
+			int line = tokens.line();
+			int source = tokens.nextInt();
+			int destination = tokens.nextInt();
+			Transport transport = tokens.nextTransport();
+			tokens.endLine();
+			if (!graph.containsNode(source)) throw new IllegalArgumentException(
+					"Expected source node " + source + " to exist in graph at line " + line);
+			if (!graph.containsNode(destination)) throw new IllegalArgumentException(
+					"Expected destination node " + destination + " to exist in graph at line " + line);
+			graph.addEdge(source, destination, transport);
+		}
+
+		return new ImmutableGraph<>(graph.builder.build());
+
+	}
+
+	/**
+	 * Splits a map into integers and transports straight from a character
+	 * buffer, keeping track of the line
+	 */
+	private static final class Tokenizer {
+
+		static final int BUFFER_SIZE = 8192;
+		private static final char[][] TRANSPORTS = new char[Transport.values().length][];
+
+		static {
+			for (Transport transport : Transport.values())
+				TRANSPORTS[transport.ordinal()] = transport.name().toCharArray();
+		}
+
+		/**
+		 * Fills part of a buffer, returning the number of characters read or
+		 * -1 at the end of the input
+		 */
+		@FunctionalInterface
+		interface Source {
+			int read(char[] buffer, int offset, int length) throws IOException;
+		}
+
+		private final Source source;
+		private final char[] buffer = new char[BUFFER_SIZE];
+		private int position;
+		private int limit;
+		private int line = 1;
+
+		Tokenizer(Source source) {
+			this.source = source;
+		}
+
+		int line() {
+			return line;
+		}
+
+		private int peek() throws IOException {
+			if (position == limit) {
+				int read = source.read(buffer, 0, buffer.length);
+				if (read <= 0) return -1;
+				position = 0;
+				limit = read;
+			}
+			return buffer[position];
+		}
+
+		private void skipSpaces() throws IOException {
+			int c;
+			while ((c = peek()) == ' ' || c == '\t')
+				position++;
+		}
+
+		private boolean atLineEnd(int c) {
+			return c == '\n' || c == '\r' || c == -1;
+		}
+
+		boolean atEnd() throws IOException {
+			return peek() == -1;
+		}
+
+		/**
+		 * Checks that another non-empty line is available
+		 */
+		void startLine(String expected) throws IOException {
+			skipSpaces();
+			int c = peek();
+			if (c == -1) throw new IllegalArgumentException(
+					"Unexpected end of input at line " + line + ", expected " + expected);
+			if (atLineEnd(c))
+				throw new IllegalArgumentException("Expected non-empty line at line " + line);
+		}
+
+		/**
+		 * Moves past the end of the current line, which must only have
+		 * whitespace left
+		 */
+		void endLine() throws IOException {
+			skipSpaces();
+			int c = peek();
+			if (!atLineEnd(c))
+				throw new IllegalArgumentException("Unexpected symbol '" + (char) c + "' at line " + line);
+			if (c == -1)
+				return;
+			position++;
+			if (c == '\r' && peek() == '\n')
+				position++;
+			line++;
+		}
+
+		int nextInt() throws IOException {
+			skipSpaces();
+			boolean negative = peek() == '-';
+			if (negative) position++;
+			long value = 0;
+			int digits = 0;
+			int c;
+			while ((c = peek()) >= '0' && c <= '9') {
+				value = value * 10 + (c - '0');
+				if (value > Integer.MAX_VALUE)
+					throw new IllegalArgumentException("Integer too large at line " + line);
+				position++;
+				digits++;
+			}
+			if (digits == 0)
+				throw new IllegalArgumentException("Expected integer at line " + line);
+			return (int) (negative ? -value : value);
+		}
+
+		Transport nextTransport() throws IOException {
+			skipSpaces();
+			// Match every transport at once, dropping those that stop matching.
+			int candidates = (1 << TRANSPORTS.length) - 1;
+			int length = 0;
+			int c;
+			while (!atLineEnd(c = peek()) && c != ' ' && c != '\t') {
+				char upper = Character.toUpperCase((char) c);
+				for (int t = 0; t < TRANSPORTS.length; t++)
+					if (length >= TRANSPORTS[t].length || TRANSPORTS[t][length] != upper)
+						candidates &= ~(1 << t);
+				position++;
+				length++;
+			}
+			for (int t = 0; t < TRANSPORTS.length; t++)
+				if ((candidates & 1 << t) != 0 && TRANSPORTS[t].length == length)
+					return Transport.values()[t];
+			throw new IllegalArgumentException("Expected enum with value of "
+					+ Arrays.toString(Transport.values()) + " at line " + line);
+		}
+
+	}
+
+	private static void read(List<String> lines, GraphSink graph) {
 		if (lines == null) throw new NullPointerException("lines == null");
 		if (lines.isEmpty()) throw new IllegalArgumentException("Lines must not be empty!");
 
@@ -45,15 +351,13 @@ public class ScotlandYardGraphReader {
 		if (numberOfNodes + numberOfEdges > lines.size() - 1)
 			throw new IllegalArgumentException("Line count < (edge count + node count)");
 
-		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
-
 		// we read the first line already
 		for (int i = 1; i <= numberOfNodes; i++) {
 			if (lines.get(i).isEmpty())
 				throw new IllegalArgumentException("Expected non-empty line at line " + i);
 			String value = parseLine(i, lines, DELIMITER, 1)[0];
 			try {
-				graph.addNode(new Node<>(Integer.parseInt(value)));
+				graph.addNode(Integer.parseInt(value));
 			} catch (NumberFormatException e) {
 				throw new IllegalArgumentException(
 						"Expected integer at line " + i + "\n\t" + lines.get(i));
@@ -65,12 +369,12 @@ public class ScotlandYardGraphReader {
 				throw new IllegalArgumentException("Expected non-empty line at line " + i);
 			String[] segments = parseLine(i, lines, DELIMITER, 3);
 
-			Node<Integer> source;
-			Node<Integer> destination;
+			int source;
+			int destination;
 			Transport data;
 			try {
-				source = graph.getNode(Integer.parseInt(segments[0]));
-				destination = graph.getNode(Integer.parseInt(segments[1]));
+				source = Integer.parseInt(segments[0]);
+				destination = Integer.parseInt(segments[1]);
 			} catch (NumberFormatException e) {
 				throw new IllegalArgumentException(
 						"Expected integer at line " + i + "\n\t" + lines.get(i));
@@ -82,14 +386,13 @@ public class ScotlandYardGraphReader {
 						"Expected enum with value of " + Arrays.toString(Transport.values())
 								+ " at line " + i + "\n\t" + lines.get(i));
 			}
-			if (source == null) throw new IllegalArgumentException(
+			if (!graph.containsNode(source)) throw new IllegalArgumentException(
 					"Expected source node to exist in graph  at line " + i + "\n\t" + lines.get(i));
-			if (destination == null) throw new IllegalArgumentException(
+			if (!graph.containsNode(destination)) throw new IllegalArgumentException(
 					"Expected destination node to exist in graph  at line " + i + "\n\t"
 							+ lines.get(i));
-			graph.addEdge(new Edge<>(source, destination, data));
+			graph.addEdge(source, destination, data);
 		}
-		return new ImmutableGraph<>(graph);
 	}
 
 	private static String[] parseLine(int line, List<String> lines, String delimiter,
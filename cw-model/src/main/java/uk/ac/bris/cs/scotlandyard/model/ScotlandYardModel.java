@@ -7,10 +7,8 @@ import static uk.ac.bris.cs.scotlandyard.model.Ticket.*;
 import java.util.*;
 import java.util.function.Consumer;
 
-import uk.ac.bris.cs.gamekit.graph.Edge;
 import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
-import uk.ac.bris.cs.gamekit.graph.Node;
 
 public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, MoveVisitor {
 
@@ -18,17 +16,34 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	private int lastMrX = 0;
 	private List<Boolean> rounds;
 	private Colour currentPlayer = BLACK;
-	private Graph<Integer, Transport> graph;
+	private ImmutableGraph<Integer, Transport> graph;
+	private TransportAdjacency adjacency;
 	private Set<Colour> winners = new HashSet<>();
+	private boolean gameOver = false;
+	private int version = 0;
+	private Set<Move> cachedMoves;
+	private Colour cachedMovesColour;
+	private int cachedMovesVersion;
+	private GameState state;
+	private int stateVersion;
+	private long key;
+	private int keyRound;
+	private int keyLastMrX;
+	private Colour keyCurrent;
+	private final int[][] ticketCounts = new int[Colour.values().length][Ticket.values().length];
+	private long[] detectiveLocations;
 	private List<Spectator> spectators = new ArrayList<>();
+	private SpectatorEventBus eventBus;
 	private Map<Colour, ScotlandYardPlayer> colourMap = new LinkedHashMap<>(); // Used to guarantee order.
+	private final ScotlandYardView playerView = new PlayerView();
 
 	public ScotlandYardModel(List<Boolean> rounds, Graph<Integer, Transport> graph,
 			PlayerConfiguration mrX, PlayerConfiguration firstDetective,
 			PlayerConfiguration... restOfTheDetectives) {
 
 		this.rounds = Objects.requireNonNull(rounds);
-		this.graph = Objects.requireNonNull(graph);
+		// Copied once, unless already frozen, so getGraph() is always the same view.
+		this.graph = ImmutableGraph.copyOf(Objects.requireNonNull(graph));
 
 		if (rounds.isEmpty())
 			throw new IllegalArgumentException("Empty rounds");
@@ -36,6 +51,10 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		if (graph.isEmpty())
 			throw new IllegalArgumentException("Empty map");
 
+		// Move generation works on neighbour bitsets built once per map and
+		// shared with every state and search model of it.
+		this.adjacency = TransportAdjacency.cached(this.graph);
+
 		if (mrX.colour != BLACK)
 			throw new IllegalArgumentException("MrX should be black");
 
@@ -54,6 +73,11 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		allTicketSet.add(Ticket.DOUBLE);
 		allTicketSet.add(Ticket.SECRET);
 
+		int largestLocation = 0;
+		for (PlayerConfiguration configuration : configurations)
+			largestLocation = Math.max(largestLocation, configuration.location);
+		detectiveLocations = adjacency.newNodeSet(largestLocation);
+
 		Set<Integer> locationSet = new HashSet<>();
 		Set<Colour> colourSet    = new HashSet<>();
 
@@ -86,8 +110,18 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 			Objects.requireNonNull(player);
 			colourMap.put(player.colour(), player);
 
+			if (player.isDetective())
+				TransportAdjacency.add(detectiveLocations, player.location());
+
 		}
 
+		key = Zobrist.of(this, mrX.location);
+		keyRound = round;
+		keyLastMrX = lastMrX;
+		keyCurrent = currentPlayer;
+
+		stateChanged();
+
 	}
 
 	/**
@@ -99,13 +133,11 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
         if (isGameOver()) {
 
-            for (Spectator spectator : spectators)
-                spectator.onGameOver(this, getWinningPlayers());
+            notifySpectatorsGameOver();
 
         } else if (currentPlayer == BLACK) {
 
-            for (Spectator spectator : spectators)
-                spectator.onRotationComplete(this);
+            notifySpectatorsRotationComplete();
 
         } else {
 
@@ -117,6 +149,26 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
     }
 
+	/**
+	 * Moves a player to a new location, keeping the detective occupancy
+	 * bitset in step.
+	 * @param player the player to move.
+	 * @param location the new location of the player.
+	 */
+	private void moveTo(ScotlandYardPlayer player, int location) {
+
+		if (player.isDetective()) {
+			TransportAdjacency.remove(detectiveLocations, player.location());
+			TransportAdjacency.add(detectiveLocations, location);
+		}
+
+		key ^= Zobrist.location(player.colour(), player.location())
+				^ Zobrist.location(player.colour(), location);
+
+		player.location(location);
+
+	}
+
 	/**
 	 * Updates the number of tickets of a type the player should have by a specified number.
 	 * @param playerColour the colour of the player for whom the tickets are to be updated.
@@ -126,8 +178,10 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	private void updateTickets(Colour playerColour, Ticket ticket, int change) {
 
 	    ScotlandYardPlayer player = colourMap.get(playerColour);
-        int ticketsAfter = player.tickets().get(ticket) + change;
+        int ticketsBefore = player.tickets().get(ticket);
+        int ticketsAfter = ticketsBefore + change;
         player.tickets().replace(ticket, ticketsAfter);
+        key ^= Zobrist.ticketsChanged(playerColour, ticket, ticketsBefore, ticketsAfter);
 
 	}
 
@@ -142,11 +196,13 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
         if (currentPlayer == BLACK) {
 
             round++;
+	        stateChanged();
 	        notifySpectatorsRoundStarted();
 
         }
 
         nextPlayer();
+        stateChanged();
         notifySpectatorsMoveMade(move);
 
     }
@@ -173,7 +229,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
         }
 
 		ScotlandYardPlayer player = colourMap.get(currentPlayer);
-		player.location(move.destination());
+		moveTo(player, move.destination());
 
 		// Decrease number of tickets of player.
 		updateTickets(currentPlayer, move.ticket(), -1);
@@ -186,12 +242,13 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		nextPlayer();
 
 		// If player was Mr X then it's the end of the round, so we start the next.
-        if (wasMrX) {
-
+        if (wasMrX)
             round++;
-	        notifySpectatorsRoundStarted();
 
-        }
+		stateChanged();
+
+		if (wasMrX)
+			notifySpectatorsRoundStarted();
 
 		notifySpectatorsMoveMade(specMove);
 
@@ -231,6 +288,8 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		// Decrease number of double tickets in mrX's possession.
 		updateTickets(BLACK, DOUBLE, -1);
 
+		stateChanged();
+
 		notifySpectatorsMoveMade(specMove);
 
 		// -- FIRST MOVE --
@@ -238,7 +297,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		// Mr X loses ticket used for their first move.
 		updateTickets(BLACK, move.firstMove().ticket(), -1);
 
-		mrX.location(move.firstMove().destination());
+		moveTo(mrX, move.firstMove().destination());
 
 		round++;
 
@@ -246,6 +305,8 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		if (revealOne)
 			lastMrX = firstMove.destination();
 
+		stateChanged();
+
 		notifySpectatorsRoundStarted();
 
 		notifySpectatorsMoveMade(firstMove);
@@ -255,7 +316,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		// Decrease number of tickets for second move.
         updateTickets(BLACK, move.secondMove().ticket(), -1);
 
-		mrX.location(move.secondMove().destination());
+		moveTo(mrX, move.secondMove().destination());
 
 		// If either round is hidden we display the location as Mr X's last known location instead.
 		if (revealTwo)
@@ -264,6 +325,8 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		// Next rounds starts after first move made.
 		round++;
 
+		stateChanged();
+
 		notifySpectatorsRoundStarted();
 
 		notifySpectatorsMoveMade(secondMove);
@@ -275,6 +338,14 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	 */
 	private void notifySpectatorsRoundStarted() {
 
+		if (eventBus != null) {
+			ScotlandYardView snapshot = state().publicView();
+			int round = this.round;
+			for (Spectator spectator : spectators)
+				eventBus.post(spectator, s -> s.onRoundStarted(snapshot, round));
+			return;
+		}
+
 		for (Spectator spectator : spectators)
 			spectator.onRoundStarted(this, round);
 
@@ -286,11 +357,64 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	 */
 	private void notifySpectatorsMoveMade(Move move) {
 
+		if (eventBus != null) {
+			ScotlandYardView snapshot = state().publicView();
+			for (Spectator spectator : spectators)
+				eventBus.post(spectator, s -> s.onMoveMade(snapshot, move));
+			return;
+		}
+
 		for (Spectator spectator : spectators)
 			spectator.onMoveMade(this, move);
 
 	}
 
+	/**
+	 * Notifies all spectators in spectator list that the rotation is complete.
+	 */
+	private void notifySpectatorsRotationComplete() {
+
+		if (eventBus != null) {
+			ScotlandYardView snapshot = state().publicView();
+			for (Spectator spectator : spectators)
+				eventBus.post(spectator, s -> s.onRotationComplete(snapshot));
+			return;
+		}
+
+		for (Spectator spectator : spectators)
+			spectator.onRotationComplete(this);
+
+	}
+
+	/**
+	 * Notifies all spectators in spectator list that the game is over.
+	 */
+	private void notifySpectatorsGameOver() {
+
+		if (eventBus != null) {
+			ScotlandYardView snapshot = state().publicView();
+			for (Spectator spectator : spectators)
+				eventBus.post(spectator, s -> s.onGameOver(snapshot, snapshot.getWinningPlayers()));
+			return;
+		}
+
+		for (Spectator spectator : spectators)
+			spectator.onGameOver(this, getWinningPlayers());
+
+	}
+
+	/**
+	 * Delivers spectator events through an event bus instead of calling every
+	 * spectator on the thread that accepted the move. Spectators then receive
+	 * an immutable snapshot of the game rather than this model, which like
+	 * the model only reveals Mr X's last known location; use
+	 * {@link SpectatorEventBus#flush()} to wait for them to catch up.
+	 * @param eventBus the bus, or null to notify spectators directly.
+	 */
+	public void setEventBus(SpectatorEventBus eventBus) {
+		this.eventBus = eventBus;
+	}
+
 	/**
 	 * Accept move (if valid and non-null) and progress with the game (logicAfterMove).
 	 * @param move to process.
@@ -301,9 +425,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 		if (move == null)
 			throw new NullPointerException("Move can't be null");
 
-		Set<Move> validMoves = validMoves(currentPlayer);
-
-		if (!validMoves.contains(move))
+		if (!validMoves(currentPlayer).contains(move))
 			throw new IllegalArgumentException("Invalid move");
 
 		move.visit(this);
@@ -328,6 +450,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
 	/**
 	 * Removes a given spectator from spectator list (unless null or never added).
+	 * Events still queued for it on the event bus are discarded.
 	 * @param spectator to unregister.
 	 */
 	@Override
@@ -337,8 +460,11 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 			throw new NullPointerException("Spectator can't be null");
 		else if (!spectators.contains(spectator))
 			throw new IllegalArgumentException("Spectator has never been added");
-		else
+		else {
 			spectators.remove(spectator);
+			if (eventBus != null)
+				eventBus.remove(spectator);
+		}
 
 	}
 
@@ -348,84 +474,105 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	 * @return true if space occupied by detective, false otherwise.
 	 */
 	private boolean noDetectiveOnSpace(int space) {
-
-		for (ScotlandYardPlayer player : colourMap.values()) {
-			if (player.colour() != BLACK && player.location() == space)
-				return false;
-		}
-
-		return true;
-
+		return !TransportAdjacency.contains(detectiveLocations, space);
 	}
 
 	/**
-	 * Generates the set of valid moves for a player. If no moves are
-	 * possible, a single PassMove is added to the set.
-	 * @param colour of player for whom valid moves should be generated.
-	 * @return Set of valid moves the player can make.
+	 * Checks if a detective is on a particular space with a single bit test
+	 * against the occupancy bitset.
+	 * @param location the node number / location to check.
+	 * @return true if a detective occupies the location.
 	 */
-	private Set<Move> validMoves(Colour colour) {
-
-		ScotlandYardPlayer player = colourMap.get(colour);
-		Node<Integer> playerNode  = graph.getNode(player.location());
+	@Override
+	public boolean isDetectiveAt(int location) {
+		return TransportAdjacency.contains(detectiveLocations, location);
+	}
 
-		Set<Move> moves = new HashSet<>();
+	/**
+	 * Copies the ticket counts of a player into an array indexed by ticket
+	 * ordinal, as used by MoveGenerator. Every player has their own array,
+	 * reused between calls, so a sink generating the moves of another player
+	 * does not change the counts being generated from.
+	 * @param player the player whose tickets should be copied.
+	 * @return the ticket counts of the player.
+	 */
+	private int[] ticketCounts(ScotlandYardPlayer player) {
 
-		for (Edge<Integer, Transport> edge : graph.getEdgesFrom(playerNode)) {
+		int[] counts = ticketCounts[player.colour().ordinal()];
+		for (Ticket ticket : player.tickets().keySet())
+			counts[ticket.ordinal()] = player.tickets().get(ticket);
 
-			Ticket ticket   = Ticket.fromTransport(edge.data());
-			int destination = edge.destination().value();
-		
-			if ((player.hasTickets(ticket) || player.hasTickets(SECRET)) && noDetectiveOnSpace(destination)) {
+		return counts;
 
-				if (player.hasTickets(ticket))
-					moves.add(new TicketMove(colour, ticket, destination));
+	}
 
-				if (player.hasTickets(SECRET))
-					moves.add(new TicketMove(colour, SECRET, destination));
+	/**
+	 * Checks whether a player has at least one move other than a pass, without
+	 * generating any moves.
+	 * @param player the player to check.
+	 * @return true if the player can move, false if they would have to pass.
+	 */
+	private boolean hasAnyMove(ScotlandYardPlayer player) {
+		return MoveGenerator.hasAnyMove(adjacency, player.location(), ticketCounts(player), detectiveLocations);
+	}
 
-				if (player.hasTickets(DOUBLE) && round < rounds.size()-2) {
+	/**
+	 * Gives the set of valid moves for a player in the current state. The set
+	 * is generated at most once per player per state version, so the moves
+	 * handed to the current player are reused when their choice is validated.
+	 * @param colour of player for whom valid moves should be given.
+	 * @return immutable set of valid moves the player can make.
+	 */
+	private Set<Move> validMoves(Colour colour) {
 
-					for (Edge<Integer, Transport> edge2 : graph.getEdgesFrom(edge.destination())) {
+		if (cachedMoves == null || cachedMovesColour != colour || cachedMovesVersion != version) {
 
-						TicketMove move1 = new TicketMove(colour, ticket, destination);
-						Ticket ticket2   = Ticket.fromTransport(edge2.data());
-						int destination2 = edge2.destination().value();
+			cachedMoves = unmodifiableSet(generateValidMoves(colour));
+			cachedMovesColour = colour;
+			cachedMovesVersion = version;
 
-						if (noDetectiveOnSpace(destination2)) {
+		}
 
-							TicketMove move2 = new TicketMove(colour, ticket2, destination2);
-							boolean ticketsSame = (ticket == ticket2);
+		return cachedMoves;
 
-							if ((ticketsSame && player.hasTickets(ticket, 2)) ||
-									(!ticketsSame && player.hasTickets(ticket) && player.hasTickets(ticket2)))
-								moves.add(new DoubleMove(colour, move1, move2));
+	}
 
-							if (player.hasTickets(SECRET)) {
+	/**
+	 * Generates the set of valid moves for a player. If no moves are
+	 * possible, a single PassMove is added to the set.
+	 * @param colour of player for whom valid moves should be generated.
+	 * @return Set of valid moves the player can make.
+	 */
+	private Set<Move> generateValidMoves(Colour colour) {
 
-								TicketMove move1Secret = new TicketMove(colour, SECRET, destination);
-								TicketMove move2Secret = new TicketMove(colour, SECRET, destination2);
+		Set<Move> moves = new HashSet<>();
+		generateMoves(colour, move -> moves.add(MoveCodec.decode(move)));
+		return moves;
 
-								if (ticket != SECRET && ticket2 != SECRET && player.hasTickets(ticket))
-									moves.add(new DoubleMove(colour, move1, move2Secret));
+	}
 
-								if (ticket != SECRET && ticket2 != SECRET && player.hasTickets(ticket2))
-									moves.add(new DoubleMove(colour, move1Secret, move2));
+	/**
+	 * Streams the valid moves of a player in the current state into a sink
+	 * as moves encoded with MoveCodec, without allocating any Move objects.
+	 * If no moves are possible, a single pass move is emitted. Each move is
+	 * emitted once. The sink may generate the moves of other players, but
+	 * like the rest of the model this must not be called from several
+	 * threads at once.
+	 * @param colour of player for whom valid moves should be generated.
+	 * @param sink receives every encoded move.
+	 * @return the number of moves emitted, at least one.
+	 */
+	public int generateMoves(Colour colour, MoveSink sink) {
 
-								if (player.hasTickets(SECRET, 2))
-									moves.add(new DoubleMove(colour, move1Secret, move2Secret));
+		ScotlandYardPlayer player = colourMap.get(Objects.requireNonNull(colour));
 
-							}
-						}
-					}
-				}
-			}
-		}
+		if (player == null)
+			throw new IllegalArgumentException(colour + " is not in the game");
 
-		if (moves.isEmpty())
-			moves.add(new PassMove(colour));
+		boolean doubleAllowed = round < rounds.size() - 2;
 
-		return moves;
+		return MoveGenerator.generate(adjacency, colour, player.location(), ticketCounts(player),
+				doubleAllowed, detectiveLocations, Objects.requireNonNull(sink));
 
 	}
 
@@ -464,7 +611,7 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	private void giveMovesToCurrentPlayer(Set<Move> moves) {
 
 		ScotlandYardPlayer player = colourMap.get(currentPlayer);
-		player.player().makeMove(this, player.location(), moves, this);
+		player.player().makeMove(playerView, player.location(), moves, this);
 
 	}
 
@@ -493,8 +640,6 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	 */
 	@Override
 	public Set<Colour> getWinningPlayers() {
-
-        isGameOver(); // isGameOver updates the 'winners' set.
 		return unmodifiableSet(winners);
 
 	}
@@ -556,35 +701,86 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 	}
 
 	/**
-	 * Determines whether or not the game is over.
-	 * If over, adds the winner(s) to 'winners'.
-	 * @return true if game over, or false otherwise.
+	 * Records that locations, tickets, the round or the current player have
+	 * changed. Bumps the state version, which invalidates the cached valid
+	 * moves, and re-evaluates the game over conditions.
 	 */
-	@Override
-	public boolean isGameOver() {
+	private void stateChanged() {
+
+		version++;
+		updateKey();
+		updateGameOver();
+
+	}
+
+	/**
+	 * Brings the round, last known Mr X location and current player parts of
+	 * the Zobrist key up to date. Locations and tickets are kept up to date by
+	 * moveTo and updateTickets.
+	 */
+	private void updateKey() {
+
+		if (keyRound != round) {
+			key ^= Zobrist.round(keyRound) ^ Zobrist.round(round);
+			keyRound = round;
+		}
+
+		if (keyLastMrX != lastMrX) {
+			key ^= Zobrist.lastMrX(keyLastMrX) ^ Zobrist.lastMrX(lastMrX);
+			keyLastMrX = lastMrX;
+		}
 
-	    winners.clear();
+		if (keyCurrent != currentPlayer) {
+			key ^= Zobrist.current(keyCurrent) ^ Zobrist.current(currentPlayer);
+			keyCurrent = currentPlayer;
+		}
+
+	}
+
+	/**
+	 * The Zobrist key of the current position, see {@link Zobrist}. The key is
+	 * updated with every move rather than computed on demand.
+	 * @return the key of the current position.
+	 */
+	public long zobristKey() {
+
+		updateKey();
+		return key;
+
+	}
+
+	/**
+	 * Re-evaluates the game over conditions (capture, stuck players and
+	 * exhausted rounds) against the current state and updates 'winners'.
+	 * Called from stateChanged, so spectators and isGameOver only ever read
+	 * the result.
+	 */
+	private void updateGameOver() {
+
+		winners.clear();
 
-		boolean playerInMrXPosition = false;
 		ScotlandYardPlayer mrX = colourMap.get(BLACK);
-		int mrXPosition = mrX.location();
 		boolean noMoves = true;
-		boolean mrXStuck = (validMoves(BLACK).iterator().next() instanceof PassMove) && currentPlayer == BLACK;
 
 		for (ScotlandYardPlayer player : colourMap.values()) {
 
-			// Check if detective in same position as Mr X.
-			if (player.colour() != BLACK && player.location() == mrXPosition)
-				playerInMrXPosition = true;
+			if (player == mrX)
+				continue;
 
 			// Check if any detective has any moves remaining.
-			boolean playerHasNoPassMove = !(validMoves(player.colour()).iterator().next() instanceof PassMove);
-
-			if (player != mrX && playerHasNoPassMove)
+			if (hasAnyMove(player)) {
 				noMoves = false;
+				break;
+			}
 
 		}
 
+		// Check if detective in same position as Mr X.
+		boolean playerInMrXPosition = !noDetectiveOnSpace(mrX.location());
+
+		// Mr X is only stuck if it is his turn and he would have to pass.
+		boolean mrXStuck = currentPlayer == BLACK && !hasAnyMove(mrX);
+
 		// Check if max rounds exceeded.
 		boolean roundsExceeded = (round >= rounds.size() && currentPlayer == BLACK);
 
@@ -602,9 +798,41 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
 		}
 
-		// Return true if any of the game over conditions are satisfied.
-		// Winners are stored outside the function so are still accessible after return.
-		return (noMoves || roundsExceeded || playerInMrXPosition || mrXStuck);
+		gameOver = (noMoves || roundsExceeded || playerInMrXPosition || mrXStuck);
+
+	}
+
+	/**
+	 * Determines whether or not the game is over. The result is kept up to
+	 * date by updateGameOver after every change in state.
+	 * @return true if game over, or false otherwise.
+	 */
+	@Override
+	public boolean isGameOver() {
+		return gameOver;
+	}
+
+	/**
+	 * Takes an immutable snapshot of the game, including Mr X's actual
+	 * location. The snapshot is cached until the state changes, and every
+	 * snapshot of this game shares the same rounds and graph. Package-private
+	 * as players and spectators must not see where Mr X is.
+	 * @return the current state of the game.
+	 */
+	GameState state() {
+
+		if (state != null && stateVersion == version)
+			return state;
+
+		int mrXLocation = colourMap.get(BLACK).location();
+
+		if (state == null)
+			state = GameState.of(this, getRounds(), getGraph(), mrXLocation);
+		else
+			state = state.snapshot(this, mrXLocation);
+
+		stateVersion = version;
+		return state;
 
 	}
 
@@ -625,7 +853,65 @@ public class ScotlandYardModel implements ScotlandYardGame, Consumer<Move>, Move
 
 	@Override
 	public Graph<Integer, Transport> getGraph() {
-        return new ImmutableGraph<>(graph);
+		return graph;
+	}
+
+	/**
+	 * The view handed to players. It follows this model but is not the model,
+	 * so players cannot cast it to reach anything revealing Mr X's location.
+	 */
+	private final class PlayerView implements ScotlandYardView {
+
+		@Override
+		public List<Colour> getPlayers() {
+			return ScotlandYardModel.this.getPlayers();
+		}
+
+		@Override
+		public Set<Colour> getWinningPlayers() {
+			return ScotlandYardModel.this.getWinningPlayers();
+		}
+
+		@Override
+		public Optional<Integer> getPlayerLocation(Colour colour) {
+			return ScotlandYardModel.this.getPlayerLocation(colour);
+		}
+
+		@Override
+		public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
+			return ScotlandYardModel.this.getPlayerTickets(colour, ticket);
+		}
+
+		@Override
+		public boolean isDetectiveAt(int location) {
+			return ScotlandYardModel.this.isDetectiveAt(location);
+		}
+
+		@Override
+		public boolean isGameOver() {
+			return ScotlandYardModel.this.isGameOver();
+		}
+
+		@Override
+		public Colour getCurrentPlayer() {
+			return ScotlandYardModel.this.getCurrentPlayer();
+		}
+
+		@Override
+		public int getCurrentRound() {
+			return ScotlandYardModel.this.getCurrentRound();
+		}
+
+		@Override
+		public List<Boolean> getRounds() {
+			return ScotlandYardModel.this.getRounds();
+		}
+
+		@Override
+		public Graph<Integer, Transport> getGraph() {
+			return ScotlandYardModel.this.getGraph();
+		}
+
 	}
 
 }
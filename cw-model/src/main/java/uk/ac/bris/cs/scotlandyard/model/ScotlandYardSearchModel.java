@@ -0,0 +1,443 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static java.util.Collections.unmodifiableList;
+import static java.util.Collections.unmodifiableSet;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.DOUBLE;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+
+/**
+ * A spectator-free copy of a Scotland Yard game for tree search. Moves are
+ * applied in place with {@link #apply(long)} and taken back with
+ * {@link #undo()}, which restores locations, tickets, the round, Mr X's last
+ * known location and the current player exactly.
+ *
+ * Moves follow the same rules as {@link ScotlandYardModel} but are not
+ * validated; only apply moves generated for the current player.
+ */
+public class ScotlandYardSearchModel implements ScotlandYardView {
+
+	private static final int TICKET_TYPES = Ticket.values().length;
+	private static final int FRAME_SIZE = 4;
+
+	private final List<Colour> players;
+	private final List<Boolean> rounds;
+	private final Graph<Integer, Transport> graph;
+	private final TransportAdjacency adjacency;
+	private final int[] playerIndex = new int[Colour.values().length];
+
+	private final int[] locations;
+	private final int[][] tickets;
+	private final long[] detectiveLocations;
+	private int round;
+	private int lastMrX;
+	private int current;
+	private long key;
+
+	// Each applied move pushes the move and a frame of the state it changed.
+	private long[] moveStack = new long[64];
+	private long[] keyStack = new long[64];
+	private int[] frameStack = new int[64 * FRAME_SIZE];
+	private int depth = 0;
+
+	private int version = 0;
+	private int evaluatedVersion = -1;
+	private boolean gameOver;
+	private final Set<Colour> winners = EnumSet.noneOf(Colour.class);
+
+	/**
+	 * Creates a search model from the current state of a game. The view only
+	 * reveals Mr X's last known location, so his actual location is given
+	 * separately.
+	 *
+	 * @param view the view of the game; not null
+	 * @param mrXLocation where Mr X actually is, or where he is assumed to be
+	 */
+	public ScotlandYardSearchModel(ScotlandYardView view, int mrXLocation) {
+
+		Objects.requireNonNull(view);
+
+		this.players = unmodifiableList(new ArrayList<>(view.getPlayers()));
+		this.rounds = view.getRounds();
+		this.graph = view.getGraph();
+		this.adjacency = TransportAdjacency.cached(graph);
+
+		if (players.get(0) != BLACK)
+			throw new IllegalArgumentException("MrX should be the first player");
+
+		Arrays.fill(playerIndex, -1);
+		locations = new int[players.size()];
+		tickets = new int[players.size()][TICKET_TYPES];
+
+		for (int i = 0; i < players.size(); i++) {
+
+			Colour colour = players.get(i);
+			playerIndex[colour.ordinal()] = i;
+
+			for (Ticket ticket : Ticket.values())
+				tickets[i][ticket.ordinal()] = view.getPlayerTickets(colour, ticket)
+						.orElseThrow(IllegalArgumentException::new);
+
+			if (colour.isDetective())
+				locations[i] = view.getPlayerLocation(colour)
+						.orElseThrow(IllegalArgumentException::new);
+
+		}
+
+		locations[0] = mrXLocation;
+
+		int largestLocation = 0;
+		for (int location : locations)
+			largestLocation = Math.max(largestLocation, location);
+		detectiveLocations = adjacency.newNodeSet(largestLocation);
+		for (int i = 1; i < locations.length; i++)
+			TransportAdjacency.add(detectiveLocations, locations[i]);
+		lastMrX = view.getPlayerLocation(BLACK).orElse(0);
+		round = view.getCurrentRound();
+		current = indexOf(view.getCurrentPlayer());
+		key = Zobrist.of(view, mrXLocation);
+
+	}
+
+	private int indexOf(Colour colour) {
+		int index = playerIndex[Objects.requireNonNull(colour).ordinal()];
+		if (index < 0) throw new IllegalArgumentException(colour + " is not in the game");
+		return index;
+	}
+
+	/**
+	 * Applies a move for the current player. Same as
+	 * {@code apply(MoveCodec.encode(move))}.
+	 *
+	 * @param move the move; not null
+	 */
+	public void apply(Move move) {
+		apply(MoveCodec.encode(move));
+	}
+
+	/**
+	 * Applies an encoded move for the current player, see {@link MoveCodec}.
+	 * The move is not validated beyond its colour.
+	 *
+	 * @param move the encoded move
+	 * @throws IllegalArgumentException if the move is not for the current
+	 *         player
+	 */
+	public void apply(long move) {
+
+		if (MoveCodec.colour(move) != players.get(current))
+			throw new IllegalArgumentException("Move " + MoveCodec.toString(move)
+					+ " is not for the current player " + players.get(current));
+
+		push(move);
+
+		int mover = current;
+		int previousRound = round;
+		int previousLastMrX = lastMrX;
+		current = (current + 1) % players.size();
+
+		switch (MoveCodec.kind(move)) {
+
+			case MoveCodec.PASS_MOVE:
+				if (mover == 0)
+					round++;
+				break;
+
+			case MoveCodec.TICKET_MOVE:
+				Ticket ticket = MoveCodec.ticket(move);
+				int destination = MoveCodec.destination(move);
+				if (mover == 0) {
+					if (round < rounds.size() && rounds.get(round))
+						lastMrX = destination;
+					round++;
+				} else {
+					// Detectives transfer their tickets to Mr X.
+					addTickets(0, ticket, 1);
+				}
+				addTickets(mover, ticket, -1);
+				moveTo(mover, destination);
+				break;
+
+			case MoveCodec.DOUBLE_MOVE:
+				addTickets(0, DOUBLE, -1);
+				addTickets(0, MoveCodec.ticket(move), -1);
+				addTickets(0, MoveCodec.secondTicket(move), -1);
+				if (round < rounds.size() && rounds.get(round))
+					lastMrX = MoveCodec.destination(move);
+				if (round + 1 < rounds.size() && rounds.get(round + 1))
+					lastMrX = MoveCodec.secondDestination(move);
+				round += 2;
+				moveTo(0, MoveCodec.secondDestination(move));
+				break;
+
+			default:
+				throw new IllegalArgumentException("Not an encoded move: " + move);
+
+		}
+
+		key ^= Zobrist.current(players.get(mover)) ^ Zobrist.current(players.get(current));
+		if (round != previousRound)
+			key ^= Zobrist.round(previousRound) ^ Zobrist.round(round);
+		if (lastMrX != previousLastMrX)
+			key ^= Zobrist.lastMrX(previousLastMrX) ^ Zobrist.lastMrX(lastMrX);
+
+		version++;
+
+	}
+
+	/**
+	 * Takes back the last applied move
+	 *
+	 * @throws IllegalStateException if there is no move to take back
+	 */
+	public void undo() {
+
+		if (depth == 0)
+			throw new IllegalStateException("No move to undo");
+
+		depth--;
+		long move = moveStack[depth];
+		int frame = depth * FRAME_SIZE;
+		int mover = frameStack[frame];
+		round = frameStack[frame + 1];
+		lastMrX = frameStack[frame + 2];
+		current = mover;
+
+		switch (MoveCodec.kind(move)) {
+
+			case MoveCodec.TICKET_MOVE:
+				Ticket ticket = MoveCodec.ticket(move);
+				tickets[mover][ticket.ordinal()]++;
+				if (mover != 0)
+					tickets[0][ticket.ordinal()]--;
+				break;
+
+			case MoveCodec.DOUBLE_MOVE:
+				tickets[0][DOUBLE.ordinal()]++;
+				tickets[0][MoveCodec.ticket(move).ordinal()]++;
+				tickets[0][MoveCodec.secondTicket(move).ordinal()]++;
+				break;
+
+			default:
+				break;
+
+		}
+
+		moveTo(mover, frameStack[frame + 3]);
+		key = keyStack[depth];
+		version++;
+
+	}
+
+	private void push(long move) {
+
+		if (depth == moveStack.length) {
+			moveStack = Arrays.copyOf(moveStack, depth * 2);
+			keyStack = Arrays.copyOf(keyStack, depth * 2);
+			frameStack = Arrays.copyOf(frameStack, depth * 2 * FRAME_SIZE);
+		}
+
+		int frame = depth * FRAME_SIZE;
+		frameStack[frame] = current;
+		frameStack[frame + 1] = round;
+		frameStack[frame + 2] = lastMrX;
+		frameStack[frame + 3] = locations[current];
+		keyStack[depth] = key;
+		moveStack[depth++] = move;
+
+	}
+
+	private void moveTo(int player, int location) {
+
+		if (player != 0) {
+			TransportAdjacency.remove(detectiveLocations, locations[player]);
+			TransportAdjacency.add(detectiveLocations, location);
+		}
+
+		Colour colour = players.get(player);
+		key ^= Zobrist.location(colour, locations[player]) ^ Zobrist.location(colour, location);
+		locations[player] = location;
+
+	}
+
+	private void addTickets(int player, Ticket ticket, int change) {
+		int before = tickets[player][ticket.ordinal()];
+		tickets[player][ticket.ordinal()] = before + change;
+		key ^= Zobrist.ticketsChanged(players.get(player), ticket, before, before + change);
+	}
+
+	/**
+	 * The Zobrist key of the current position, see {@link Zobrist}. The key is
+	 * updated with every applied move and restored by {@link #undo()}.
+	 *
+	 * @return the key of the current position
+	 */
+	public long zobristKey() {
+		return key;
+	}
+
+	/**
+	 * @return the number of applied moves that can be taken back with
+	 *         {@link #undo()}
+	 */
+	public int depth() {
+		return depth;
+	}
+
+	/**
+	 * Streams the valid moves of the current player into a sink, see
+	 * {@link MoveGenerator#generate}
+	 *
+	 * @param sink receives the encoded moves; not null
+	 * @return the number of moves emitted, at least one
+	 */
+	public int generateMoves(MoveSink sink) {
+		return generateMoves(players.get(current), sink);
+	}
+
+	/**
+	 * Streams the valid moves of a player into a sink, see
+	 * {@link MoveGenerator#generate}
+	 *
+	 * @param colour the colour of the player; not null
+	 * @param sink receives the encoded moves; not null
+	 * @return the number of moves emitted, at least one
+	 */
+	public int generateMoves(Colour colour, MoveSink sink) {
+		int index = indexOf(colour);
+		return MoveGenerator.generate(adjacency, colour, locations[index], tickets[index],
+				round < rounds.size() - 2, detectiveLocations, Objects.requireNonNull(sink));
+	}
+
+	/**
+	 * The actual location of a player, including Mr X when he is hidden
+	 *
+	 * @param colour the colour of the player; not null
+	 * @return the location of the player
+	 */
+	public int location(Colour colour) {
+		return locations[indexOf(colour)];
+	}
+
+	/**
+	 * The number of tickets of a type a player holds
+	 *
+	 * @param colour the colour of the player; not null
+	 * @param ticket the ticket type; not null
+	 * @return the number of tickets
+	 */
+	public int tickets(Colour colour, Ticket ticket) {
+		return tickets[indexOf(colour)][ticket.ordinal()];
+	}
+
+	private void evaluate() {
+
+		if (evaluatedVersion == version)
+			return;
+
+		winners.clear();
+
+		boolean noMoves = true;
+
+		for (int i = 1; i < players.size(); i++) {
+			if (MoveGenerator.hasAnyMove(adjacency, locations[i], tickets[i], detectiveLocations)) {
+				noMoves = false;
+				break;
+			}
+		}
+
+		boolean captured = TransportAdjacency.contains(detectiveLocations, locations[0]);
+		boolean mrXTurn = current == 0;
+		boolean mrXStuck = mrXTurn
+				&& !MoveGenerator.hasAnyMove(adjacency, locations[0], tickets[0], detectiveLocations);
+		boolean roundsExceeded = mrXTurn && round >= rounds.size();
+
+		if (captured || mrXStuck)
+			winners.addAll(players.subList(1, players.size()));
+		else if (roundsExceeded || noMoves)
+			winners.add(BLACK);
+
+		gameOver = noMoves || roundsExceeded || captured || mrXStuck;
+		evaluatedVersion = version;
+
+	}
+
+	@Override
+	public List<Colour> getPlayers() {
+		return players;
+	}
+
+	@Override
+	public Set<Colour> getWinningPlayers() {
+		evaluate();
+		return unmodifiableSet(winners);
+	}
+
+	@Override
+	public Optional<Integer> getPlayerLocation(Colour colour) {
+
+		int index = playerIndex[colour.ordinal()];
+
+		if (index < 0)
+			return Optional.empty();
+
+		if (index == 0 && (round == 0 || !rounds.get(round - 1)))
+			return Optional.of(lastMrX);
+
+		return Optional.of(locations[index]);
+
+	}
+
+	@Override
+	public Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket) {
+
+		int index = playerIndex[colour.ordinal()];
+
+		if (index < 0)
+			return Optional.empty();
+
+		return Optional.of(tickets[index][ticket.ordinal()]);
+
+	}
+
+	@Override
+	public boolean isDetectiveAt(int location) {
+		return TransportAdjacency.contains(detectiveLocations, location);
+	}
+
+	@Override
+	public boolean isGameOver() {
+		evaluate();
+		return gameOver;
+	}
+
+	@Override
+	public Colour getCurrentPlayer() {
+		return players.get(current);
+	}
+
+	@Override
+	public int getCurrentRound() {
+		return round;
+	}
+
+	@Override
+	public List<Boolean> getRounds() {
+		return rounds;
+	}
+
+	@Override
+	public Graph<Integer, Transport> getGraph() {
+		return graph;
+	}
+
+}
@@ -63,6 +63,23 @@ public interface ScotlandYardView {
 	 */
 	Optional<Integer> getPlayerTickets(Colour colour, Ticket ticket);
 
+	/**
+	 * Whether any detective is currently at a given location. The default
+	 * implementation checks the location of every detective; game models
+	 * should override it with a constant time lookup.
+	 *
+	 * @param location the location to test
+	 * @return true if a detective occupies the location, false otherwise
+	 */
+	default boolean isDetectiveAt(int location) {
+		for (Colour colour : getPlayers()) {
+			if (colour.isDetective()
+					&& getPlayerLocation(colour).filter(l -> l == location).isPresent())
+				return true;
+		}
+		return false;
+	}
+
 	/**
 	 * The game is over when Mr.X has been found or that all detectives are
 	 * stuck.
@@ -0,0 +1,217 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * Delivers spectator events off the thread that plays the game. Every
+ * spectator gets its own bounded queue, which is drained in batches on an
+ * executor by at most one task at a time, so each spectator still sees its
+ * events in order while a slow spectator only delays itself. When a queue is
+ * full the game waits for that spectator to catch up.
+ *
+ * Events carry an immutable {@link GameState#publicView()} instead of the live
+ * model, so spectators see the game as it was when the event happened.
+ */
+public final class SpectatorEventBus implements AutoCloseable {
+
+	/**
+	 * An event waiting to be delivered
+	 */
+	@FunctionalInterface
+	interface Event {
+		void deliver(Spectator spectator);
+	}
+
+	/**
+	 * The queue of one spectator
+	 */
+	private final class Channel implements Runnable {
+
+		final Spectator spectator;
+		final BlockingQueue<Event> queue = new ArrayBlockingQueue<>(capacity);
+		final AtomicBoolean scheduled = new AtomicBoolean();
+		final List<Event> batch = new ArrayList<>(batchSize);
+		volatile boolean removed = false;
+
+		Channel(Spectator spectator) {
+			this.spectator = spectator;
+		}
+
+		void schedule() {
+			if (queue.isEmpty() || !scheduled.compareAndSet(false, true)) return;
+			try {
+				executor.execute(this);
+			} catch (RejectedExecutionException e) {
+				// Nothing will drain the queue, so drop it rather than block flush.
+				List<Event> dropped = new ArrayList<>();
+				queue.drainTo(dropped);
+				delivered(dropped.size());
+				scheduled.set(false);
+				exceptionHandler.accept(e);
+			}
+		}
+
+		@Override
+		public void run() {
+			try {
+				queue.drainTo(batch, batchSize);
+				for (Event event : batch) {
+					if (removed) break;
+					try {
+						event.deliver(spectator);
+					} catch (Throwable e) {
+						exceptionHandler.accept(e);
+					}
+				}
+			} finally {
+				delivered(batch.size());
+				batch.clear();
+				scheduled.set(false);
+				// Events posted while this batch was delivered still need a drain.
+				schedule();
+			}
+		}
+
+	}
+
+	private final Executor executor;
+	private final ExecutorService ownedExecutor;
+	private final int capacity;
+	private final int batchSize;
+	private final Consumer<Throwable> exceptionHandler;
+	private final Map<Spectator, Channel> channels = new ConcurrentHashMap<>();
+	private final Object lock = new Object();
+	private long pending = 0;
+	private volatile boolean closed = false;
+
+	/**
+	 * Creates a bus with its own daemon threads, queues of 1024 events and
+	 * batches of up to 64 events. Spectator exceptions are printed.
+	 */
+	public SpectatorEventBus() {
+		this(Executors.newCachedThreadPool(runnable -> {
+			Thread thread = new Thread(runnable, "spectator-event-bus");
+			thread.setDaemon(true);
+			return thread;
+		}), true, 1024, 64, Throwable::printStackTrace);
+	}
+
+	/**
+	 * Creates a bus that drains queues on the given executor
+	 *
+	 * @param executor runs the drain tasks; not null
+	 * @param capacity the number of events each spectator may have queued,
+	 *        must be &gt; 0
+	 * @param batchSize the maximum number of events delivered per drain task,
+	 *        must be &gt; 0
+	 * @param exceptionHandler receives anything thrown by spectators, and
+	 *        the rejection if the executor refuses a drain task; not null
+	 */
+	public SpectatorEventBus(Executor executor, int capacity, int batchSize,
+			Consumer<Throwable> exceptionHandler) {
+		this(executor, false, capacity, batchSize, exceptionHandler);
+	}
+
+	private SpectatorEventBus(Executor executor, boolean owned, int capacity, int batchSize,
+			Consumer<Throwable> exceptionHandler) {
+		if (capacity < 1) throw new IllegalArgumentException("capacity must be > 0, got " + capacity);
+		if (batchSize < 1) throw new IllegalArgumentException("batchSize must be > 0, got " + batchSize);
+		this.executor = Objects.requireNonNull(executor);
+		this.ownedExecutor = owned ? (ExecutorService) executor : null;
+		this.capacity = capacity;
+		this.batchSize = batchSize;
+		this.exceptionHandler = Objects.requireNonNull(exceptionHandler);
+	}
+
+	/**
+	 * Queues an event for a spectator, waiting if the spectator's queue is full
+	 *
+	 * @throws IllegalStateException if the bus is closed
+	 */
+	void post(Spectator spectator, Event event) {
+
+		if (closed) throw new IllegalStateException("Spectator event bus is closed");
+
+		Channel channel = channels.computeIfAbsent(spectator, Channel::new);
+
+		synchronized (lock) {
+			pending++;
+		}
+
+		try {
+			channel.queue.put(event);
+		} catch (InterruptedException e) {
+			delivered(1);
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while queueing a spectator event", e);
+		}
+
+		channel.schedule();
+
+	}
+
+	/**
+	 * Stops delivering events to a spectator, discarding the ones still
+	 * queued. Events posted for it afterwards are delivered again.
+	 *
+	 * @param spectator the spectator; not null
+	 */
+	void remove(Spectator spectator) {
+		Channel channel = channels.remove(Objects.requireNonNull(spectator));
+		if (channel == null) return;
+		channel.removed = true;
+		List<Event> dropped = new ArrayList<>();
+		channel.queue.drainTo(dropped);
+		delivered(dropped.size());
+	}
+
+	private void delivered(int count) {
+		synchronized (lock) {
+			pending -= count;
+			if (pending == 0) lock.notifyAll();
+		}
+	}
+
+	/**
+	 * Waits until every queued event has been delivered
+	 *
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public void flush() throws InterruptedException {
+		synchronized (lock) {
+			while (pending != 0)
+				lock.wait();
+		}
+	}
+
+	/**
+	 * Stops accepting events, delivers every queued event and, if the bus
+	 * created its own threads, shuts them down. If interrupted, stops waiting
+	 * for delivery and keeps the interrupt status.
+	 */
+	@Override
+	public void close() {
+		closed = true;
+		try {
+			flush();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		} finally {
+			if (ownedExecutor != null)
+				ownedExecutor.shutdown();
+		}
+	}
+
+}
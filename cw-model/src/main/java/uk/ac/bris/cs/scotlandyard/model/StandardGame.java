@@ -16,7 +16,6 @@ import java.util.Map.Entry;
 import java.util.Random;
 import java.util.Set;
 import java.util.stream.IntStream;
-import java.util.stream.Stream;
 
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
 
@@ -132,23 +131,31 @@ public class StandardGame {
 
 	public static final int MAP_OFFSET = 60;
 
+	/**
+	 * The compiled form of graph.txt and pos.txt, see {@link BinaryMap}. The
+	 * build generates it from the text files, which are read instead when it
+	 * is missing, e.g. when built outside Maven.
+	 */
+	private static final String BINARY_MAP = "graph.bin";
+
 	public static Map<Integer, Entry<Integer, Integer>> pngMapPositionEntries() throws IOException {
-		List<String> lines = readString("pos.txt");
+		BinaryMap binary = BinaryMap.readResource(BINARY_MAP);
+		Map<Integer, Entry<Integer, Integer>> positions = binary != null
+				? binary.coordinates()
+				: BinaryMap.parseCoordinates(readString("pos.txt"));
 		Map<Integer, Entry<Integer, Integer>> map = new HashMap<>();
-		for (String line : lines) {
-			Integer[] values = Stream.of(line.split("\\s+")).map(Integer::parseInt)
-					.toArray(Integer[]::new);
-			if (values.length != 3) continue;
-			map.put(values[0],
-					new SimpleImmutableEntry<>(
-							values[1] + MAP_OFFSET,
-							values[2] + MAP_OFFSET));
-		}
+		for (Entry<Integer, Entry<Integer, Integer>> entry : positions.entrySet())
+			map.put(entry.getKey(), new SimpleImmutableEntry<>(
+					entry.getValue().getKey() + MAP_OFFSET,
+					entry.getValue().getValue() + MAP_OFFSET));
 		return Collections.unmodifiableMap(map);
 	}
 
 	public static ImmutableGraph<Integer, Transport> standardGraph() throws IOException {
-		return ScotlandYardGraphReader.fromLines(readString("graph.txt"));
+		BinaryMap binary = BinaryMap.readResource(BINARY_MAP);
+		if (binary != null)
+			return new ImmutableGraph<>(binary.graph());
+		return new ImmutableGraph<>(ScotlandYardGraphReader.intGraphFromLines(readString("graph.txt")));
 	}
 
 	private static List<String> readString(String resource) throws IOException {
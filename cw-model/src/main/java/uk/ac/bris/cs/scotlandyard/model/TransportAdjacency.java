@@ -0,0 +1,361 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import java.util.Arrays;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.matrix.BitMatrix;
+
+/**
+ * The neighbours of every node by transport, stored as sparse bitsets so that
+ * neighbour queries are word-level bitwise operations.
+ *
+ * Node sets are plain {@code long[]} bitsets where node {@code n} is bit
+ * {@code n & 63} of word {@code n >>> 6}; create them with
+ * {@link #newNodeSet(int)} and update them with {@link #add(long[], int)} and
+ * {@link #remove(long[], int)}. Transports are selected with a mask of
+ * {@code 1 << transport.ordinal()} bits, see {@link #mask(Transport)} and
+ * {@link #mask(Ticket)}.
+ *
+ * Each (node, transport) row only stores the non-zero words of its bitset
+ * along with their word index, so the index stays proportional to the number
+ * of edges however large the map is. Every node also has a row for the union
+ * of all transports, which is what a secret ticket can reach.
+ */
+public final class TransportAdjacency {
+
+	/**
+	 * Mask selecting every transport
+	 */
+	public static final int ALL = (1 << Transport.values().length) - 1;
+
+	private static final int TRANSPORTS = Transport.values().length;
+	private static final int ROWS = TRANSPORTS + 1;
+	private static final int ANY = TRANSPORTS;
+
+	private static final GraphCache<TransportAdjacency> cache = new GraphCache<>(1);
+
+	private final int maxNodeId;
+	private final int[] rows;
+	private final int[] wordIndices;
+	private final long[] words;
+
+	private TransportAdjacency(int maxNodeId, int[] rows, int[] wordIndices, long[] words) {
+		this.maxNodeId = maxNodeId;
+		this.rows = rows;
+		this.wordIndices = wordIndices;
+		this.words = words;
+	}
+
+	/**
+	 * Returns the index of a map, building it only if it is not already
+	 * cached for that map instance
+	 *
+	 * @param graph the map; not null
+	 * @return the index; never null
+	 */
+	public static TransportAdjacency cached(Graph<Integer, Transport> graph) {
+		return cache.get(graph, 0, () -> of(IntGraph.of(graph)));
+	}
+
+	/**
+	 * Builds the index of a map
+	 *
+	 * @param graph the map; not null
+	 * @return the index; never null
+	 */
+	public static TransportAdjacency of(IntGraph<Transport> graph) {
+
+		Objects.requireNonNull(graph);
+
+		int maxNodeId = Math.max(graph.maxNodeId(), 0);
+		int[] rows = new int[(maxNodeId + 1) * ROWS + 1];
+		// A row never has more words than edges, so this bounds the whole index.
+		int[] wordIndices = new int[graph.edgeCount() * 2];
+		long[] words = new long[graph.edgeCount() * 2];
+		long[] scratch = new long[(maxNodeId >>> 6) + 1];
+		int[] touched = new int[scratch.length];
+		int size = 0;
+
+		// An empty map has no nodes to walk and leaves every row empty.
+		for (int node = 0; node <= graph.maxNodeId(); node++) {
+			for (int row = 0; row < ROWS; row++) {
+
+				rows[node * ROWS + row] = size;
+				int count = 0;
+
+				for (int edge = graph.edgeStart(node), end = graph.edgeEnd(node); edge < end; edge++) {
+
+					if (row != ANY && graph.data(edge).ordinal() != row)
+						continue;
+
+					int target = graph.target(edge);
+					int word = target >>> 6;
+					if (scratch[word] == 0)
+						touched[count++] = word;
+					scratch[word] |= 1L << target;
+
+				}
+
+				// Rows are small, so an insertion sort keeps word indices ascending.
+				for (int i = 1; i < count; i++) {
+					int word = touched[i];
+					int j = i - 1;
+					for (; j >= 0 && touched[j] > word; j--)
+						touched[j + 1] = touched[j];
+					touched[j + 1] = word;
+				}
+
+				for (int i = 0; i < count; i++) {
+					wordIndices[size] = touched[i];
+					words[size++] = scratch[touched[i]];
+					scratch[touched[i]] = 0;
+				}
+
+			}
+		}
+
+		rows[rows.length - 1] = size;
+		return new TransportAdjacency(maxNodeId, rows,
+				Arrays.copyOf(wordIndices, size), Arrays.copyOf(words, size));
+
+	}
+
+	/**
+	 * @param transport the transport; not null
+	 * @return the mask selecting the transport
+	 */
+	public static int mask(Transport transport) {
+		return 1 << transport.ordinal();
+	}
+
+	/**
+	 * @param ticket the ticket; not null
+	 * @return the mask selecting the transports the ticket can be used on;
+	 *         {@link #ALL} for a secret ticket and 0 for a double ticket
+	 */
+	public static int mask(Ticket ticket) {
+		switch (Objects.requireNonNull(ticket)) {
+			case TAXI:
+				return mask(Transport.TAXI);
+			case BUS:
+				return mask(Transport.BUS);
+			case UNDERGROUND:
+				return mask(Transport.UNDERGROUND);
+			case SECRET:
+				return ALL;
+			default:
+				return 0;
+		}
+	}
+
+	/**
+	 * @return the largest node id of the map
+	 */
+	public int maxNodeId() {
+		return maxNodeId;
+	}
+
+	/**
+	 * Creates an empty node set that can hold every node of the map
+	 *
+	 * @param largestNode the largest node that must fit in addition to the
+	 *        nodes of the map, must be &gt;= 0
+	 * @return the empty node set; never null
+	 */
+	public long[] newNodeSet(int largestNode) {
+		if (largestNode < 0) throw new IllegalArgumentException("largestNode must be >= 0");
+		return new long[(Math.max(largestNode, maxNodeId) >>> 6) + 1];
+	}
+
+	/**
+	 * Adds a node to a node set
+	 *
+	 * @param set the node set; not null
+	 * @param node the node, must fit in the set
+	 */
+	public static void add(long[] set, int node) {
+		set[node >>> 6] |= 1L << node;
+	}
+
+	/**
+	 * Removes a node from a node set
+	 *
+	 * @param set the node set; not null
+	 * @param node the node, must fit in the set
+	 */
+	public static void remove(long[] set, int node) {
+		set[node >>> 6] &= ~(1L << node);
+	}
+
+	/**
+	 * @param set the node set; not null
+	 * @param node any node
+	 * @return whether the set contains the node; false for nodes that do not
+	 *         fit in the set
+	 */
+	public static boolean contains(long[] set, int node) {
+		return node >= 0 && (node >>> 6) < set.length && (set[node >>> 6] & 1L << node) != 0;
+	}
+
+	/**
+	 * The first entry of the row of a node. Entry {@code i} of a row covers
+	 * nodes {@code wordIndex(i) * 64} to {@code wordIndex(i) * 64 + 63} and
+	 * {@link #word(int)} holds the neighbours among them.
+	 *
+	 * @param node the node; nodes outside the map have empty rows
+	 * @param transport the transport, or null for all transports
+	 * @return the first entry of the row
+	 */
+	public int rowStart(int node, Transport transport) {
+		int row = row(node, transport);
+		return row < 0 ? 0 : rows[row];
+	}
+
+	/**
+	 * @param node the node; nodes outside the map have empty rows
+	 * @param transport the transport, or null for all transports
+	 * @return one past the last entry of the row
+	 * @see #rowStart(int, Transport)
+	 */
+	public int rowEnd(int node, Transport transport) {
+		int row = row(node, transport);
+		return row < 0 ? 0 : rows[row + 1];
+	}
+
+	/**
+	 * @param entry an entry of a row
+	 * @return the index of the word the entry covers
+	 */
+	public int wordIndex(int entry) {
+		return wordIndices[entry];
+	}
+
+	/**
+	 * @param entry an entry of a row
+	 * @return the neighbours covered by the entry
+	 */
+	public long word(int entry) {
+		return words[entry];
+	}
+
+	private int row(int node, Transport transport) {
+		if (node < 0 || node > maxNodeId)
+			return -1;
+		return node * ROWS + (transport == null ? ANY : transport.ordinal());
+	}
+
+	/**
+	 * Checks whether a node has a neighbour by any of the given transports
+	 * outside a set of excluded nodes
+	 *
+	 * @param node the node
+	 * @param mask the transports to use
+	 * @param excluded the excluded nodes, as made by
+	 *        {@link #newNodeSet(int)}; not null
+	 * @return true if there is such a neighbour
+	 */
+	public boolean hasNeighbour(int node, int mask, long[] excluded) {
+
+		if (node < 0 || node > maxNodeId || (mask &= ALL) == 0)
+			return false;
+
+		int base = node * ROWS;
+
+		if (mask == ALL)
+			return anyOutside(base + ANY, excluded);
+
+		for (int transport = 0; transport < TRANSPORTS; transport++)
+			if ((mask & 1 << transport) != 0 && anyOutside(base + transport, excluded))
+				return true;
+
+		return false;
+
+	}
+
+	private boolean anyOutside(int row, long[] excluded) {
+		for (int i = rows[row], end = rows[row + 1]; i < end; i++)
+			if ((words[i] & ~excluded[wordIndices[i]]) != 0)
+				return true;
+		return false;
+	}
+
+	/**
+	 * Adds the neighbours of a node by any of the given transports, other
+	 * than the excluded nodes, to a node set
+	 *
+	 * @param node the node
+	 * @param mask the transports to use
+	 * @param excluded the excluded nodes, or null to exclude nothing
+	 * @param into the node set receiving the neighbours; not null
+	 */
+	public void neighbours(int node, int mask, long[] excluded, long[] into) {
+
+		if (node < 0 || node > maxNodeId || (mask &= ALL) == 0)
+			return;
+
+		int base = node * ROWS;
+
+		if (mask == ALL) {
+			orOutside(base + ANY, excluded, into);
+			return;
+		}
+
+		for (int transport = 0; transport < TRANSPORTS; transport++)
+			if ((mask & 1 << transport) != 0)
+				orOutside(base + transport, excluded, into);
+
+	}
+
+	private void orOutside(int row, long[] excluded, long[] into) {
+		for (int i = rows[row], end = rows[row + 1]; i < end; i++) {
+			int word = wordIndices[i];
+			into[word] |= excluded == null ? words[i] : words[i] & ~excluded[word];
+		}
+	}
+
+	/**
+	 * Adds every node one step away from a set of nodes by any of the given
+	 * transports, other than the excluded nodes, to a node set. The source and
+	 * target sets may be the same array.
+	 *
+	 * @param from the nodes to step from; not null
+	 * @param mask the transports to use
+	 * @param excluded the excluded nodes, or null to exclude nothing
+	 * @param into the node set receiving the nodes reached; not null
+	 */
+	public void reachable(long[] from, int mask, long[] excluded, long[] into) {
+
+		if (from == into)
+			from = from.clone();
+
+		for (int word = 0, limit = Math.min(from.length, (maxNodeId >>> 6) + 1); word < limit; word++) {
+			for (long bits = from[word]; bits != 0; bits &= bits - 1)
+				neighbours((word << 6) + Long.numberOfTrailingZeros(bits), mask, excluded, into);
+		}
+
+	}
+
+	/**
+	 * Builds the adjacency matrix of the given transports, e.g. for
+	 * reachability over several moves with {@link BitMatrix#power(int)}
+	 *
+	 * @param mask the transports to use
+	 * @return the matrix, indexed by node, where cell (a, b) is set if b is a
+	 *         neighbour of a by one of the transports; never null
+	 */
+	public BitMatrix matrix(int mask) {
+		BitMatrix matrix = new BitMatrix(maxNodeId + 1);
+		long[] row = newNodeSet(0);
+		for (int node = 0; node <= maxNodeId; node++) {
+			Arrays.fill(row, 0);
+			neighbours(node, mask, null, row);
+			for (int word = 0; word < row.length; word++)
+				for (long bits = row[word]; bits != 0; bits &= bits - 1)
+					matrix.set(node, (word << 6) + Long.numberOfTrailingZeros(bits));
+		}
+		return matrix;
+	}
+
+}
@@ -0,0 +1,125 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+/**
+ * 64-bit Zobrist keys for Scotland Yard positions. The key of a position is
+ * the XOR of one key per feature: the location of every player, every ticket
+ * count, the round, Mr X's last known location and the player to move. A move
+ * changes only a few features, so keys are updated in constant time by
+ * XOR-ing the old feature keys out and the new ones in.
+ *
+ * Feature keys are derived by hashing the feature with SplitMix64 rather than
+ * read from a table, so they work for maps of any size and are the same in
+ * every run.
+ */
+public final class Zobrist {
+
+	private static final int LOCATION = 1;
+	private static final int TICKETS = 2;
+	private static final int ROUND = 3;
+	private static final int LAST_MRX = 4;
+	private static final int CURRENT = 5;
+
+	private Zobrist() {
+		// nope
+	}
+
+	private static long mix(long z) {
+		z += 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		return z ^ (z >>> 31);
+	}
+
+	private static long feature(int kind, int a, int b) {
+		return mix(((long) kind << 56) ^ ((long) a << 32) ^ (b & 0xFFFFFFFFL));
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param location the location of the player
+	 * @return the key of a player standing at a location
+	 */
+	public static long location(Colour colour, int location) {
+		return feature(LOCATION, colour.ordinal(), location);
+	}
+
+	/**
+	 * @param colour the colour of the player; not null
+	 * @param ticket the ticket type; not null
+	 * @param count the number of tickets the player holds
+	 * @return the key of a player holding a number of tickets of a type
+	 */
+	public static long tickets(Colour colour, Ticket ticket, int count) {
+		return feature(TICKETS, colour.ordinal() * Ticket.values().length + ticket.ordinal(), count);
+	}
+
+	/**
+	 * @param round the current round
+	 * @return the key of the round
+	 */
+	public static long round(int round) {
+		return feature(ROUND, 0, round);
+	}
+
+	/**
+	 * @param location Mr X's last known location
+	 * @return the key of Mr X's last known location
+	 */
+	public static long lastMrX(int location) {
+		return feature(LAST_MRX, 0, location);
+	}
+
+	/**
+	 * @param colour the player to move; not null
+	 * @return the key of the player to move
+	 */
+	public static long current(Colour colour) {
+		return feature(CURRENT, 0, colour.ordinal());
+	}
+
+	/**
+	 * The key to XOR into a position key when a player's ticket count changes
+	 *
+	 * @param colour the colour of the player; not null
+	 * @param ticket the ticket type; not null
+	 * @param before the count before the change
+	 * @param after the count after the change
+	 * @return the difference between the two ticket keys
+	 */
+	public static long ticketsChanged(Colour colour, Ticket ticket, int before, int after) {
+		return tickets(colour, ticket, before) ^ tickets(colour, ticket, after);
+	}
+
+	/**
+	 * Computes the key of a position from scratch. The view only reveals Mr X's
+	 * last known location, so his actual location is given separately.
+	 *
+	 * @param view the view of the game; not null
+	 * @param mrXLocation where Mr X actually is
+	 * @return the key of the position
+	 */
+	public static long of(ScotlandYardView view, int mrXLocation) {
+
+		long key = round(view.getCurrentRound())
+				^ lastMrX(view.getPlayerLocation(BLACK).orElse(0))
+				^ current(view.getCurrentPlayer());
+
+		for (Colour colour : view.getPlayers()) {
+
+			int location = colour == BLACK ? mrXLocation
+					: view.getPlayerLocation(colour).orElseThrow(IllegalArgumentException::new);
+			key ^= location(colour, location);
+
+			for (Ticket ticket : Ticket.values())
+				key ^= tickets(colour, ticket, view.getPlayerTickets(colour, ticket)
+						.orElseThrow(IllegalArgumentException::new));
+
+		}
+
+		return key;
+
+	}
+
+}
@@ -0,0 +1,62 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+
+import javafx.geometry.Point2D;
+import javafx.scene.image.Image;
+import javafx.scene.layout.Pane;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Resources for AIs running without a UI. Only the graph, its distance
+ * tables and the move timeout are available; images, map coordinates and the drawing surface throw
+ * {@link UnsupportedOperationException}, so AIs that depend on them fail fast
+ * instead of touching JavaFX.
+ */
+class HeadlessResources implements ResourceProvider, Visualiser {
+
+	private final Graph<Integer, Transport> graph;
+	private final Duration moveTimeout;
+
+	HeadlessResources(Graph<Integer, Transport> graph, Duration moveTimeout) {
+		this.graph = Objects.requireNonNull(graph);
+		this.moveTimeout = moveTimeout;
+	}
+
+	@Override
+	public Image getMap() {
+		throw new UnsupportedOperationException("No map image in a headless simulation");
+	}
+
+	@Override
+	public Image getTicket(Ticket ticket) {
+		throw new UnsupportedOperationException("No ticket images in a headless simulation");
+	}
+
+	@Override
+	public Graph<Integer, Transport> getGraph() {
+		return graph;
+	}
+
+	@Override
+	public Optional<Duration> getMoveTimeout() {
+		return Optional.ofNullable(moveTimeout);
+	}
+
+	@Override
+	public Point2D coordinateAtNode(int node) {
+		throw new UnsupportedOperationException("No map coordinates in a headless simulation");
+	}
+
+	@Override
+	public Pane surface() {
+		throw new UnsupportedOperationException("No surface in a headless simulation");
+	}
+
+}
@@ -0,0 +1,397 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.AbstractMap.SimpleImmutableEntry;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Random;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Generates maps of any size that look roughly like the standard map, for
+ * finding out how the model and AIs scale beyond its 199 nodes.
+ *
+ * Nodes 1 to N are laid out row by row on a square grid with some jitter.
+ * Taxis always join each node to the next one in its row and the first nodes
+ * of consecutive rows, so every map is connected, and further taxi edges go to
+ * the node below or diagonally below until the taxi degree is reached. Buses
+ * join nodes two to three cells apart, the underground joins nodes four to
+ * eight cells apart and ferries join random nodes anywhere on the map. No two
+ * nodes are joined twice by the same transport.
+ *
+ * The same settings always give the same map, which can be written in the
+ * formats of {@code graph.txt} and {@code pos.txt}.
+ */
+public final class MapGenerator {
+
+	private static final int SPACING = 40;
+	private static final int JITTER = 12;
+	private static final int MARGIN = 20;
+
+	private static final Transport[] TRANSPORTS = Transport.values();
+
+	private final int nodes;
+	private final int side;
+	private int[] sources = new int[16];
+	private int[] destinations = new int[16];
+	private byte[] transports = new byte[16];
+	private int edgeCount;
+	private final int[] xs;
+	private final int[] ys;
+
+	private MapGenerator(Builder builder) {
+
+		this.nodes = builder.nodes;
+		this.side = (int) Math.ceil(Math.sqrt(nodes));
+		this.xs = new int[nodes + 1];
+		this.ys = new int[nodes + 1];
+
+		Random random = new Random(builder.seed);
+
+		for (int node = 1; node <= nodes; node++) {
+			xs[node] = MARGIN + column(node) * SPACING + random.nextInt(2 * JITTER + 1) - JITTER;
+			ys[node] = MARGIN + row(node) * SPACING + random.nextInt(2 * JITTER + 1) - JITTER;
+		}
+
+		addTaxis(builder.taxiDegree, random);
+		addHops(Transport.BUS, builder.busDegree, 2, 3, random);
+		addHops(Transport.UNDERGROUND, builder.undergroundDegree, 4, 8, random);
+		addFerries(builder.ferries, random);
+
+	}
+
+	private int row(int node) {
+		return (node - 1) / side;
+	}
+
+	private int column(int node) {
+		return (node - 1) % side;
+	}
+
+	/**
+	 * @return the node at a grid cell, or 0 if there is none
+	 */
+	private int nodeAt(int row, int column) {
+		if (row < 0 || column < 0 || column >= side) return 0;
+		long node = (long) row * side + column + 1;
+		return node <= nodes ? (int) node : 0;
+	}
+
+	private void addEdge(int source, int destination, Transport transport) {
+		if (edgeCount == sources.length) {
+			sources = Arrays.copyOf(sources, edgeCount * 2);
+			destinations = Arrays.copyOf(destinations, edgeCount * 2);
+			transports = Arrays.copyOf(transports, edgeCount * 2);
+		}
+		sources[edgeCount] = source;
+		destinations[edgeCount] = destination;
+		transports[edgeCount++] = (byte) transport.ordinal();
+	}
+
+	private void addTaxis(double degree, Random random) {
+
+		int spanning = 0;
+		int candidates = 0;
+		for (int node = 1; node <= nodes; node++) {
+			int right = nodeAt(row(node), column(node) + 1);
+			if (right != 0) {
+				addEdge(node, right, Transport.TAXI);
+				spanning++;
+			}
+			if (column(node) == 0) {
+				int below = nodeAt(row(node) + 1, 0);
+				if (below != 0) {
+					addEdge(node, below, Transport.TAXI);
+					spanning++;
+				}
+			} else if (nodeAt(row(node) + 1, column(node)) != 0) {
+				candidates++;
+			}
+			if (nodeAt(row(node) + 1, column(node) + 1) != 0) candidates++;
+		}
+
+		double wanted = degree * nodes / 2 - spanning;
+		if (wanted <= 0 || candidates == 0) return;
+		double chance = Math.min(1, wanted / candidates);
+
+		for (int node = 1; node <= nodes; node++) {
+			int below = column(node) == 0 ? 0 : nodeAt(row(node) + 1, column(node));
+			if (below != 0 && random.nextDouble() < chance)
+				addEdge(node, below, Transport.TAXI);
+			int diagonal = nodeAt(row(node) + 1, column(node) + 1);
+			if (diagonal != 0 && random.nextDouble() < chance)
+				addEdge(node, diagonal, Transport.TAXI);
+		}
+
+	}
+
+	/**
+	 * Joins random nodes to nodes a number of grid cells away in any direction
+	 */
+	private void addHops(Transport transport, double degree, int minimum, int maximum,
+			Random random) {
+
+		long wanted = Math.round(degree * nodes / 2);
+		Set<Long> added = new HashSet<>();
+		int span = 2 * maximum + 1;
+
+		// Small maps may not have enough pairs in range, so give up eventually.
+		for (long attempt = 0; added.size() < wanted && attempt < wanted * 8; attempt++) {
+			int source = 1 + random.nextInt(nodes);
+			int dx = random.nextInt(span) - maximum;
+			int dy = random.nextInt(span) - maximum;
+			int distance = Math.max(Math.abs(dx), Math.abs(dy));
+			if (distance < minimum) continue;
+			int destination = nodeAt(row(source) + dy, column(source) + dx);
+			if (destination != 0 && added.add(pair(source, destination)))
+				addEdge(source, destination, transport);
+		}
+
+	}
+
+	private void addFerries(int ferries, Random random) {
+		Set<Long> added = new HashSet<>();
+		for (long attempt = 0; added.size() < ferries && attempt < ferries * 8L; attempt++) {
+			int source = 1 + random.nextInt(nodes);
+			int destination = 1 + random.nextInt(nodes);
+			if (source != destination && added.add(pair(source, destination)))
+				addEdge(source, destination, Transport.FERRY);
+		}
+	}
+
+	private static long pair(int a, int b) {
+		return (long) Math.min(a, b) << 32 | Math.max(a, b);
+	}
+
+	/**
+	 * @return the number of nodes
+	 */
+	public int nodeCount() {
+		return nodes;
+	}
+
+	/**
+	 * @return the number of undirected edges
+	 */
+	public int edgeCount() {
+		return edgeCount;
+	}
+
+	/**
+	 * @param transport the transport; not null
+	 * @return the number of undirected edges of the transport
+	 */
+	public int edgeCount(Transport transport) {
+		int count = 0;
+		for (int e = 0; e < edgeCount; e++)
+			if (transports[e] == transport.ordinal()) count++;
+		return count;
+	}
+
+	/**
+	 * @return the map, built the same way as
+	 *         {@link ScotlandYardGraphReader#intGraphFromLines} would from
+	 *         {@link #writeGraph(Appendable)}; never null
+	 */
+	public IntGraph<Transport> graph() {
+		IntGraph.Builder<Transport> builder = new IntGraph.Builder<>();
+		for (int node = 1; node <= nodes; node++)
+			builder.addNode(node);
+		for (int e = 0; e < edgeCount; e++)
+			builder.addUndirectedEdge(sources[e], destinations[e], TRANSPORTS[transports[e]]);
+		return builder.build();
+	}
+
+	/**
+	 * @param node the node, from 1 to {@link #nodeCount()}
+	 * @return the x coordinate of the node
+	 */
+	public int x(int node) {
+		checkNode(node);
+		return xs[node];
+	}
+
+	/**
+	 * @param node the node, from 1 to {@link #nodeCount()}
+	 * @return the y coordinate of the node
+	 */
+	public int y(int node) {
+		checkNode(node);
+		return ys[node];
+	}
+
+	private void checkNode(int node) {
+		if (node < 1 || node > nodes)
+			throw new IllegalArgumentException("Node must be 1 to " + nodes + ", got " + node);
+	}
+
+	/**
+	 * @return the coordinates of every node, as given by
+	 *         {@link uk.ac.bris.cs.scotlandyard.model.BinaryMap#parseCoordinates};
+	 *         never null
+	 */
+	public Map<Integer, Entry<Integer, Integer>> coordinates() {
+		Map<Integer, Entry<Integer, Integer>> coordinates = new HashMap<>();
+		for (int node = 1; node <= nodes; node++)
+			coordinates.put(node, new SimpleImmutableEntry<>(xs[node], ys[node]));
+		return coordinates;
+	}
+
+	/**
+	 * Writes the map in the format of {@code graph.txt}
+	 *
+	 * @param out where to write; not null
+	 * @throws IOException if writing fails
+	 */
+	public void writeGraph(Appendable out) throws IOException {
+		String[] names = new String[TRANSPORTS.length];
+		for (Transport transport : TRANSPORTS)
+			names[transport.ordinal()] = transport.name().charAt(0)
+					+ transport.name().substring(1).toLowerCase(Locale.ENGLISH);
+		out.append(Integer.toString(nodes)).append(' ')
+				.append(Integer.toString(edgeCount)).append('\n');
+		for (int node = 1; node <= nodes; node++)
+			out.append(Integer.toString(node)).append('\n');
+		for (int e = 0; e < edgeCount; e++)
+			out.append(Integer.toString(sources[e])).append(' ')
+					.append(Integer.toString(destinations[e])).append(' ')
+					.append(names[transports[e]]).append('\n');
+	}
+
+	/**
+	 * Writes the coordinates in the format of {@code pos.txt}
+	 *
+	 * @param out where to write; not null
+	 * @throws IOException if writing fails
+	 */
+	public void writePositions(Appendable out) throws IOException {
+		out.append(Integer.toString(nodes)).append('\n');
+		for (int node = 1; node <= nodes; node++)
+			out.append(Integer.toString(node)).append(' ')
+					.append(Integer.toString(xs[node])).append(' ')
+					.append(Integer.toString(ys[node])).append('\n');
+	}
+
+	/**
+	 * Generates a map and writes it to files, e.g.
+	 * {@code MapGenerator 10000 42 graph.txt pos.txt}
+	 *
+	 * @param args the node count, the seed, the graph file and the coordinate
+	 *        file
+	 * @throws IOException if a file cannot be written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 4) {
+			System.err.println("Usage: MapGenerator <nodes> <seed> <graph.txt> <pos.txt>");
+			System.exit(1);
+		}
+		MapGenerator map = new Builder(Integer.parseInt(args[0]))
+				.seed(Long.parseLong(args[1]))
+				.build();
+		try (Writer out = Files.newBufferedWriter(Paths.get(args[2]), StandardCharsets.UTF_8)) {
+			map.writeGraph(out);
+		}
+		try (Writer out = Files.newBufferedWriter(Paths.get(args[3]), StandardCharsets.UTF_8)) {
+			map.writePositions(out);
+		}
+	}
+
+	/**
+	 * Builds a {@link MapGenerator}. By default the degree of each transport
+	 * is close to the standard map's: 3.5 for taxis, 1 for buses, 0.2 for the
+	 * underground and 3 ferries in total.
+	 */
+	public static class Builder {
+
+		private final int nodes;
+		private double taxiDegree = 3.5;
+		private double busDegree = 1;
+		private double undergroundDegree = 0.2;
+		private int ferries = 3;
+		private long seed;
+
+		/**
+		 * @param nodes the number of nodes, must be &gt;= 2
+		 */
+		public Builder(int nodes) {
+			if (nodes < 2) throw new IllegalArgumentException("nodes must be >= 2, got " + nodes);
+			this.nodes = nodes;
+		}
+
+		private static double checkDegree(double degree, String name) {
+			if (!(degree >= 0)) throw new IllegalArgumentException(name + " must be >= 0, got " + degree);
+			return degree;
+		}
+
+		/**
+		 * @param degree the average number of taxi edges at each node, at least
+		 *        about 2 since every map is connected by taxi, at most about
+		 *        6; must be &gt;= 0
+		 * @return this builder
+		 */
+		public Builder taxiDegree(double degree) {
+			this.taxiDegree = checkDegree(degree, "taxiDegree");
+			return this;
+		}
+
+		/**
+		 * @param degree the average number of bus edges at each node, must be
+		 *        &gt;= 0
+		 * @return this builder
+		 */
+		public Builder busDegree(double degree) {
+			this.busDegree = checkDegree(degree, "busDegree");
+			return this;
+		}
+
+		/**
+		 * @param degree the average number of underground edges at each node,
+		 *        must be &gt;= 0
+		 * @return this builder
+		 */
+		public Builder undergroundDegree(double degree) {
+			this.undergroundDegree = checkDegree(degree, "undergroundDegree");
+			return this;
+		}
+
+		/**
+		 * @param ferries the number of ferry edges, must be &gt;= 0
+		 * @return this builder
+		 */
+		public Builder ferries(int ferries) {
+			if (ferries < 0) throw new IllegalArgumentException("ferries must be >= 0, got " + ferries);
+			this.ferries = ferries;
+			return this;
+		}
+
+		/**
+		 * @param seed the seed of the random layout
+		 * @return this builder
+		 */
+		public Builder seed(long seed) {
+			this.seed = seed;
+			return this;
+		}
+
+		/**
+		 * @return the generated map; never null
+		 */
+		public MapGenerator build() {
+			return new MapGenerator(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,295 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.GameState;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.MoveSink;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Measures how the model scales with the size of the map, on maps made by
+ * {@link MapGenerator}. For every size this times building the graphs and the
+ * model, then plays random games twice: on {@link GameState}s, timing each
+ * move generation and game over check, and through
+ * {@link ScotlandYardModel} with players that move at random, timing whole
+ * games.
+ *
+ * Running this class prints one line per size, by default for 200 to 1M
+ * nodes, e.g. {@code ScalingBenchmark 200 10000 1000000}.
+ */
+public final class ScalingBenchmark {
+
+	private static final int[] DEFAULT_SIZES = { 200, 1_000, 10_000, 100_000, 1_000_000 };
+	private static final int DETECTIVES = 5;
+
+	private ScalingBenchmark() {
+		// nope
+	}
+
+	/**
+	 * Benchmarks one map
+	 *
+	 * @param nodes the number of nodes of the generated map, must be &gt;= 2
+	 * @param playouts the number of random games to play, must be &gt;= 0
+	 * @param seed the seed of the map, starting locations and moves
+	 * @return the measurements; never null
+	 */
+	public static Measurement run(int nodes, int playouts, long seed) {
+
+		if (playouts < 0) throw new IllegalArgumentException("playouts must be >= 0, got " + playouts);
+
+		Measurement measurement = new Measurement(nodes);
+
+		long start = System.nanoTime();
+		MapGenerator map = new MapGenerator.Builder(nodes).seed(seed).build();
+		IntGraph<Transport> graph = map.graph();
+		measurement.edges = map.edgeCount();
+		measurement.generateNanos = System.nanoTime() - start;
+
+		start = System.nanoTime();
+		new UndirectedGraph<>(graph);
+		measurement.undirectedGraphNanos = System.nanoTime() - start;
+
+		Random random = new Random(seed);
+		RandomPlayer player = new RandomPlayer(random);
+
+		for (int game = 0; game < playouts; game++) {
+
+			start = System.nanoTime();
+			List<Integer> locations = locations(nodes, random);
+			ScotlandYardModel model = createModel(graph, locations, player);
+			measurement.modelNanos += System.nanoTime() - start;
+
+			playState(GameState.of(model, locations.get(0)), random, measurement);
+
+			start = System.nanoTime();
+			while (!model.isGameOver())
+				model.startRotate();
+			measurement.playoutNanos += System.nanoTime() - start;
+			measurement.modelRounds += model.getCurrentRound();
+
+		}
+
+		measurement.playouts = playouts;
+		return measurement;
+
+	}
+
+	private static List<Integer> locations(int nodes, Random random) {
+		Set<Integer> locations = new LinkedHashSet<>();
+		while (locations.size() < DETECTIVES + 1)
+			locations.add(1 + random.nextInt(nodes));
+		return new ArrayList<>(locations);
+	}
+
+	private static ScotlandYardModel createModel(IntGraph<Transport> graph, List<Integer> locations,
+			Player player) {
+		List<Colour> colours = Arrays.asList(Colour.values());
+		PlayerConfiguration[] detectives = new PlayerConfiguration[DETECTIVES];
+		for (int i = 0; i < DETECTIVES; i++)
+			detectives[i] = new PlayerConfiguration.Builder(colours.get(i + 1))
+					.using(player)
+					.with(StandardGame.generateDetectiveTickets())
+					.at(locations.get(i + 1))
+					.build();
+		return new ScotlandYardModel(StandardGame.ROUNDS, graph,
+				new PlayerConfiguration.Builder(BLACK)
+						.using(player)
+						.with(StandardGame.generateMrXTickets())
+						.at(locations.get(0))
+						.build(),
+				detectives[0], Arrays.copyOfRange(detectives, 1, DETECTIVES));
+	}
+
+	/**
+	 * Plays random moves from a state until the game is over
+	 */
+	private static void playState(GameState state, Random random, Measurement measurement) {
+		MoveBuffer moves = new MoveBuffer();
+		while (true) {
+			long start = System.nanoTime();
+			boolean over = state.isGameOver();
+			measurement.gameOverNanos += System.nanoTime() - start;
+			measurement.gameOverChecks++;
+			if (over) return;
+			moves.size = 0;
+			start = System.nanoTime();
+			state.generateMoves(moves);
+			measurement.moveGenerationNanos += System.nanoTime() - start;
+			measurement.moveGenerations++;
+			measurement.movesGenerated += moves.size;
+			state = state.advance(moves.moves[random.nextInt(moves.size)]);
+		}
+	}
+
+	private static final class MoveBuffer implements MoveSink {
+
+		long[] moves = new long[256];
+		int size;
+
+		@Override
+		public void accept(long move) {
+			if (size == moves.length) moves = Arrays.copyOf(moves, size * 2);
+			moves[size++] = move;
+		}
+
+	}
+
+	/**
+	 * Plays a random move as soon as it is asked to
+	 */
+	private static final class RandomPlayer implements Player {
+
+		private final Random random;
+
+		RandomPlayer(Random random) {
+			this.random = random;
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			Iterator<Move> iterator = moves.iterator();
+			for (int skip = random.nextInt(moves.size()); skip > 0; skip--)
+				iterator.next();
+			callback.accept(iterator.next());
+		}
+
+	}
+
+	/**
+	 * The measurements of one map size
+	 */
+	public static final class Measurement {
+
+		private final int nodes;
+		private int edges;
+		private int playouts;
+		private long generateNanos;
+		private long undirectedGraphNanos;
+		private long modelNanos;
+		private long moveGenerations;
+		private long movesGenerated;
+		private long moveGenerationNanos;
+		private long gameOverChecks;
+		private long gameOverNanos;
+		private long playoutNanos;
+		private long modelRounds;
+
+		private Measurement(int nodes) {
+			this.nodes = nodes;
+		}
+
+		/**
+		 * @return the number of nodes of the map
+		 */
+		public int nodes() {
+			return nodes;
+		}
+
+		/**
+		 * @return the number of undirected edges of the map
+		 */
+		public int edges() {
+			return edges;
+		}
+
+		/**
+		 * @return the number of random games played on states and on models
+		 */
+		public int playouts() {
+			return playouts;
+		}
+
+		/**
+		 * @return the number of times moves were generated for a state
+		 */
+		public long moveGenerations() {
+			return moveGenerations;
+		}
+
+		/**
+		 * @return the number of times a state was checked for game over
+		 */
+		public long gameOverChecks() {
+			return gameOverChecks;
+		}
+
+		/**
+		 * @return the average time to generate the moves of a state in
+		 *         nanoseconds
+		 */
+		public double nanosPerMoveGeneration() {
+			return moveGenerations == 0 ? 0 : (double) moveGenerationNanos / moveGenerations;
+		}
+
+		/**
+		 * @return the average time to check a state for game over in
+		 *         nanoseconds
+		 */
+		public double nanosPerGameOverCheck() {
+			return gameOverChecks == 0 ? 0 : (double) gameOverNanos / gameOverChecks;
+		}
+
+		/**
+		 * @return the average time to create a model in nanoseconds
+		 */
+		public double nanosPerModel() {
+			return playouts == 0 ? 0 : (double) modelNanos / playouts;
+		}
+
+		/**
+		 * @return the average time to play a game through a model in
+		 *         nanoseconds
+		 */
+		public double nanosPerPlayout() {
+			return playouts == 0 ? 0 : (double) playoutNanos / playouts;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%,d nodes, %,d edges: generate %.1fms, UndirectedGraph %.1fms, "
+							+ "model %.2fms, move generation %.0fns (%.1f moves), game over %.0fns, "
+							+ "playout %.2fms (%.1f rounds)",
+					nodes, edges, generateNanos / 1e6, undirectedGraphNanos / 1e6,
+					nanosPerModel() / 1e6, nanosPerMoveGeneration(),
+					moveGenerations == 0 ? 0 : (double) movesGenerated / moveGenerations,
+					nanosPerGameOverCheck(), nanosPerPlayout() / 1e6,
+					playouts == 0 ? 0 : (double) modelRounds / playouts);
+		}
+
+	}
+
+	/**
+	 * Runs the benchmark for map sizes given as arguments, or for 200 to 1M
+	 * nodes. The first size is run once more beforehand to warm up.
+	 *
+	 * @param args the map sizes
+	 */
+	public static void main(String[] args) {
+		int[] sizes = args.length == 0 ? DEFAULT_SIZES
+				: Arrays.stream(args).mapToInt(Integer::parseInt).toArray();
+		run(sizes[0], 20, 0);
+		for (int size : sizes)
+			System.out.println(run(size, 20, size));
+	}
+
+}
@@ -0,0 +1,444 @@
+package uk.ac.bris.cs.scotlandyard.simulation;
+
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongFunction;
+import java.util.function.Supplier;
+import java.util.stream.LongStream;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGameFactory;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Plays complete games between AIs without a UI, one game per seed and as many
+ * games at a time as there are threads.
+ *
+ * Every game gets fresh {@link PlayerFactory} instances for both sides, which
+ * go through the same lifecycle as in the UI: spectators are registered,
+ * {@link PlayerFactory#ready} is called with {@link HeadlessResources} and
+ * {@link PlayerFactory#finish()} is called when the game ends. Players may
+ * call back on any thread; a game only waits for each rotation to complete.
+ */
+public class SimulationRunner {
+
+	private final ScotlandYardGameFactory gameFactory;
+	private final Supplier<? extends PlayerFactory> mrX;
+	private final Supplier<? extends PlayerFactory> detectives;
+	private final Graph<Integer, Transport> graph;
+	private final List<Boolean> rounds;
+	private final int detectiveCount;
+	private final LongFunction<List<Integer>> locations;
+	private final int threads;
+	private final long rotationTimeout;
+	private final Duration moveTimeout;
+
+	private SimulationRunner(Builder builder) {
+		this.gameFactory = builder.gameFactory;
+		this.mrX = builder.mrX;
+		this.detectives = builder.detectives;
+		this.graph = builder.graph;
+		this.rounds = builder.rounds;
+		this.detectiveCount = builder.detectiveCount;
+		this.locations = builder.locations != null ? builder.locations
+				: standardLocations(builder.detectiveCount);
+		this.threads = builder.threads;
+		this.rotationTimeout = builder.rotationTimeout;
+		this.moveTimeout = builder.moveTimeout;
+	}
+
+	private static LongFunction<List<Integer>> standardLocations(int detectiveCount) {
+		return seed -> {
+			int s = Long.hashCode(seed);
+			List<Integer> start = new ArrayList<>(detectiveCount + 1);
+			start.add(StandardGame.generateMrXLocation(s));
+			start.addAll(StandardGame.generateDetectiveLocations(s, detectiveCount));
+			return start;
+		};
+	}
+
+	/**
+	 * Plays one game for every seed in a range
+	 *
+	 * @param games the number of games, must be &gt;= 0
+	 * @param firstSeed the seed of the first game
+	 * @return the results of all games; never null
+	 */
+	public Report run(int games, long firstSeed) {
+		if (games < 0) throw new IllegalArgumentException("games must be >= 0, got " + games);
+		return run(LongStream.range(firstSeed, firstSeed + games));
+	}
+
+	/**
+	 * Plays one game for every seed. The seed decides the starting locations,
+	 * so the same seeds replay the same openings.
+	 *
+	 * @param seeds the seeds; must be finite
+	 * @return the results of all games; never null
+	 */
+	public Report run(LongStream seeds) {
+
+		long[] all = seeds.toArray();
+		ExecutorService executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "simulation");
+			thread.setDaemon(true);
+			return thread;
+		});
+
+		long start = System.nanoTime();
+
+		try {
+
+			List<Future<Result>> futures = new ArrayList<>(all.length);
+			for (long seed : all)
+				futures.add(executor.submit(() -> play(seed)));
+
+			Report report = new Report();
+			for (Future<Result> future : futures)
+				report.add(future.get());
+
+			report.elapsedNanos = System.nanoTime() - start;
+			return report;
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while simulating", e);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("Simulation failed", e.getCause());
+		} finally {
+			executor.shutdownNow();
+		}
+
+	}
+
+	private Result play(long seed) {
+
+		List<Integer> start = locations.apply(seed);
+		if (start.size() != detectiveCount + 1)
+			throw new IllegalArgumentException("Expected " + (detectiveCount + 1)
+					+ " locations for seed " + seed + ", got " + start);
+
+		PlayerFactory mrXFactory = mrX.get();
+		PlayerFactory detectiveFactory = detectives.get();
+		HeadlessResources resources = new HeadlessResources(graph, moveTimeout);
+
+		PlayerConfiguration mrXConfiguration = new PlayerConfiguration.Builder(BLACK)
+				.using(mrXFactory.createPlayer(BLACK))
+				.with(StandardGame.generateMrXTickets())
+				.at(start.get(0))
+				.build();
+
+		List<Colour> colours = Arrays.asList(Colour.values());
+		PlayerConfiguration[] detectiveConfigurations = new PlayerConfiguration[detectiveCount];
+		for (int i = 0; i < detectiveCount; i++) {
+			Colour colour = colours.get(i + 1);
+			detectiveConfigurations[i] = new PlayerConfiguration.Builder(colour)
+					.using(detectiveFactory.createPlayer(colour))
+					.with(StandardGame.generateDetectiveTickets())
+					.at(start.get(i + 1))
+					.build();
+		}
+
+		ScotlandYardGame game = gameFactory.createGame(rounds, graph, mrXConfiguration,
+				detectiveConfigurations[0],
+				Arrays.copyOfRange(detectiveConfigurations, 1, detectiveCount));
+
+		Semaphore rotation = new Semaphore(0);
+		game.registerSpectator(new Spectator() {
+			@Override
+			public void onRotationComplete(ScotlandYardView view) {
+				rotation.release();
+			}
+
+			@Override
+			public void onGameOver(ScotlandYardView view, Set<Colour> winningPlayers) {
+				rotation.release();
+			}
+		});
+
+		try {
+
+			for (PlayerFactory factory : Arrays.asList(mrXFactory, detectiveFactory)) {
+				factory.createSpectators(game).forEach(game::registerSpectator);
+				factory.ready(resources, resources);
+			}
+
+			while (!game.isGameOver()) {
+				game.startRotate();
+				if (!rotation.tryAcquire(rotationTimeout, TimeUnit.MILLISECONDS))
+					return Result.failed(seed, new IllegalStateException(
+							"Rotation timed out after " + rotationTimeout + "ms"));
+			}
+
+			return Result.finished(seed, game.getWinningPlayers().contains(BLACK),
+					game.getCurrentRound());
+
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			return Result.failed(seed, e);
+		} catch (RuntimeException e) {
+			return Result.failed(seed, e);
+		} finally {
+			mrXFactory.finish();
+			detectiveFactory.finish();
+		}
+
+	}
+
+	/**
+	 * The result of a single game
+	 */
+	private static final class Result {
+
+		final long seed;
+		final boolean mrXWon;
+		final int rounds;
+		final Throwable failure;
+
+		private Result(long seed, boolean mrXWon, int rounds, Throwable failure) {
+			this.seed = seed;
+			this.mrXWon = mrXWon;
+			this.rounds = rounds;
+			this.failure = failure;
+		}
+
+		static Result finished(long seed, boolean mrXWon, int rounds) {
+			return new Result(seed, mrXWon, rounds, null);
+		}
+
+		static Result failed(long seed, Throwable failure) {
+			return new Result(seed, false, 0, failure);
+		}
+
+	}
+
+	/**
+	 * Aggregated outcome of a simulation run
+	 */
+	public static final class Report {
+
+		private int games;
+		private int mrXWins;
+		private int detectiveWins;
+		private long totalRounds;
+		private long elapsedNanos;
+		private final List<Long> failedSeeds = new ArrayList<>();
+		private Throwable firstFailure;
+
+		private Report() {}
+
+		private void add(Result result) {
+			games++;
+			if (result.failure != null) {
+				failedSeeds.add(result.seed);
+				if (firstFailure == null) firstFailure = result.failure;
+			} else if (result.mrXWon) {
+				mrXWins++;
+				totalRounds += result.rounds;
+			} else {
+				detectiveWins++;
+				totalRounds += result.rounds;
+			}
+		}
+
+		/**
+		 * @return the number of games played, including failed games
+		 */
+		public int games() {
+			return games;
+		}
+
+		/**
+		 * @return the number of games Mr X won
+		 */
+		public int mrXWins() {
+			return mrXWins;
+		}
+
+		/**
+		 * @return the number of games the detectives won
+		 */
+		public int detectiveWins() {
+			return detectiveWins;
+		}
+
+		/**
+		 * @return the seeds of games that threw or timed out; never null
+		 */
+		public List<Long> failedSeeds() {
+			return Collections.unmodifiableList(failedSeeds);
+		}
+
+		/**
+		 * @return the failure of the first failed game, or null if every game
+		 *         finished
+		 */
+		public Throwable firstFailure() {
+			return firstFailure;
+		}
+
+		/**
+		 * @return the average number of rounds of finished games
+		 */
+		public double averageRounds() {
+			int finished = mrXWins + detectiveWins;
+			return finished == 0 ? 0 : (double) totalRounds / finished;
+		}
+
+		/**
+		 * @return the wall clock time of the run in nanoseconds
+		 */
+		public long elapsedNanos() {
+			return elapsedNanos;
+		}
+
+		/**
+		 * @return the number of games played per second of wall clock time
+		 */
+		public double gamesPerSecond() {
+			return elapsedNanos == 0 ? 0 : games * 1e9 / elapsedNanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d games in %.2fs (%.1f games/s): MrX %d, detectives %d, "
+							+ "failed %d, average rounds %.2f",
+					games, elapsedNanos / 1e9, gamesPerSecond(), mrXWins, detectiveWins,
+					failedSeeds.size(), averageRounds());
+		}
+
+	}
+
+	/**
+	 * Builds a {@link SimulationRunner}. By default games are standard 24 round
+	 * games on the given graph with five detectives starting at
+	 * {@link StandardGame} locations, using all available processors.
+	 */
+	public static class Builder {
+
+		private final ScotlandYardGameFactory gameFactory;
+		private final Supplier<? extends PlayerFactory> mrX;
+		private final Supplier<? extends PlayerFactory> detectives;
+		private final Graph<Integer, Transport> graph;
+		private List<Boolean> rounds = StandardGame.ROUNDS;
+		private int detectiveCount = 5;
+		private LongFunction<List<Integer>> locations;
+		private int threads = Runtime.getRuntime().availableProcessors();
+		private long rotationTimeout = TimeUnit.MINUTES.toMillis(1);
+		private Duration moveTimeout;
+
+		/**
+		 * @param gameFactory creates the game model; not null
+		 * @param mrX creates a fresh factory for Mr X in every game; not null
+		 * @param detectives creates a fresh factory for the detectives in
+		 *        every game; not null
+		 * @param graph the map; not null
+		 */
+		public Builder(ScotlandYardGameFactory gameFactory,
+				Supplier<? extends PlayerFactory> mrX,
+				Supplier<? extends PlayerFactory> detectives,
+				Graph<Integer, Transport> graph) {
+			this.gameFactory = Objects.requireNonNull(gameFactory);
+			this.mrX = Objects.requireNonNull(mrX);
+			this.detectives = Objects.requireNonNull(detectives);
+			this.graph = Objects.requireNonNull(graph);
+		}
+
+		/**
+		 * @param rounds the reveal rounds of every game; not null or empty
+		 * @return this builder
+		 */
+		public Builder rounds(List<Boolean> rounds) {
+			if (rounds.isEmpty()) throw new IllegalArgumentException("Empty rounds");
+			this.rounds = rounds;
+			return this;
+		}
+
+		/**
+		 * @param count the number of detectives, 1 to 5
+		 * @return this builder
+		 */
+		public Builder detectives(int count) {
+			if (count < 1 || count > Colour.values().length - 1)
+				throw new IllegalArgumentException("Detective count must be 1 to "
+						+ (Colour.values().length - 1) + ", got " + count);
+			this.detectiveCount = count;
+			return this;
+		}
+
+		/**
+		 * @param locations maps a seed to the starting locations of a game, Mr
+		 *        X's first followed by each detective's; not null
+		 * @return this builder
+		 */
+		public Builder locations(LongFunction<List<Integer>> locations) {
+			this.locations = Objects.requireNonNull(locations);
+			return this;
+		}
+
+		/**
+		 * @param threads the number of games to play at a time, must be &gt; 0
+		 * @return this builder
+		 */
+		public Builder threads(int threads) {
+			if (threads < 1) throw new IllegalArgumentException("threads must be > 0, got " + threads);
+			this.threads = threads;
+			return this;
+		}
+
+		/**
+		 * @param timeout how long a rotation may take before its game is
+		 *        counted as failed
+		 * @param unit the unit of the timeout; not null
+		 * @return this builder
+		 */
+		public Builder rotationTimeout(long timeout, TimeUnit unit) {
+			if (timeout <= 0) throw new IllegalArgumentException("timeout must be > 0, got " + timeout);
+			this.rotationTimeout = unit.toMillis(timeout);
+			return this;
+		}
+
+		/**
+		 * @param timeout the move timeout AIs are told about through
+		 *        {@link uk.ac.bris.cs.scotlandyard.ai.ResourceProvider#getMoveTimeout()},
+		 *        e.g. to give AIs that search the same time budget; moves are
+		 *        not timed out unless a rotation times out
+		 * @param unit the unit of the timeout; not null
+		 * @return this builder
+		 */
+		public Builder moveTimeout(long timeout, TimeUnit unit) {
+			if (timeout <= 0) throw new IllegalArgumentException("timeout must be > 0, got " + timeout);
+			this.moveTimeout = Duration.ofNanos(unit.toNanos(timeout));
+			return this;
+		}
+
+		/**
+		 * @return the runner; never null
+		 */
+		public SimulationRunner build() {
+			return new SimulationRunner(this);
+		}
+
+	}
+
+}
@@ -0,0 +1,488 @@
+package uk.ac.bris.cs.scotlandyard.ui.ai;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.scotlandyard.ai.DistanceTable;
+import uk.ac.bris.cs.scotlandyard.ai.ManagedAI;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.GameState;
+import uk.ac.bris.cs.scotlandyard.model.LongMoveList;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.MoveCodec;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+/**
+ * Plays Mr X with a Monte Carlo tree search. Every thread walks down one
+ * shared tree of {@link GameState}s with UCT, adds a node, plays a short
+ * rollout from it and backs the result up. Threads on the same path add a
+ * virtual loss to the nodes they pass so the others spread out.
+ *
+ * The search knows where Mr X is, so it assumes the detectives do too, which
+ * makes it careful. Rollouts last {@value #HORIZON_ROUNDS} rounds in which
+ * every player mostly makes the greedy move, Mr X away from the nearest
+ * detective and detectives towards Mr X, and games that are not over by then
+ * are scored by how far Mr X is from the nearest detective.
+ *
+ * Each move gets a quarter of the game's move timeout, or one second if moves
+ * are not timed. The tree is kept between turns: the node matching the next
+ * turn's state, found by its Zobrist key, becomes the new root. At most
+ * {@value #MAX_NODES} nodes are kept, counting the ones kept from earlier
+ * turns.
+ *
+ * Detectives just move towards Mr X's last known location.
+ */
+@ManagedAI("MonteCarlo")
+public class MonteCarlo implements PlayerFactory {
+
+	private static final Set<Transport> LAND =
+			EnumSet.of(Transport.TAXI, Transport.BUS, Transport.UNDERGROUND);
+
+	private static final Duration UNTIMED_BUDGET = Duration.ofSeconds(1);
+	private static final int TIMEOUT_SHARE = 4;
+	private static final int HORIZON_ROUNDS = 2;
+	private static final int MAX_NODES = 1 << 20;
+	private static final double EXPLORATION = 0.5;
+	private static final double WIDENING = 2;
+	private static final double GREEDINESS = 0.85;
+	private static final int FAR = 8;
+
+	private final int threads;
+	private final int rolloutsPerMove;
+	private final LongAdder rollouts = new LongAdder();
+	private final LongAdder reusedTrees = new LongAdder();
+	private final LongAdder searchNanos = new LongAdder();
+
+	private volatile DistanceTable distances;
+	private volatile Duration budget = UNTIMED_BUDGET;
+	private volatile ExecutorService executor;
+
+	/**
+	 * Creates a factory searching on every processor
+	 */
+	public MonteCarlo() {
+		this(Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Creates a factory, e.g. to play several games at once in a simulation
+	 *
+	 * @param threads the number of threads searching each move, must be &gt; 0
+	 */
+	public MonteCarlo(int threads) {
+		this(threads, 0);
+	}
+
+	/**
+	 * Creates a factory playing a fixed number of rollouts every move instead
+	 * of searching until its time is up, so tests do not depend on timing
+	 *
+	 * @param threads the number of threads searching each move, must be &gt; 0
+	 * @param rolloutsPerMove the rollouts of every thread, or 0 to search
+	 *        until the time is up
+	 */
+	MonteCarlo(int threads, int rolloutsPerMove) {
+		if (threads < 1) throw new IllegalArgumentException("threads must be > 0, got " + threads);
+		if (rolloutsPerMove < 0)
+			throw new IllegalArgumentException("rolloutsPerMove must be >= 0, got " + rolloutsPerMove);
+		this.threads = threads;
+		this.rolloutsPerMove = rolloutsPerMove;
+	}
+
+	@Override
+	public Player createPlayer(Colour colour) {
+		return colour.isMrX() ? new Search() : new Chase();
+	}
+
+	@Override
+	public void ready(Visualiser visualiser, ResourceProvider provider) {
+		distances = provider.getDistances(LAND);
+		budget = provider.getMoveTimeout()
+				.map(timeout -> timeout.dividedBy(TIMEOUT_SHARE))
+				.orElse(UNTIMED_BUDGET);
+		executor = Executors.newFixedThreadPool(threads, runnable -> {
+			Thread thread = new Thread(runnable, "monte-carlo");
+			thread.setDaemon(true);
+			return thread;
+		});
+	}
+
+	@Override
+	public void finish() {
+		ExecutorService executor = this.executor;
+		if (executor != null) executor.shutdownNow();
+	}
+
+	/**
+	 * @return the number of rollouts played so far
+	 */
+	public long rollouts() {
+		return rollouts.sum();
+	}
+
+	/**
+	 * @return the number of moves searched from a tree kept from the turn
+	 *         before
+	 */
+	long reusedTrees() {
+		return reusedTrees.sum();
+	}
+
+	/**
+	 * @return the number of rollouts played per second spent searching
+	 */
+	public double rolloutsPerSecond() {
+		long nanos = searchNanos.sum();
+		return nanos == 0 ? 0 : rollouts.sum() * 1e9 / nanos;
+	}
+
+	/**
+	 * @return the number of moves by land from one node to another, or
+	 *         {@link #FAR} if there is no such path
+	 */
+	private int distance(int from, int to) {
+		DistanceTable table = distances;
+		if (!table.contains(from) || !table.contains(to)) return FAR;
+		int distance = table.distance(from, to);
+		return distance == DistanceTable.UNREACHABLE ? FAR : distance;
+	}
+
+	/**
+	 * @return the distance from a node to the nearest detective
+	 */
+	private int nearestDetective(GameState state, int node) {
+		int nearest = FAR;
+		for (Colour colour : state.getPlayers())
+			if (colour.isDetective())
+				nearest = Math.min(nearest, distance(state.location(colour), node));
+		return nearest;
+	}
+
+	/**
+	 * How good a move looks at a glance to the player making it, higher is
+	 * better. Mr X wants to get away while saving double and secret tickets,
+	 * detectives want to get closer to him.
+	 */
+	private int score(GameState state, long move) {
+		if (MoveCodec.isPass(move)) return -FAR * 4;
+		int destination = MoveCodec.finalDestination(move);
+		if (MoveCodec.colour(move).isDetective())
+			return -distance(destination, state.location(Colour.BLACK));
+		int score = nearestDetective(state, destination) * 4;
+		if (MoveCodec.isDouble(move)) score -= 3;
+		if (MoveCodec.ticket(move) == Ticket.SECRET
+				|| MoveCodec.isDouble(move) && MoveCodec.secondTicket(move) == Ticket.SECRET)
+			score -= 1;
+		return score;
+	}
+
+	/**
+	 * @return the value of a state to Mr X, from 0 for a loss to 1 for a win
+	 */
+	private double evaluate(GameState state) {
+		if (state.isGameOver())
+			return state.getWinningPlayers().contains(Colour.BLACK) ? 1 : 0;
+		int nearest = nearestDetective(state, state.location(Colour.BLACK));
+		return 0.5 + 0.1 * Math.min(nearest, 5);
+	}
+
+	/**
+	 * A state in the search tree. The counts are only changed and read while
+	 * holding the node's lock, except for the check whether a node is new.
+	 * Locks are taken from parent to child, never the other way.
+	 */
+	private final class Node {
+
+		final long move;
+		final GameState state;
+		final boolean mrXToMove;
+		final boolean over;
+
+		// Guarded by this; the moves are ordered best first.
+		long[] moves;
+		Node[] children;
+		int expanded;
+
+		volatile int visits;
+		volatile int virtualLosses;
+		volatile double value;
+
+		Node(long move, GameState state) {
+			this.move = move;
+			this.state = state;
+			this.mrXToMove = state.getCurrentPlayer().isMrX();
+			this.over = state.isGameOver();
+		}
+
+		/**
+		 * Picks the child to search next, adding a child for the next untried
+		 * move first
+		 *
+		 * @return the child, or null if this node is where the walk stops
+		 */
+		synchronized Node select(AtomicInteger nodes) {
+			if (over) return null;
+			if (moves == null) {
+				if (nodes.get() >= MAX_NODES) return null;
+				moves = ordered(state);
+				children = new Node[moves.length];
+			}
+			// Widen progressively, so the best looking moves are searched deeper.
+			if (expanded < moves.length && expanded < WIDENING * Math.sqrt(visits + 1)) {
+				if (nodes.getAndIncrement() >= MAX_NODES) return null;
+				Node child = new Node(moves[expanded], state.advance(moves[expanded]));
+				children[expanded++] = child;
+				child.enter();
+				return child;
+			}
+			Node best = null;
+			double bestScore = Double.NEGATIVE_INFINITY;
+			double logTotal = Math.log(Math.max(1, visits + virtualLosses));
+			for (int i = 0; i < expanded; i++) {
+				Node child = children[i];
+				double score = child.score(mrXToMove, logTotal);
+				if (best == null || score > bestScore) {
+					bestScore = score;
+					best = child;
+				}
+			}
+			if (best != null) best.enter();
+			return best;
+		}
+
+		/**
+		 * @return the UCT score of this node to the player choosing it, or
+		 *         infinity if no search has passed through it yet
+		 */
+		synchronized double score(boolean mrX, double logTotal) {
+			int tries = visits + virtualLosses;
+			if (tries == 0) return Double.POSITIVE_INFINITY;
+			double wins = mrX ? value : visits - value;
+			return wins / tries + EXPLORATION * Math.sqrt(logTotal / tries);
+		}
+
+		/**
+		 * Adds a virtual loss for a search passing through
+		 */
+		synchronized void enter() {
+			virtualLosses++;
+		}
+
+		/**
+		 * Replaces the virtual loss of a search with its result
+		 */
+		synchronized void leave(double result) {
+			virtualLosses--;
+			visits++;
+			value += result;
+		}
+
+		/**
+		 * @return the children added so far
+		 */
+		synchronized List<Node> children() {
+			return children == null ? List.of() : Arrays.asList(Arrays.copyOf(children, expanded));
+		}
+
+	}
+
+	/**
+	 * @return the moves of the current player, best looking first
+	 */
+	private long[] ordered(GameState state) {
+		LongMoveList list = new LongMoveList();
+		state.generateMoves(list);
+		// Sort by score, keeping the index in the low bits for ties and lookup.
+		long[] keys = new long[list.size()];
+		for (int i = 0; i < keys.length; i++)
+			keys[i] = (long) -score(state, list.get(i)) << 32 | i;
+		Arrays.sort(keys);
+		long[] moves = new long[keys.length];
+		for (int i = 0; i < keys.length; i++)
+			moves[i] = list.get((int) keys[i]);
+		return moves;
+	}
+
+	/**
+	 * Plays on from a state for a few rounds
+	 *
+	 * @return the value of where the rollout ends to Mr X
+	 */
+	private double rollout(GameState state, LongMoveList moves, SplittableRandom random) {
+		for (int ply = HORIZON_ROUNDS * state.getPlayers().size(); ply > 0 && !state.isGameOver(); ply--) {
+			moves.clear();
+			state.generateMoves(moves);
+			long move = moves.get(random.nextInt(moves.size()));
+			if (random.nextDouble() < GREEDINESS) {
+				int best = Integer.MIN_VALUE;
+				for (int i = 0; i < moves.size(); i++) {
+					long candidate = moves.get(i);
+					// Doubles are many and rarely needed, so rollouts leave them out.
+					if (MoveCodec.isDouble(candidate)) continue;
+					int score = score(state, candidate);
+					if (score > best) {
+						best = score;
+						move = candidate;
+					}
+				}
+			}
+			state = state.advance(move);
+		}
+		return evaluate(state);
+	}
+
+	/**
+	 * Searches from a root until a deadline, or for a number of rollouts if
+	 * it is not 0
+	 *
+	 * @return the number of rollouts played
+	 */
+	private int search(Node root, long deadline, AtomicInteger nodes, long seed) {
+		SplittableRandom random = new SplittableRandom(seed);
+		LongMoveList moves = new LongMoveList();
+		List<Node> path = new ArrayList<>();
+		int count = 0;
+		do {
+			path.clear();
+			root.enter();
+			path.add(root);
+			for (Node node = root.select(nodes); node != null; node = node.select(nodes)) {
+				path.add(node);
+				// New nodes have no statistics yet, so roll out from them.
+				if (node.visits == 0) break;
+			}
+			double result = rollout(path.get(path.size() - 1).state, moves, random);
+			for (Node node : path)
+				node.leave(result);
+			count++;
+		} while ((rolloutsPerMove == 0 ? System.nanoTime() < deadline : count < rolloutsPerMove)
+				&& !Thread.currentThread().isInterrupted());
+		return count;
+	}
+
+	/**
+	 * Looks for a state among the descendants of a node, up to a depth
+	 *
+	 * @return the matching node, or null if there is none
+	 */
+	private static Node find(Node node, GameState state, int depth) {
+		if (node.state.zobristKey() == state.zobristKey() && node.state.equals(state))
+			return node;
+		if (depth == 0) return null;
+		for (Node child : node.children()) {
+			Node found = find(child, state, depth - 1);
+			if (found != null) return found;
+		}
+		return null;
+	}
+
+	/**
+	 * @return the number of nodes in the tree below a node, including itself
+	 */
+	private static int size(Node node) {
+		int size = 1;
+		for (Node child : node.children())
+			size += size(child);
+		return size;
+	}
+
+	private class Search implements Player {
+
+		private final SplittableRandom seeds = new SplittableRandom();
+		private Node root;
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+
+			long start = System.nanoTime();
+			long deadline = start + budget.toNanos();
+			GameState state = GameState.of(view, location);
+
+			// The detectives have moved once each since the last search.
+			Node reused = root == null ? null : find(root, state, state.getPlayers().size() - 1);
+			root = reused != null ? reused : new Node(-1, state);
+			if (reused != null) reusedTrees.increment();
+
+			// The kept tree counts towards the limit, so it cannot grow every turn.
+			AtomicInteger nodes = new AtomicInteger(size(root));
+			List<Callable<Integer>> searches = new ArrayList<>(threads);
+			for (int i = 0; i < threads; i++) {
+				long seed = seeds.nextLong();
+				Node root = this.root;
+				searches.add(() -> search(root, deadline, nodes, seed));
+			}
+
+			try {
+				for (Future<Integer> future : executor.invokeAll(searches))
+					rollouts.add(future.get());
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while searching", e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("Search failed", e.getCause());
+			} finally {
+				searchNanos.add(System.nanoTime() - start);
+			}
+
+			Node best = null;
+			for (Node child : root.children())
+				if (moves.contains(MoveCodec.decode(child.move))
+						&& (best == null || child.visits > best.visits))
+					best = child;
+
+			if (best == null) {
+				root = null;
+				callback.accept(moves.iterator().next());
+				return;
+			}
+
+			root = best;
+			callback.accept(MoveCodec.decode(best.move));
+
+		}
+
+	}
+
+	private class Chase implements Player {
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			int target = view.getPlayerLocation(Colour.BLACK).orElse(0);
+			Move best = null;
+			int nearest = Integer.MAX_VALUE;
+			for (Move move : moves) {
+				long encoded = MoveCodec.encode(move);
+				int distance = MoveCodec.isPass(encoded) ? FAR
+						: distance(MoveCodec.finalDestination(encoded), target);
+				if (distance < nearest) {
+					nearest = distance;
+					best = move;
+				}
+			}
+			callback.accept(best);
+		}
+
+	}
+
+}
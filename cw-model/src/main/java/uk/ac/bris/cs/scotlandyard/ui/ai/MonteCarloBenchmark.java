@@ -0,0 +1,62 @@
+package uk.ac.bris.cs.scotlandyard.ui.ai;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationRunner;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationRunner.Report;
+
+/**
+ * Plays {@link MonteCarlo} and {@link Trev} as Mr X against the same
+ * detectives, which chase Mr X's last known location, on the same seeds and
+ * with the same move timeout, and prints how often each wins along with how
+ * many rollouts per second the search played.
+ *
+ * Arguments are the number of games, 40 by default, and the time each Mr X
+ * move may take in milliseconds, 200 by default. Games are played one at a
+ * time as the search uses every processor.
+ */
+public final class MonteCarloBenchmark {
+
+	private MonteCarloBenchmark() {
+		// nope
+	}
+
+	private static Report play(Graph<Integer, Transport> graph, Supplier<? extends PlayerFactory> mrX,
+			int games, long millis) {
+		return new SimulationRunner.Builder(ScotlandYardModel::new, mrX, () -> new MonteCarlo(1), graph)
+				.threads(1)
+				.moveTimeout(millis * 4, TimeUnit.MILLISECONDS)
+				.build()
+				.run(games, 0);
+	}
+
+	public static void main(String[] args) throws IOException {
+		int games = args.length > 0 ? Integer.parseInt(args[0]) : 40;
+		long millis = args.length > 1 ? Long.parseLong(args[1]) : 200;
+		Graph<Integer, Transport> graph = StandardGame.standardGraph();
+
+		System.out.println("Trev:       " + play(graph, Trev::new, games, millis));
+
+		List<MonteCarlo> searches = new CopyOnWriteArrayList<>();
+		Report report = play(graph, () -> {
+			MonteCarlo search = new MonteCarlo();
+			searches.add(search);
+			return search;
+		}, games, millis);
+		long rollouts = searches.stream().mapToLong(MonteCarlo::rollouts).sum();
+		double perSecond = searches.stream().mapToDouble(MonteCarlo::rolloutsPerSecond)
+				.filter(rate -> rate > 0).average().orElse(0);
+		System.out.println("MonteCarlo: " + report);
+		System.out.printf("MonteCarlo: %d rollouts, %.0f rollouts/s%n", rollouts, perSecond);
+	}
+
+}
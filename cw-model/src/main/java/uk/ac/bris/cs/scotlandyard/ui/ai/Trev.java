@@ -1,7 +1,10 @@
 package uk.ac.bris.cs.scotlandyard.ui.ai;
 
+import uk.ac.bris.cs.scotlandyard.ai.DistanceTable;
 import uk.ac.bris.cs.scotlandyard.ai.ManagedAI;
 import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
 import uk.ac.bris.cs.scotlandyard.model.*;
 
 import java.util.Set;
@@ -10,12 +13,19 @@ import java.util.function.Consumer;
 @ManagedAI("Trev")
 public class Trev implements PlayerFactory {
 
+	private volatile DistanceTable distances;
+
 	@Override
 	public Player createPlayer(Colour colour) {
 		return new MyPlayer();
 	}
 
-	private static class MyPlayer implements Player, MoveVisitor {
+	@Override
+	public void ready(Visualiser visualiser, ResourceProvider provider) {
+		distances = provider.getDistances();
+	}
+
+	private class MyPlayer implements Player, MoveVisitor {
 
 		private int location;
 		private int furthestDistance;
@@ -35,7 +45,7 @@ public class Trev implements PlayerFactory {
 		 */
 		public void visit(TicketMove move) {
 
-			int distance = Math.abs(location - move.destination());
+			int distance = distance(move.destination());
 
 			if(distance >= furthestDistance) {
 
@@ -52,7 +62,7 @@ public class Trev implements PlayerFactory {
 		 */
 		public void visit(DoubleMove move) {
 
-			int distance = Math.abs(location - move.finalDestination());
+			int distance = distance(move.finalDestination());
 
 			if(distance >= furthestDistance) {
 
@@ -63,6 +73,23 @@ public class Trev implements PlayerFactory {
 
 		}
 
+		/**
+		 * Measures moves along the map when the last known location is on it,
+		 * otherwise falls back to the difference in node numbers
+		 * @param destination the destination of a move
+		 * @return the distance from the last known location of MrX
+		 */
+		private int distance(int destination) {
+
+			DistanceTable table = distances;
+
+			if (table != null && table.contains(location) && table.contains(destination))
+				return table.distance(location, destination);
+
+			return Math.abs(location - destination);
+
+		}
+
 		@Override
 		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
 				Consumer<Move> callback) {
@@ -4,11 +4,13 @@ import net.kurobako.gesturefx.GesturePane;
 
 import org.fxmisc.easybind.EasyBind;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.function.Consumer;
-import java.util.function.Function;
 
 import javafx.animation.Animation;
 import javafx.animation.FadeTransition;
@@ -76,7 +78,9 @@ public final class Board implements Controller, GameControl, Player {
 
 	private final Map<Colour, Counter> counters = new HashMap<>();
 	private final Map<Colour, BoardPlayer> players = new HashMap<>();
-	private final Map<Integer, MoveHint> hints = new HashMap<>();
+	// Hints indexed by node, with the shown ones listed in the order drawn.
+	private MoveHint[] hints = new MoveHint[0];
+	private final List<MoveHint> shownHints = new ArrayList<>();
 	private final Map<Colour, Path> paths = new HashMap<>();
 
 	private ModelConfiguration configuration;
@@ -164,37 +168,45 @@ public final class Board implements Controller, GameControl, Player {
 	}
 
 	MoveHint hintAt(int node) {
-		return hints.get(node);
+		return node >= 0 && node < hints.length ? hints[node] : null;
+	}
+
+	private MoveHint hintAt(int node, Consumer<Move> moveCallback) {
+		if (node >= hints.length)
+			hints = Arrays.copyOf(hints, Math.max(node + 1, hints.length * 2));
+		MoveHint hint = hints[node];
+		if (hint == null) {
+			hint = hints[node] = new MoveHint(manager, this, node, moveCallback);
+			shownHints.add(hint);
+		}
+		return hint;
 	}
 
 	private void drawMoveHints(Set<Move> moves, Consumer<Move> moveCallback) {
 		clearMoveHints();
-		Function<Integer, MoveHint> mapping = location -> new MoveHint(manager,
-				this,
-				location,
-				moveCallback);
 		// attach tickets to hint
 		for (Move move : moves) {
 			move.visit(new MoveVisitor() {
 				@Override
 				public void visit(TicketMove move) {
-					hints.computeIfAbsent(move.destination(), mapping).addMove(move);
+					hintAt(move.destination(), moveCallback).addMove(move);
 				}
 
 				@Override
 				public void visit(DoubleMove move) {
-					hints.computeIfAbsent(move.firstMove().destination(), mapping);
-					hints.computeIfAbsent(move.secondMove().destination(), mapping).addMove(move);
+					hintAt(move.firstMove().destination(), moveCallback);
+					hintAt(move.secondMove().destination(), moveCallback).addMove(move);
 				}
 			});
 		}
-		hints.values().stream().map(MoveHint::root)
+		shownHints.stream().map(MoveHint::root)
 				.forEach(n -> hintPane.getChildren().add(n));
 	}
 
 	private void clearMoveHints() {
-		hints.values().forEach(MoveHint::discard);
-		hints.clear();
+		shownHints.forEach(MoveHint::discard);
+		shownHints.clear();
+		Arrays.fill(hints, null);
 		hintPane.getChildren().clear();
 	}
 
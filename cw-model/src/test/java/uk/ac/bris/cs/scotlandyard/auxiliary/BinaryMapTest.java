@@ -0,0 +1,97 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.model.BinaryMap;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link BinaryMap}
+ */
+public class BinaryMapTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private static List<String> resourceLines(String resource) throws IOException {
+		try (InputStream stream = BinaryMapTest.class.getClassLoader().getResourceAsStream(resource)) {
+			return Arrays.asList(new String(stream.readAllBytes(), StandardCharsets.UTF_8).split("\\R"));
+		}
+	}
+
+	private static void assertSameGraph(Graph<Integer, Transport> actual, Graph<Integer, Transport> expected) {
+		assertThat(actual.getNodes()).isEqualTo(expected.getNodes());
+		for (Node<Integer> node : expected.getNodes())
+			assertThat(new ArrayList<>(actual.getEdgesFrom(node)))
+					.isEqualTo(new ArrayList<>(expected.getEdgesFrom(node)));
+	}
+
+	@Test
+	public void testCompiledStandardMapMatchesTextFiles() throws IOException {
+		BinaryMap text = BinaryMap.fromText(resourceLines("graph.txt"), resourceLines("pos.txt"));
+		BinaryMap binary = BinaryMap.readResource("graph.bin");
+		assertThat(binary).isNotNull();
+		assertSameGraph(binary.graph(), text.graph());
+		assertThat(binary.coordinates()).isEqualTo(text.coordinates()).hasSize(199);
+		assertSameGraph(StandardGame.standardGraph(),
+				ScotlandYardGraphReader.fromLines(resourceLines("graph.txt")));
+		assertThat(StandardGame.pngMapPositionEntries().get(1).getKey())
+				.isEqualTo(text.coordinates().get(1).getKey() + StandardGame.MAP_OFFSET);
+	}
+
+	@Test
+	public void testWriteThenMapRoundTrips() throws IOException {
+		IntGraph<Transport> graph = new IntGraph.Builder<Transport>()
+				.addNode(2).addNode(7).addNode(5)
+				.addUndirectedEdge(2, 7, Transport.FERRY)
+				.addEdge(5, 2, Transport.BUS)
+				.build();
+		BinaryMap map = BinaryMap.of(graph, BinaryMap.parseCoordinates(Arrays.asList("3", "2 10 20", "7 30 40")));
+		Path file = folder.newFile().toPath();
+		map.write(file);
+		BinaryMap read = BinaryMap.read(file);
+		assertSameGraph(read.graph(), graph);
+		assertThat(read.graph().getEdges()).isEqualTo(graph.getEdges());
+		assertThat(read.coordinates()).isEqualTo(map.coordinates());
+		assertThat(BinaryMap.read(ByteBuffer.wrap(Files.readAllBytes(file))).coordinates())
+				.isEqualTo(map.coordinates());
+	}
+
+	@Test
+	public void testCorruptFilesAreRejected() throws IOException {
+		assertThatThrownBy(() -> BinaryMap.read(ByteBuffer.wrap("not a map at all".getBytes(StandardCharsets.UTF_8))))
+				.isInstanceOf(IOException.class);
+		Path file = folder.newFile().toPath();
+		BinaryMap.readResource("graph.bin").write(file);
+		byte[] bytes = Files.readAllBytes(file);
+		assertThatThrownBy(() -> BinaryMap.read(ByteBuffer.wrap(Arrays.copyOf(bytes, bytes.length / 2))))
+				.isInstanceOf(IOException.class);
+		// Point the first edge at a node that does not exist.
+		ByteBuffer broken = ByteBuffer.wrap(bytes.clone());
+		int targets = 4 * (6 + 199 + 201);
+		broken.putInt(targets, 1000);
+		assertThatThrownBy(() -> BinaryMap.read(broken)).isInstanceOf(IOException.class);
+		assertThat(BinaryMap.readResource("no-such-map.bin")).isNull();
+	}
+
+}
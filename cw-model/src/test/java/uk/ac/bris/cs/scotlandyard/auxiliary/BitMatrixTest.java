@@ -0,0 +1,112 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.matrix.BitMatrix;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.model.TransportAdjacency;
+import uk.ac.bris.cs.scotlandyard.simulation.MapGenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link BitMatrix}
+ */
+public class BitMatrixTest {
+
+	/**
+	 * Checks powers of the adjacency matrix against stepping every node one
+	 * move at a time
+	 */
+	private static void assertPowersMatchSteps(IntGraph<Transport> graph, int mask, int rounds) {
+		TransportAdjacency adjacency = TransportAdjacency.of(graph);
+		BitMatrix matrix = adjacency.matrix(mask);
+		BitMatrix[] powers = matrix.powers(rounds);
+		for (int node = 0; node <= adjacency.maxNodeId(); node += 7) {
+			long[] set = adjacency.newNodeSet(0);
+			TransportAdjacency.add(set, node);
+			for (int k = 0; k <= rounds; k++) {
+				assertThat(powers[k].row(node)).as("%s after %s", node, k).isEqualTo(set);
+				long[] next = adjacency.newNodeSet(0);
+				adjacency.reachable(set, mask, null, next);
+				set = next;
+			}
+		}
+		assertThat(matrix.power(rounds)).isEqualTo(powers[rounds]);
+		assertThat(matrix.power(0)).isEqualTo(powers[0]);
+	}
+
+	@Test
+	public void testPowersMatchStepsOnStandardMap() throws IOException {
+		IntGraph<Transport> graph = IntGraph.of(StandardGame.standardGraph());
+		assertPowersMatchSteps(graph, TransportAdjacency.ALL, 24);
+		assertPowersMatchSteps(graph, TransportAdjacency.mask(Transport.BUS), 5);
+	}
+
+	@Test
+	public void testPowersMatchStepsInParallel() {
+		// Large enough for the multiplication to be split up.
+		IntGraph<Transport> graph = IntGraph.of(new MapGenerator.Builder(1500).seed(2).build().graph());
+		assertPowersMatchSteps(graph, TransportAdjacency.mask(Transport.TAXI), 9);
+	}
+
+	@Test
+	public void testAdjacencyOfEachTransport() throws IOException {
+		IntGraph<Transport> graph = IntGraph.of(StandardGame.standardGraph());
+		TransportAdjacency adjacency = TransportAdjacency.of(graph);
+		for (Transport transport : Transport.values())
+			assertThat(BitMatrix.adjacency(graph, transport::equals))
+					.isEqualTo(adjacency.matrix(TransportAdjacency.mask(transport)));
+		BitMatrix ferry = BitMatrix.adjacency(graph, Transport.FERRY::equals);
+		assertThat(ferry.get(108, 115)).isTrue();
+		assertThat(ferry.get(115, 108)).isTrue();
+		assertThat(ferry.cardinality(1)).isZero();
+	}
+
+	@Test
+	public void testOrAccumulation() {
+		// 0 -> 1 -> 2 -> 3
+		BitMatrix path = new BitMatrix(4);
+		path.set(0, 1);
+		path.set(1, 2);
+		path.set(2, 3);
+		BitMatrix within = BitMatrix.identity(4);
+		for (BitMatrix power : path.powers(3))
+			within.or(power);
+		assertThat(within.row(0)).containsExactly(0b1111L);
+		assertThat(within.row(2)).containsExactly(0b1100L);
+		assertThat(within.cardinality()).isEqualTo(10);
+
+		BitMatrix into = BitMatrix.identity(4);
+		path.multiplyInto(path, into);
+		assertThat(into.get(0, 2)).isTrue();
+		assertThat(into.get(3, 3)).isTrue();
+		assertThat(into.cardinality()).isEqualTo(6);
+		assertThat(path.step(new long[] { 0b0011L })).containsExactly(0b0110L);
+		assertThat(path.power(4).cardinality()).isZero();
+
+		path.clear(0, 1);
+		assertThat(path.get(0, 1)).isFalse();
+	}
+
+	@Test
+	public void testBadArguments() {
+		BitMatrix matrix = new BitMatrix(3);
+		assertThatThrownBy(() -> matrix.get(3, 0)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.set(0, -1)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.multiply(new BitMatrix(4)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.multiplyInto(matrix, matrix))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> matrix.power(-1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new BitMatrix(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(Arrays.asList(matrix.powers(0))).containsExactly(BitMatrix.identity(3));
+	}
+
+}
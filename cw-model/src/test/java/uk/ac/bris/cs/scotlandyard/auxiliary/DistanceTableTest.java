@@ -0,0 +1,124 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.ai.DistanceTable;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.TAXI;
+
+/**
+ * Tests for {@link DistanceTable}
+ */
+public class DistanceTableTest {
+
+	private static Graph<Integer, Transport> graph;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		graph = StandardGame.standardGraph();
+	}
+
+	private static Map<Integer, Integer> search(Node<Integer> source, Set<Transport> transports) {
+		Map<Integer, Integer> distances = new HashMap<>();
+		Deque<Node<Integer>> queue = new ArrayDeque<>();
+		distances.put(source.value(), 0);
+		queue.add(source);
+		while (!queue.isEmpty()) {
+			Node<Integer> node = queue.poll();
+			for (Edge<Integer, Transport> edge : graph.getEdgesFrom(node)) {
+				if (transports.contains(edge.data())
+						&& !distances.containsKey(edge.destination().value())) {
+					distances.put(edge.destination().value(), distances.get(node.value()) + 1);
+					queue.add(edge.destination());
+				}
+			}
+		}
+		return distances;
+	}
+
+	private static void assertMatchesSearch(DistanceTable table, Set<Transport> transports) {
+		for (Node<Integer> from : graph.getNodes()) {
+			Map<Integer, Integer> expected = search(from, transports);
+			for (Node<Integer> to : graph.getNodes())
+				assertThat(table.distance(from.value(), to.value()))
+						.isEqualTo(expected.getOrDefault(to.value(), DistanceTable.UNREACHABLE));
+		}
+	}
+
+	@Test
+	public void testEveryTransportMatchesBreadthFirstSearch() {
+		DistanceTable table = DistanceTable.of(graph);
+		assertMatchesSearch(table, EnumSet.allOf(Transport.class));
+		assertThat(table.distance(1, 1)).isZero();
+		assertThat(table.distance(1, 46)).isEqualTo(1);
+	}
+
+	@Test
+	public void testTransportSubsetMatchesBreadthFirstSearch() {
+		Set<Transport> transports = EnumSet.of(TAXI, BUS);
+		DistanceTable table = DistanceTable.of(graph, transports);
+		assertThat(table.transports()).isEqualTo(transports);
+		assertMatchesSearch(table, transports);
+	}
+
+	@Test
+	public void testNodesOffTheMapAreUnreachable() {
+		DistanceTable table = DistanceTable.of(graph, EnumSet.noneOf(Transport.class));
+		assertThat(table.distance(1, 8)).isEqualTo(DistanceTable.UNREACHABLE);
+		assertThat(table.distance(1, 1)).isZero();
+		assertThat(table.contains(0)).isFalse();
+		assertThat(table.distance(0, 1)).isEqualTo(DistanceTable.UNREACHABLE);
+		assertThat(table.distance(1, 1000)).isEqualTo(DistanceTable.UNREACHABLE);
+	}
+
+	@Test
+	public void testLongDistancesFallBackToShorts() {
+		IntGraph.Builder<Transport> builder = new IntGraph.Builder<>();
+		for (int node = 0; node < 400; node++)
+			builder.addNode(node);
+		for (int node = 1; node < 400; node++)
+			builder.addUndirectedEdge(node - 1, node, TAXI);
+		DistanceTable table = DistanceTable.of(builder.build());
+		assertThat(table.distance(0, 399)).isEqualTo(399);
+		assertThat(table.distance(250, 3)).isEqualTo(247);
+	}
+
+	@Test
+	public void testCachedTablesAreShared() {
+		DistanceTable all = DistanceTable.cached(graph, Arrays.asList(Transport.values()));
+		assertThat(DistanceTable.cached(graph, EnumSet.allOf(Transport.class))).isSameAs(all);
+		assertThat(DistanceTable.cached(graph, EnumSet.of(TAXI))).isNotSameAs(all);
+		assertThatThrownBy(() -> DistanceTable.cached(null, EnumSet.of(TAXI)))
+				.isInstanceOf(NullPointerException.class);
+	}
+
+	@Test
+	public void testTablesOfDifferentMapsAreCachedTogether() throws IOException {
+		Graph<Integer, Transport> other = StandardGame.standardGraph();
+		DistanceTable first = DistanceTable.cached(graph, EnumSet.of(BUS));
+		DistanceTable second = DistanceTable.cached(other, EnumSet.of(BUS));
+		assertThat(second).isNotSameAs(first);
+		assertThat(DistanceTable.cached(graph, EnumSet.of(BUS))).isSameAs(first);
+		assertThat(DistanceTable.cached(other, EnumSet.of(BUS))).isSameAs(second);
+	}
+
+}
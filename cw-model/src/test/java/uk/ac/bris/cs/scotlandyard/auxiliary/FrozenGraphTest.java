@@ -0,0 +1,124 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.DEFAULT_REVEAL;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.detectiveTickets;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.mrXTickets;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.ofRounds;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+
+/**
+ * Tests for {@link UndirectedGraph#freeze()} and
+ * {@link ImmutableGraph#copyOf(Graph)}
+ */
+public class FrozenGraphTest {
+
+	private static List<String> lines;
+
+	@BeforeClass
+	public static void setUp() throws IOException, URISyntaxException {
+		lines = Files.readAllLines(Paths.get(
+				FrozenGraphTest.class.getResource("/game_graph.txt").toURI()));
+	}
+
+	private static UndirectedGraph<Integer, Transport> smallGraph() {
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		graph.addNode(new Node<>(1));
+		graph.addNode(new Node<>(2));
+		graph.addEdge(new Edge<>(graph.getNode(1), graph.getNode(2), Transport.TAXI));
+		return graph;
+	}
+
+	@Test
+	public void testFrozenGraphCannotChange() {
+		UndirectedGraph<Integer, Transport> graph = smallGraph();
+		assertThat(graph.isFrozen()).isFalse();
+		assertThat(graph.freeze()).isSameAs(graph);
+		assertThat(graph.isFrozen()).isTrue();
+		assertThatThrownBy(() -> graph.addNode(new Node<>(3)))
+				.isInstanceOf(IllegalStateException.class);
+		assertThatThrownBy(() -> graph.addEdge(new Edge<>(graph.getNode(2), graph.getNode(1), Transport.BUS)))
+				.isInstanceOf(IllegalStateException.class);
+		assertThat(graph.getNodes()).hasSize(2);
+		assertThat(new UndirectedGraph<>(graph).isFrozen()).isFalse();
+	}
+
+	@Test
+	public void testViewsAreCachedUntilNodesAreAdded() {
+		UndirectedGraph<Integer, Transport> graph = smallGraph();
+		List<Node<Integer>> nodes = graph.getNodes();
+		assertThat(graph.getNodes()).isSameAs(nodes);
+		assertThat(graph.getEdges()).isSameAs(graph.getEdges());
+		assertThat(graph.getEdgesFrom(new Node<>(1))).isSameAs(graph.getEdgesFrom(new Node<>(1)));
+		assertThatThrownBy(() -> nodes.add(new Node<>(3)))
+				.isInstanceOf(UnsupportedOperationException.class);
+		graph.addNode(new Node<>(3));
+		assertThat(graph.getNodes()).isNotSameAs(nodes).hasSize(3);
+		assertThat(nodes).hasSize(2);
+		assertThatThrownBy(() -> graph.getEdgesFrom(new Node<>(4)))
+				.isInstanceOf(NullPointerException.class);
+	}
+
+	@Test
+	public void testCopyOfSharesGraphsThatCannotChange() {
+		ImmutableGraph<Integer, Transport> read = ScotlandYardGraphReader.fromLines(lines);
+		assertThat(ImmutableGraph.copyOf(read)).isSameAs(read);
+		ImmutableGraph<Integer, Transport> ints = new ImmutableGraph<>(
+				ScotlandYardGraphReader.intGraphFromLines(lines));
+		assertThat(ImmutableGraph.copyOf(ints)).isSameAs(ints);
+		IntGraph<Transport> graph = ScotlandYardGraphReader.intGraphFromLines(lines);
+		assertThat(IntGraph.of(ImmutableGraph.copyOf(graph))).isSameAs(graph);
+		assertThat(IntGraph.of(new ImmutableGraph<>(new ImmutableGraph<>(graph)))).isSameAs(graph);
+	}
+
+	@Test
+	public void testCopyOfCopiesGraphsThatCanChange() {
+		UndirectedGraph<Integer, Transport> graph = smallGraph();
+		ImmutableGraph<Integer, Transport> copy = ImmutableGraph.copyOf(graph);
+		assertThat(copy).isEqualTo(graph);
+		ImmutableGraph<Integer, Transport> wrapper = new ImmutableGraph<>(graph);
+		assertThat(ImmutableGraph.copyOf(wrapper)).isNotSameAs(wrapper).isEqualTo(graph);
+		graph.addNode(new Node<>(3));
+		assertThat(copy.getNodes()).hasSize(2);
+		assertThat(wrapper.getNodes()).hasSize(3);
+	}
+
+	@Test
+	public void testModelGraphIsTheSameEveryTime() {
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>(
+				ScotlandYardGraphReader.fromLines(lines));
+		Player player = (view, location, moves, callback) -> callback.accept(moves.iterator().next());
+		ScotlandYardModel model = new ScotlandYardModel(ofRounds(24, DEFAULT_REVEAL), graph,
+				new PlayerConfiguration.Builder(BLACK).using(player)
+						.with(mrXTickets()).at(51).build(),
+				new PlayerConfiguration.Builder(BLUE).using(player)
+						.with(detectiveTickets()).at(26).build());
+		assertThat(model.getGraph()).isSameAs(model.getGraph()).isEqualTo(graph);
+		graph.addNode(new Node<>(1000));
+		assertThat(model.getGraph().containsNode(1000)).isFalse();
+	}
+
+}
@@ -0,0 +1,141 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.scotlandyard.model.GameState;
+import uk.ac.bris.cs.scotlandyard.model.LongMoveSet;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.MoveCodec;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Zobrist;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.taxi;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.threePlayerModel;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+
+/**
+ * Tests {@link GameState} against random playouts of
+ * {@link ScotlandYardModel}
+ */
+public class GameStateTest {
+
+	/**
+	 * Picks random moves and advances a state alongside the model
+	 */
+	private static class AdvancingPlayer implements Player {
+
+		private final Random random;
+		private GameState state;
+
+		AdvancingPlayer(long seed) {
+			this.random = new Random(seed);
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			LongMoveSet generated = new LongMoveSet();
+			state.generateMoves(generated);
+			assertThat(generated.toMoveSet()).isEqualTo(moves);
+			Move move = new ArrayList<>(moves).get(random.nextInt(moves.size()));
+			state = state.advance(move);
+			callback.accept(move);
+		}
+	}
+
+	@Test
+	public void testAdvanceMatchesModelSnapshots() {
+		for (long seed = 0; seed < 20; seed++) {
+
+			AdvancingPlayer player = new AdvancingPlayer(seed);
+			ScotlandYardModel model = threePlayerModel(player);
+			GameState initial = GameState.of(model, 51);
+			String initialString = initial.toString();
+			player.state = initial;
+
+			while (!model.isGameOver()) {
+				model.startRotate();
+				GameState snapshot = GameState.of(model, player.state.location(BLACK));
+				assertThat(player.state).isEqualTo(snapshot);
+				assertThat(player.state.isGameOver()).isEqualTo(model.isGameOver());
+				assertThat(player.state.getWinningPlayers()).isEqualTo(model.getWinningPlayers());
+				assertThat(snapshot.getPlayerLocation(BLACK))
+						.isEqualTo(model.getPlayerLocation(BLACK));
+				assertThat(snapshot.getGraph()).isSameAs(initial.getGraph());
+				// The model's key covers Mr X's actual location, which its view hides.
+				assertThat(player.state.zobristKey()).isEqualTo(model.zobristKey());
+				assertThat(model.zobristKey()).isEqualTo(Zobrist.of(model, snapshot.location(BLACK)));
+			}
+
+			assertThat(initial.toString()).isEqualTo(initialString);
+		}
+	}
+
+	@Test
+	public void testAdvanceLeavesOriginalUnchanged() {
+		GameState state = GameState.of(threePlayerModel(new AdvancingPlayer(0)), 51);
+		GameState next = state.advance(taxi(BLACK, 39)).advance(taxi(BLUE, 15));
+		assertThat(state.location(BLACK)).isEqualTo(51);
+		assertThat(state.tickets(BLACK, TAXI)).isEqualTo(4);
+		assertThat(state.getCurrentPlayer()).isEqualTo(BLACK);
+		assertThat(next.location(BLACK)).isEqualTo(39);
+		assertThat(next.location(BLUE)).isEqualTo(15);
+		assertThat(next.tickets(BLACK, TAXI)).isEqualTo(4);
+		assertThat(next.tickets(BLUE, TAXI)).isEqualTo(state.tickets(BLUE, TAXI) - 1);
+		assertThat(next.getCurrentRound()).isEqualTo(1);
+		assertThat(next.getRounds()).isSameAs(state.getRounds());
+		assertThat(next.zobristKey()).isNotEqualTo(state.zobristKey());
+		assertThat(next.zobristKey()).isEqualTo(Zobrist.of(next, 39));
+	}
+
+	@Test
+	public void testNestedMoveGenerationKeepsDetectivesOccupied() {
+		GameState state = GameState.of(threePlayerModel(new AdvancingPlayer(0)), 51);
+		GameState next = state.advance(taxi(BLACK, 39)).advance(taxi(BLUE, 15));
+		LongMoveSet expected = new LongMoveSet();
+		state.generateMoves(expected);
+		LongMoveSet nested = new LongMoveSet();
+		state.generateMoves(move -> {
+			nested.accept(move);
+			// Shares a detective location with the outer call and moves another.
+			next.generateMoves(BLACK, ignored -> { });
+		});
+		assertThat(nested.toMoveSet()).isEqualTo(expected.toMoveSet());
+		assertThat(expected.contains(MoveCodec.ticketMove(BLACK, TAXI, 38))).isTrue();
+		assertThat(expected.contains(MoveCodec.doubleMove(BLACK, TAXI, 38, TAXI, 50))).isFalse();
+	}
+
+	@Test
+	public void testModelMoveGenerationIsReentrant() {
+		ScotlandYardModel model = threePlayerModel(new AdvancingPlayer(0));
+		LongMoveSet expected = new LongMoveSet();
+		model.generateMoves(BLACK, expected);
+		LongMoveSet nested = new LongMoveSet();
+		// Blue has no double or secret tickets, which must not leak into Mr X's moves.
+		model.generateMoves(BLACK, move -> {
+			nested.accept(move);
+			model.generateMoves(BLUE, ignored -> { });
+		});
+		assertThat(nested.toMoveSet()).isEqualTo(expected.toMoveSet());
+	}
+
+	@Test
+	public void testAdvanceForWrongPlayerThrows() {
+		GameState state = GameState.of(threePlayerModel(new AdvancingPlayer(0)), 51);
+		assertThatThrownBy(() -> state.advance(taxi(RED, 1)))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
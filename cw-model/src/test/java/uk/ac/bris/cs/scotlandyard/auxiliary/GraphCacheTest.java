@@ -0,0 +1,93 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.model.GraphCache;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link GraphCache}
+ */
+public class GraphCacheTest {
+
+	@Test
+	public void testValuesArePerGraphInstanceAndSlot() {
+		GraphCache<String> cache = new GraphCache<>(2);
+		UndirectedGraph<Integer, Transport> first = new UndirectedGraph<>();
+		UndirectedGraph<Integer, Transport> second = new UndirectedGraph<>();
+		AtomicInteger computed = new AtomicInteger();
+		assertThat(cache.get(first, 0, () -> "first " + computed.incrementAndGet())).isEqualTo("first 1");
+		assertThat(cache.get(first, 0, () -> "first " + computed.incrementAndGet())).isEqualTo("first 1");
+		assertThat(cache.get(first, 1, () -> "other " + computed.incrementAndGet())).isEqualTo("other 2");
+		// Equal but distinct maps do not share values.
+		assertThat(first).isEqualTo(second);
+		assertThat(cache.get(second, 0, () -> "second " + computed.incrementAndGet()))
+				.isEqualTo("second 3");
+	}
+
+	@Test
+	public void testConcurrentCallersComputeOnce() throws Exception {
+		GraphCache<Integer> cache = new GraphCache<>(1);
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		AtomicInteger computed = new AtomicInteger();
+		CountDownLatch start = new CountDownLatch(1);
+		ExecutorService executor = Executors.newFixedThreadPool(4);
+		try {
+			List<Future<Integer>> results = new ArrayList<>();
+			for (int i = 0; i < 8; i++)
+				results.add(executor.submit(() -> {
+					start.await();
+					return cache.get(graph, 0, () -> {
+						try {
+							Thread.sleep(20);
+						} catch (InterruptedException e) {
+							Thread.currentThread().interrupt();
+						}
+						return computed.incrementAndGet();
+					});
+				}));
+			start.countDown();
+			for (Future<Integer> result : results)
+				assertThat(result.get()).isEqualTo(1);
+			assertThat(computed).hasValue(1);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testFailuresAreRetried() {
+		GraphCache<String> cache = new GraphCache<>(1);
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		assertThatThrownBy(() -> cache.get(graph, 0, () -> {
+			throw new IllegalStateException("failed");
+		})).isInstanceOf(IllegalStateException.class).hasMessage("failed");
+		assertThat(cache.get(graph, 0, () -> "value")).isEqualTo("value");
+	}
+
+	@Test
+	public void testBadArguments() {
+		GraphCache<String> cache = new GraphCache<>(1);
+		UndirectedGraph<Integer, Transport> graph = new UndirectedGraph<>();
+		assertThatThrownBy(() -> new GraphCache<>(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> cache.get(graph, 1, () -> "value"))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> cache.get(null, 0, () -> "value"))
+				.isInstanceOf(NullPointerException.class);
+		assertThatThrownBy(() -> cache.get(graph, 0, () -> null))
+				.isInstanceOf(NullPointerException.class);
+	}
+
+}
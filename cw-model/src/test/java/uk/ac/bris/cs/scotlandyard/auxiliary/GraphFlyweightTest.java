@@ -0,0 +1,87 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.gamekit.graph.UndirectedGraph;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.TAXI;
+
+/**
+ * Tests for the shared {@link Node} and {@link Edge} instances of graphs
+ */
+public class GraphFlyweightTest {
+
+	@Test
+	public void testSmallNodesArePooled() {
+		assertThat(Node.of(0)).isSameAs(Node.of(0));
+		assertThat(Node.of(199)).isSameAs(Node.of(199)).isEqualTo(new Node<>(199));
+		assertThat(Node.of(5000)).isEqualTo(Node.of(5000));
+		assertThat(Node.of(-3).value()).isEqualTo(-3);
+		assertThat(Node.of(42).hashCode()).isEqualTo(new Node<>(42).hashCode());
+	}
+
+	@Test
+	public void testSwapIsCachedBothWays() {
+		Edge<Integer, Transport> edge = new Edge<>(Node.of(1), Node.of(2), TAXI);
+		Edge<Integer, Transport> swapped = edge.swap();
+		assertThat(swapped).isEqualTo(new Edge<>(Node.of(2), Node.of(1), TAXI));
+		assertThat(edge.swap()).isSameAs(swapped);
+		assertThat(swapped.swap()).isSameAs(edge);
+		assertThat(edge).isNotEqualTo(swapped);
+		assertThat(edge.hashCode()).isEqualTo(new Edge<>(Node.of(1), Node.of(2), TAXI).hashCode());
+	}
+
+	@Test
+	public void testGraphsShareNodesAndReverseEdges() {
+		IntGraph<Transport> graph = new IntGraph.Builder<Transport>()
+				.addNode(1).addNode(2).addNode(3)
+				.addUndirectedEdge(1, 2, TAXI)
+				.addUndirectedEdge(1, 2, BUS)
+				.addEdge(2, 3, BUS)
+				.build();
+		assertThat(graph.getNode(2)).isSameAs(Node.of(2));
+		assertThat(graph.getNode(Integer.valueOf(2))).isSameAs(graph.getNode(2));
+		for (Edge<Integer, Transport> edge : graph.getEdgesFrom(Node.of(1)))
+			assertThat(graph.getEdgesFrom(Node.of(2))).anySatisfy(
+					reverse -> assertThat(reverse).isSameAs(edge.swap()));
+		Edge<Integer, Transport> oneWay = graph.getEdgesFrom(Node.of(2)).stream()
+				.filter(edge -> edge.destination().value() == 3).findFirst().get();
+		assertThat(graph.getEdgesFrom(Node.of(3))).doesNotContain(oneWay.swap());
+
+		UndirectedGraph<Integer, Transport> undirected = new UndirectedGraph<>();
+		undirected.addNode(Node.of(1));
+		undirected.addNode(Node.of(2));
+		Edge<Integer, Transport> edge = new Edge<>(Node.of(1), Node.of(2), TAXI);
+		undirected.addEdge(edge);
+		assertThat(undirected.getEdgesFrom(Node.of(2))).anySatisfy(
+				reverse -> assertThat(reverse).isSameAs(edge.swap()));
+	}
+
+	@Test
+	public void testHashCodesAreRecomputedAfterSerialisation() throws IOException, ClassNotFoundException {
+		Edge<Integer, Transport> edge = new Edge<>(Node.of(1), Node.of(2), TAXI);
+		int hash = edge.hashCode();
+		ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+		try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+			out.writeObject(edge);
+		}
+		try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+			Object read = in.readObject();
+			assertThat(read).isEqualTo(edge);
+			assertThat(read.hashCode()).isEqualTo(hash);
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Transport.TAXI;
+
+/**
+ * Tests for {@link IntGraph}
+ */
+public class IntGraphTest {
+
+	private static List<String> lines;
+
+	@BeforeClass
+	public static void setUp() throws IOException, URISyntaxException {
+		lines = Files.readAllLines(Paths.get(
+				IntGraphTest.class.getResource("/game_graph.txt").toURI()));
+	}
+
+	@Test
+	public void testMatchesUndirectedGraphEdgeForEdge() {
+		Graph<Integer, Transport> expected = ScotlandYardGraphReader.fromLines(lines);
+		IntGraph<Transport> graph = ScotlandYardGraphReader.intGraphFromLines(lines);
+		assertThat(graph.size()).isEqualTo(199);
+		assertThat(graph.getNodes()).isEqualTo(expected.getNodes());
+		assertThat(graph.getEdges()).hasSameSizeAs(expected.getEdges());
+		for (Node<Integer> node : expected.getNodes()) {
+			List<Edge<Integer, Transport>> edges = new ArrayList<>();
+			int id = node.value();
+			for (int e = graph.edgeStart(id); e < graph.edgeEnd(id); e++)
+				edges.add(new Edge<>(node, new Node<>(graph.target(e)), graph.data(e)));
+			assertThat(edges).containsExactlyElementsOf(expected.getEdgesFrom(node));
+			assertThat(graph.getEdgesFrom(node)).containsExactlyElementsOf(expected.getEdgesFrom(node));
+			assertThat(graph.getEdgesTo(node)).allMatch(edge -> edge.destination().equals(node));
+		}
+		assertThat(IntGraph.of(expected).getEdges()).isEqualTo(graph.getEdges());
+	}
+
+	@Test
+	public void testOfUnwrapsExistingIntGraph() {
+		IntGraph<Transport> graph = ScotlandYardGraphReader.intGraphFromLines(lines);
+		assertThat(IntGraph.of(graph)).isSameAs(graph);
+		assertThat(IntGraph.of(new ImmutableGraph<>(new ImmutableGraph<>(graph)))).isSameAs(graph);
+	}
+
+	@Test
+	public void testBuilderKeepsEdgeOrderAndPalette() {
+		IntGraph<Transport> graph = new IntGraph.Builder<Transport>()
+				.addNode(3).addNode(1).addNode(7)
+				.addEdge(7, 1, BUS)
+				.addUndirectedEdge(1, 3, TAXI)
+				.addEdge(1, 7, BUS)
+				.build();
+		assertThat(graph.getNodes()).extracting(Node::value).containsExactly(3, 1, 7);
+		assertThat(graph.maxNodeId()).isEqualTo(7);
+		assertThat(graph.degree(1)).isEqualTo(2);
+		assertThat(graph.target(graph.edgeStart(1))).isEqualTo(3);
+		assertThat(graph.target(graph.edgeStart(1) + 1)).isEqualTo(7);
+		assertThat(graph.degree(2)).isZero();
+		assertThat(graph.containsNode(2)).isFalse();
+		assertThat(graph.getNode(2)).isNull();
+		assertThat(graph.palette()).containsExactly(BUS, TAXI);
+		assertThat(graph.dataIndex(graph.edgeStart(7))).isZero();
+	}
+
+	@Test
+	public void testBuilderRejectsBadNodes() {
+		IntGraph.Builder<Transport> builder = new IntGraph.Builder<Transport>().addNode(1);
+		assertThatThrownBy(() -> builder.addNode(-1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> builder.addNode(1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> builder.addEdge(1, 2, TAXI))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> builder.build().addNode(new Node<>(5)))
+				.isInstanceOf(UnsupportedOperationException.class);
+	}
+
+}
@@ -0,0 +1,93 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Arrays;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.scotlandyard.ai.DistanceTable;
+import uk.ac.bris.cs.scotlandyard.model.BinaryMap;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.simulation.MapGenerator;
+import uk.ac.bris.cs.scotlandyard.simulation.ScalingBenchmark;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.within;
+
+/**
+ * Tests for {@link MapGenerator} and {@link ScalingBenchmark}
+ */
+public class MapGeneratorTest {
+
+	private static String graphText(MapGenerator map) throws IOException {
+		StringBuilder out = new StringBuilder();
+		map.writeGraph(out);
+		return out.toString();
+	}
+
+	@Test
+	public void testSameSeedGivesSameMap() throws IOException {
+		MapGenerator a = new MapGenerator.Builder(500).seed(7).build();
+		MapGenerator b = new MapGenerator.Builder(500).seed(7).build();
+		MapGenerator c = new MapGenerator.Builder(500).seed(8).build();
+		assertThat(graphText(a)).isEqualTo(graphText(b)).isNotEqualTo(graphText(c));
+		assertThat(a.coordinates()).isEqualTo(b.coordinates());
+	}
+
+	@Test
+	public void testWrittenMapReadsBack() throws IOException {
+		MapGenerator map = new MapGenerator.Builder(300).seed(1).build();
+		Graph<Integer, Transport> read = ScotlandYardGraphReader.fromReader(
+				new StringReader(graphText(map)));
+		IntGraph<Transport> graph = map.graph();
+		assertThat(read.getNodes()).isEqualTo(graph.getNodes());
+		assertThat(read.getEdges()).containsExactlyElementsOf(graph.getEdges());
+
+		StringBuilder positions = new StringBuilder();
+		map.writePositions(positions);
+		assertThat(BinaryMap.parseCoordinates(Arrays.asList(positions.toString().split("\n"))))
+				.isEqualTo(map.coordinates()).hasSize(300);
+		assertThat(map.coordinates().get(42).getKey()).isEqualTo(map.x(42));
+	}
+
+	@Test
+	public void testMapIsConnectedWithTheTransportMix() {
+		MapGenerator map = new MapGenerator.Builder(2000).seed(3).build();
+		DistanceTable distances = DistanceTable.of(map.graph(), Arrays.asList(Transport.TAXI));
+		for (int node = 1; node <= 2000; node++)
+			assertThat(distances.distance(1, node)).isNotEqualTo(DistanceTable.UNREACHABLE);
+		assertThat(map.edgeCount(Transport.TAXI)).isCloseTo(3500, within(150));
+		assertThat(map.edgeCount(Transport.BUS)).isEqualTo(1000);
+		assertThat(map.edgeCount(Transport.UNDERGROUND)).isEqualTo(200);
+		assertThat(map.edgeCount(Transport.FERRY)).isEqualTo(3);
+		assertThat(map.edgeCount()).isEqualTo(map.edgeCount(Transport.TAXI) + 1203);
+	}
+
+	@Test
+	public void testSettingsAreChecked() {
+		assertThatThrownBy(() -> new MapGenerator.Builder(1)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new MapGenerator.Builder(10).busDegree(-1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new MapGenerator.Builder(10).taxiDegree(Double.NaN))
+				.isInstanceOf(IllegalArgumentException.class);
+		MapGenerator sparse = new MapGenerator.Builder(100).taxiDegree(0).busDegree(0)
+				.undergroundDegree(0).ferries(0).build();
+		assertThat(sparse.edgeCount()).isEqualTo(99);
+	}
+
+	@Test
+	public void testBenchmarkPlaysEveryGame() {
+		ScalingBenchmark.Measurement measurement = ScalingBenchmark.run(400, 2, 5);
+		assertThat(measurement.nodes()).isEqualTo(400);
+		assertThat(measurement.playouts()).isEqualTo(2);
+		assertThat(measurement.moveGenerations()).isPositive();
+		assertThat(measurement.gameOverChecks()).isEqualTo(measurement.moveGenerations() + 2);
+		assertThat(measurement.toString()).contains("400 nodes");
+	}
+
+}
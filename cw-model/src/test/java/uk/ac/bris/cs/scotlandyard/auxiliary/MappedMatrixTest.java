@@ -0,0 +1,102 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.MappedMatrix;
+import uk.ac.bris.cs.gamekit.matrix.MappedMatrix.Width;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestMatrices.counting;
+
+/**
+ * Tests for {@link MappedMatrix}
+ */
+public class MappedMatrixTest {
+
+	@Rule public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void testEveryWidthRoundTrips() throws IOException {
+		IntSquareMatrix matrix = counting(10);
+		for (Width width : Width.values()) {
+			Path file = folder.newFile().toPath();
+			MappedMatrix.copyOf(file, matrix, width).close();
+			assertThat(Files.size(file)).isEqualTo(32 + 100L * width.bytes());
+			try (MappedMatrix read = MappedMatrix.open(file)) {
+				assertThat(read.size()).isEqualTo(10);
+				assertThat(read.width()).isEqualTo(width);
+				assertThat(read.verify()).isTrue();
+				assertThat(IntSquareMatrix.copyOf(read.asMatrix())).isEqualTo(matrix);
+				assertThat(read.asMatrix()).isEqualTo(matrix.asMatrix());
+			}
+		}
+	}
+
+	@Test
+	public void testSmallCellsAreUnsigned() throws IOException {
+		Path file = folder.newFile().toPath();
+		try (MappedMatrix matrix = MappedMatrix.create(file, 2, Width.BYTE)) {
+			matrix.put(0, 0, 255);
+			assertThat(matrix.get(0, 0)).isEqualTo(255);
+			assertThatThrownBy(() -> matrix.put(0, 1, 256)).isInstanceOf(IllegalArgumentException.class);
+			assertThatThrownBy(() -> matrix.put(0, 1, -1)).isInstanceOf(IllegalArgumentException.class);
+		}
+		try (MappedMatrix matrix = MappedMatrix.create(file, 2, Width.INT)) {
+			matrix.put(1, 1, -1);
+			assertThat(matrix.get(1, 1)).isEqualTo(-1);
+			assertThat(matrix.get(0, 0)).isZero();
+		}
+	}
+
+	@Test
+	public void testReadOnlyAndBounds() throws IOException {
+		Path file = folder.newFile().toPath();
+		MappedMatrix.copyOf(file, counting(3), Width.SHORT).close();
+		try (MappedMatrix matrix = MappedMatrix.open(file)) {
+			matrix.load();
+			assertThat(matrix.asMatrix().row(1)).containsExactly(3, 4, 5);
+			assertThat(matrix.asMatrix().antiDiagonal()).containsExactly(2, 4, 6);
+			assertThatThrownBy(() -> matrix.put(0, 0, 1))
+					.isInstanceOf(UnsupportedOperationException.class);
+			assertThatThrownBy(() -> matrix.get(3, 0)).isInstanceOf(IndexOutOfBoundsException.class);
+			assertThatThrownBy(() -> matrix.get(0, -1)).isInstanceOf(IndexOutOfBoundsException.class);
+		}
+		try (MappedMatrix matrix = MappedMatrix.open(file, true)) {
+			matrix.asMatrix().put(0, 0, 9);
+		}
+		try (MappedMatrix matrix = MappedMatrix.open(file)) {
+			assertThat(matrix.get(0, 0)).isEqualTo(9);
+			assertThat(matrix.verify()).isTrue();
+		}
+	}
+
+	@Test
+	public void testCorruptFilesAreRejected() throws IOException {
+		Path file = folder.newFile().toPath();
+		MappedMatrix.copyOf(file, counting(4), Width.INT).close();
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.write(ByteBuffer.wrap(new byte[] { 1 }), 40);
+		}
+		try (MappedMatrix matrix = MappedMatrix.open(file)) {
+			assertThat(matrix.verify()).isFalse();
+		}
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+			channel.truncate(40);
+		}
+		assertThatThrownBy(() -> MappedMatrix.open(file)).isInstanceOf(IOException.class);
+		Path empty = folder.newFile().toPath();
+		assertThatThrownBy(() -> MappedMatrix.open(empty)).isInstanceOf(IOException.class);
+	}
+
+}
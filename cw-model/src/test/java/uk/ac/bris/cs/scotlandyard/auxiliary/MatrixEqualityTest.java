@@ -0,0 +1,108 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+
+import uk.ac.bris.cs.gamekit.matrix.DoubleSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.ImmutableMatrix;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.Matrix;
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestMatrices.boxedCounting;
+
+/**
+ * Tests equality, hashing and cell visiting across the matrix types
+ */
+public class MatrixEqualityTest {
+
+	@Test
+	public void testHashIsTheHashOfTheFlattenedList() {
+		SquareMatrix<Integer> matrix = boxedCounting(3);
+		matrix.put(1, 1, null);
+		int expected = Objects.hash(new ArrayList<>(matrix.asList()));
+		assertThat(matrix.hashCode()).isEqualTo(expected);
+		assertThat(new ImmutableMatrix<>(matrix).hashCode()).isEqualTo(expected);
+		IntSquareMatrix ints = IntSquareMatrix.copyOf(boxedCounting(3));
+		assertThat(ints.asMatrix().hashCode())
+				.isEqualTo(Objects.hash(new ArrayList<>(ints.asMatrix().asList())));
+	}
+
+	@Test
+	public void testEqualityAcrossTypes() {
+		SquareMatrix<Integer> matrix = boxedCounting(3);
+		Matrix<Integer> ints = IntSquareMatrix.copyOf(matrix).asMatrix();
+		ImmutableMatrix<Integer> immutable = new ImmutableMatrix<>(matrix);
+		assertThat(matrix).isEqualTo(ints).isEqualTo(immutable).isEqualTo(new SquareMatrix<>(matrix));
+		assertThat(ints).isEqualTo(matrix).isEqualTo(immutable);
+		assertThat(immutable).isEqualTo(matrix).isEqualTo(ints)
+				.isEqualTo(new ImmutableMatrix<>(new SquareMatrix<>(matrix)));
+		assertThat(immutable.hashCode()).isEqualTo(ints.hashCode()).isEqualTo(matrix.hashCode());
+
+		SquareMatrix<Integer> other = boxedCounting(3);
+		other.put(2, 2, null);
+		assertThat(matrix).isNotEqualTo(other);
+		assertThat(other).isNotEqualTo(ints);
+		assertThat(new ImmutableMatrix<>(other)).isNotEqualTo(immutable);
+		assertThat(matrix).isNotEqualTo(new SquareMatrix<>(2, 0));
+		assertThat(new SquareMatrix<>(2, (Integer) null)).isEqualTo(new SquareMatrix<>(2, (Integer) null));
+	}
+
+	@Test
+	public void testImmutableViewFollowsTheWrappedMatrix() {
+		SquareMatrix<Integer> matrix = boxedCounting(3);
+		ImmutableMatrix<Integer> view = new ImmutableMatrix<>(matrix);
+		ImmutableMatrix<Integer> other = new ImmutableMatrix<>(boxedCounting(3));
+		assertThat(view.hashCode()).isEqualTo(other.hashCode());
+		matrix.put(0, 0, 10);
+		assertThat(view).isNotEqualTo(other);
+		assertThat(view.hashCode()).isEqualTo(matrix.hashCode());
+		matrix.put(0, 0, 0);
+		assertThat(view).isEqualTo(other);
+		assertThat(view.hashCode()).isEqualTo(other.hashCode());
+	}
+
+	@Test
+	public void testAsListIsAnUnmodifiableView() {
+		SquareMatrix<Integer> matrix = boxedCounting(3);
+		List<Integer> list = matrix.asList();
+		assertThat(list).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8);
+		matrix.put(2, 0, 60);
+		assertThat(list.get(6)).isEqualTo(60);
+		assertThatThrownBy(() -> list.set(0, 1)).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> list.get(9)).isInstanceOf(IndexOutOfBoundsException.class);
+	}
+
+	@Test
+	public void testForEachCellVisitsRowByRow() {
+		List<String> visited = new ArrayList<>();
+		Matrix.CellVisitor<Object> record = (row, column, cell) ->
+				visited.add(row + "," + column + "=" + cell);
+		List<String> expected = Arrays.asList("0,0=0", "0,1=1", "0,2=2", "1,0=3", "1,1=4",
+				"1,2=5", "2,0=6", "2,1=7", "2,2=8");
+
+		boxedCounting(3).forEachCell(record);
+		assertThat(visited).isEqualTo(expected);
+		visited.clear();
+		new ImmutableMatrix<>(boxedCounting(3)).forEachCell(record);
+		assertThat(visited).isEqualTo(expected);
+		visited.clear();
+		IntSquareMatrix.copyOf(boxedCounting(3)).asMatrix().forEachCell(record);
+		assertThat(visited).isEqualTo(expected);
+		visited.clear();
+		IntSquareMatrix.copyOf(boxedCounting(3)).forEachCell((row, column, value) ->
+				visited.add(row + "," + column + "=" + value));
+		assertThat(visited).isEqualTo(expected);
+
+		double[] sum = new double[1];
+		new DoubleSquareMatrix(2, 0.5).forEachCell((row, column, value) -> sum[0] += value);
+		assertThat(sum[0]).isEqualTo(2.0);
+	}
+
+}
@@ -0,0 +1,96 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import uk.ac.bris.cs.scotlandyard.model.DoubleMove;
+import uk.ac.bris.cs.scotlandyard.model.LongMoveList;
+import uk.ac.bris.cs.scotlandyard.model.LongMoveSet;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.MoveCodec;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.YELLOW;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.BUS;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.SECRET;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.TAXI;
+import static uk.ac.bris.cs.scotlandyard.model.Ticket.UNDERGROUND;
+
+/**
+ * Tests for {@link MoveCodec}, {@link LongMoveList} and {@link LongMoveSet}
+ */
+public class MoveCodecTest {
+
+	@Test
+	public void testRoundTripsEveryMoveKind() {
+		Move[] moves = {
+				new PassMove(YELLOW),
+				new TicketMove(YELLOW, UNDERGROUND, 199),
+				new DoubleMove(BLACK, SECRET, 1, BUS, MoveCodec.MAX_DESTINATION)};
+		for (Move move : moves)
+			assertThat(MoveCodec.decode(MoveCodec.encode(move))).isEqualTo(move);
+	}
+
+	@Test
+	public void testAccessorsMatchEncodedFields() {
+		long move = MoveCodec.doubleMove(BLACK, TAXI, 42, SECRET, 108);
+		assertThat(MoveCodec.isDouble(move)).isTrue();
+		assertThat(MoveCodec.colour(move)).isEqualTo(BLACK);
+		assertThat(MoveCodec.ticket(move)).isEqualTo(TAXI);
+		assertThat(MoveCodec.destination(move)).isEqualTo(42);
+		assertThat(MoveCodec.secondTicket(move)).isEqualTo(SECRET);
+		assertThat(MoveCodec.secondDestination(move)).isEqualTo(108);
+		assertThat(MoveCodec.finalDestination(move)).isEqualTo(108);
+		assertThat(move).isNotNegative();
+	}
+
+	@Test
+	public void testDistinctMovesHaveDistinctEncodings() {
+		assertThat(MoveCodec.ticketMove(BLACK, TAXI, 1))
+				.isNotEqualTo(MoveCodec.ticketMove(YELLOW, TAXI, 1))
+				.isNotEqualTo(MoveCodec.ticketMove(BLACK, BUS, 1))
+				.isNotEqualTo(MoveCodec.doubleMove(BLACK, TAXI, 1, TAXI, 0))
+				.isNotEqualTo(MoveCodec.passMove(BLACK));
+	}
+
+	@Test
+	public void testDestinationOutOfRangeThrows() {
+		assertThatThrownBy(() -> MoveCodec.ticketMove(BLACK, TAXI, -1))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> MoveCodec.ticketMove(BLACK, TAXI, MoveCodec.MAX_DESTINATION + 1))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+	@Test
+	public void testListGrowsAndClears() {
+		LongMoveList list = new LongMoveList(1);
+		for (int i = 0; i < 100; i++)
+			list.add(MoveCodec.ticketMove(BLACK, TAXI, i));
+		assertThat(list.size()).isEqualTo(100);
+		assertThat(MoveCodec.destination(list.get(99))).isEqualTo(99);
+		assertThat(list.contains(MoveCodec.ticketMove(BLACK, TAXI, 50))).isTrue();
+		list.clear();
+		assertThat(list.isEmpty()).isTrue();
+	}
+
+	@Test
+	public void testSetIgnoresDuplicates() {
+		LongMoveSet set = new LongMoveSet();
+		for (int i = 0; i < 1000; i++) {
+			assertThat(set.add(MoveCodec.doubleMove(BLACK, TAXI, i, SECRET, i + 1))).isTrue();
+			assertThat(set.add(MoveCodec.doubleMove(BLACK, TAXI, i, SECRET, i + 1))).isFalse();
+		}
+		assertThat(set.size()).isEqualTo(1000);
+		assertThat(set.contains(MoveCodec.doubleMove(BLACK, TAXI, 500, SECRET, 501))).isTrue();
+		assertThat(set.contains(MoveCodec.doubleMove(BLACK, TAXI, 500, SECRET, 500))).isFalse();
+		assertThat(set.toMoveSet()).hasSize(1000)
+				.contains(new DoubleMove(BLACK, TAXI, 0, SECRET, 1));
+		set.clear();
+		assertThat(set.isEmpty()).isTrue();
+		assertThat(set.contains(MoveCodec.doubleMove(BLACK, TAXI, 500, SECRET, 501))).isFalse();
+	}
+
+}
@@ -0,0 +1,103 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import uk.ac.bris.cs.gamekit.matrix.DoubleSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.Matrix;
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestMatrices.counting;
+
+/**
+ * Tests for {@link IntSquareMatrix} and {@link DoubleSquareMatrix}
+ */
+public class PrimitiveMatrixTest {
+
+	@Test
+	public void testRowsColumnsAndDiagonals() {
+		IntSquareMatrix matrix = counting(3);
+		assertThat(matrix.get(1, 2)).isEqualTo(5);
+		assertThat(matrix.row(1)).containsExactly(3, 4, 5);
+		assertThat(matrix.column(1)).containsExactly(1, 4, 7);
+		assertThat(matrix.mainDiagonal()).containsExactly(0, 4, 8);
+		assertThat(matrix.antiDiagonal()).containsExactly(2, 4, 6);
+		int[] into = new int[5];
+		matrix.copyColumn(2, into, 1);
+		assertThat(into).containsExactly(0, 2, 5, 8, 0);
+		matrix.row(0, new int[] { 9, 9, 9 });
+		matrix.column(0, new int[] { 1, 1, 1 });
+		assertThat(matrix.toArray()).containsExactly(1, 9, 9, 1, 4, 5, 1, 7, 8);
+		assertThat(new IntSquareMatrix(2, 7).toArray()).containsOnly(7);
+	}
+
+	@Test
+	public void testBoundsAreChecked() {
+		IntSquareMatrix matrix = counting(3);
+		assertThatThrownBy(() -> matrix.get(3, 0)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.get(0, -1)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.put(-1, 0, 1)).isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.copyColumn(0, new int[3], 1))
+				.isInstanceOf(IndexOutOfBoundsException.class);
+		assertThatThrownBy(() -> matrix.row(0, new int[2])).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new IntSquareMatrix(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThat(matrix.inBounds(2, 2)).isTrue();
+		assertThat(matrix.inBounds(2, 3)).isFalse();
+	}
+
+	@Test
+	public void testViewsWriteThrough() {
+		IntSquareMatrix matrix = counting(3);
+		IntBuffer row = matrix.rowView(2);
+		assertThat(row.capacity()).isEqualTo(3);
+		row.put(1, 70);
+		assertThat(matrix.get(2, 1)).isEqualTo(70);
+
+		Matrix<Integer> view = matrix.asMatrix();
+		List<Integer> column = view.column(1);
+		view.put(0, 1, 10);
+		assertThat(column).containsExactly(10, 4, 70);
+		assertThat(matrix.get(0, 1)).isEqualTo(10);
+		assertThat(view.antiDiagonal()).containsExactly(2, 4, 6);
+		assertThatThrownBy(() -> column.set(0, 1)).isInstanceOf(UnsupportedOperationException.class);
+		assertThatThrownBy(() -> view.put(0, 0, null)).isInstanceOf(NullPointerException.class);
+	}
+
+	@Test
+	public void testAdapterMatchesSquareMatrix() {
+		SquareMatrix<Integer> boxed = new SquareMatrix<>(3, 0);
+		for (int row = 0; row < 3; row++)
+			for (int column = 0; column < 3; column++)
+				boxed.put(row, column, row * 3 + column);
+		IntSquareMatrix matrix = counting(3);
+		assertThat(matrix.asMatrix()).isEqualTo(boxed);
+		assertThat(matrix.asMatrix().hashCode()).isEqualTo(boxed.hashCode());
+		assertThat(matrix.asMatrix().asList()).isEqualTo(boxed.asList());
+		assertThat(matrix.asMatrix().mainDiagonal()).isEqualTo(boxed.mainDiagonal());
+		assertThat(IntSquareMatrix.copyOf(boxed)).isEqualTo(matrix);
+		assertThat(new IntSquareMatrix(matrix)).isEqualTo(matrix).isNotSameAs(matrix);
+		assertThat(matrix.toString()).isEqualTo(boxed.toString());
+	}
+
+	@Test
+	public void testDoubleMatrix() {
+		DoubleSquareMatrix matrix = new DoubleSquareMatrix(2, -0.0);
+		assertThat(Double.doubleToRawLongBits(matrix.get(1, 1)))
+				.isEqualTo(Double.doubleToRawLongBits(-0.0));
+		matrix.put(0, 1, 0.5);
+		matrix.rowView(1).put(0, 2.5);
+		assertThat(matrix.row(0)).containsExactly(-0.0, 0.5);
+		assertThat(matrix.column(0)).containsExactly(-0.0, 2.5);
+		assertThat(matrix.asMatrix().asList()).isEqualTo(Arrays.asList(-0.0, 0.5, 2.5, -0.0));
+		assertThat(DoubleSquareMatrix.copyOf(matrix.asMatrix())).isEqualTo(matrix);
+		assertThatThrownBy(() -> DoubleSquareMatrix.copyOf(new SquareMatrix<>(2, (Double) null)))
+				.isInstanceOf(NullPointerException.class);
+	}
+
+}
@@ -2,7 +2,24 @@ package uk.ac.bris.cs.scotlandyard.auxiliary;
 
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.StringReader;
+import java.net.URISyntaxException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.Pipe;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.gamekit.graph.ImmutableGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
 import uk.ac.bris.cs.scotlandyard.model.Transport;
 
@@ -58,4 +75,84 @@ public class ScotlandYardGraphReaderTest {
 		assertThatThrownBy(() -> fromLines(asList("2 1", "1", "2", "Foo Bar Baz")));
 	}
 
-}
\ No newline at end of file
+	private static Graph<Integer, Transport> read(String text) throws IOException {
+		return fromReader(new StringReader(text));
+	}
+
+	@Test
+	public void testStreamingMatchesLines() throws IOException, URISyntaxException {
+		Path file = Paths.get(getClass().getResource("/game_graph.txt").toURI());
+		Graph<Integer, Transport> expected = fromLines(Files.readAllLines(file));
+		Graph<Integer, Transport> fromReader;
+		try (Reader reader = Files.newBufferedReader(file)) {
+			fromReader = fromReader(reader);
+		}
+		Graph<Integer, Transport> fromChannel;
+		try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+			fromChannel = fromChannel(channel);
+		}
+		for (Graph<Integer, Transport> graph : asList(fromReader, fromChannel)) {
+			assertThat(graph.getNodes()).isEqualTo(expected.getNodes());
+			for (Node<Integer> node : expected.getNodes())
+				assertThat(new ArrayList<>(graph.getEdgesFrom(node)))
+						.isEqualTo(new ArrayList<>(expected.getEdgesFrom(node)));
+		}
+	}
+
+	@Test
+	public void testStreamingValidFile() throws IOException {
+		Graph<Integer, Transport> graph = read("3 1\r\n1\r\n2 \r\n3\r\n1\t2 underground\r\n");
+		assertThat(graph.getNodes()).hasSize(3);
+		assertThat(graph.getEdges()).hasSize(2);
+		assertThat(graph.getEdges().iterator().next().data()).isEqualTo(Transport.UNDERGROUND);
+		assertThat(fromChannel(Channels.newChannel(new ByteArrayInputStream(
+				"2 1\n5\n6\n5 6 Bus".getBytes(StandardCharsets.US_ASCII)))).getEdges()).hasSize(2);
+	}
+
+	@Test
+	public void testStreamingRejectsNonBlockingChannel() throws IOException {
+		Pipe pipe = Pipe.open();
+		try {
+			pipe.source().configureBlocking(false);
+			assertThatThrownBy(() -> fromChannel(pipe.source()))
+					.isInstanceOf(IllegalArgumentException.class);
+		} finally {
+			pipe.source().close();
+			pipe.sink().close();
+		}
+	}
+
+	@Test
+	public void testStreamingLargeMapAcrossBuffers() throws IOException {
+		StringBuilder text = new StringBuilder("5000 4999\n");
+		for (int node = 0; node < 5000; node++)
+			text.append(node).append('\n');
+		for (int node = 1; node < 5000; node++)
+			text.append(node - 1).append(' ').append(node).append(" Taxi\n");
+		assertThat(read(text.toString()).getEdges()).hasSize(2 * 4999);
+	}
+
+	@Test
+	public void testStreamingErrorsReportLineNumbers() {
+		assertThatThrownBy(() -> read("")).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> read("Foo Bar"))
+				.hasMessageContaining("Expected integer at line 1");
+		assertThatThrownBy(() -> read("2 1\n1\nFoo\n1 2 Taxi"))
+				.hasMessageContaining("Expected integer at line 3");
+		assertThatThrownBy(() -> read("2 1\n1\n2\n1 2 Boat"))
+				.hasMessageContaining("at line 4");
+		assertThatThrownBy(() -> read("2 1\n1\n2\n1 3 Taxi"))
+				.hasMessageContaining("destination node 3").hasMessageContaining("line 4");
+		assertThatThrownBy(() -> read("2 1\n1\n\n1 2 Taxi"))
+				.hasMessageContaining("Expected non-empty line at line 3");
+		assertThatThrownBy(() -> read("3 5\n1\n2\n3\n1 2 Ferry\n"))
+				.hasMessageContaining("Unexpected end of input at line 6");
+		assertThatThrownBy(() -> read("2 1\n1\n2\n1 2 Taxi Bus"))
+				.hasMessageContaining("Unexpected symbol 'B' at line 4");
+		assertThatThrownBy(() -> read("2 1\n1\n1\n1 2 Taxi"))
+				.hasMessageContaining("Duplicate node 1 at line 3");
+		assertThatThrownBy(() -> read("2 1\n1\n-3\n1 -3 Taxi"))
+				.hasMessageContaining("Negative node -3 at line 3");
+	}
+
+}
@@ -0,0 +1,153 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.LongMoveSet;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardSearchModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Zobrist;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.DEFAULT_REVEAL;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.detectiveTickets;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.mrXTickets;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.ofRounds;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.testGraph;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLUE;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.GREEN;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.WHITE;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.YELLOW;
+
+/**
+ * Tests {@link ScotlandYardSearchModel} against random playouts of
+ * {@link ScotlandYardModel}
+ */
+public class ScotlandYardSearchModelTest {
+
+	private static final int MRX_LOCATION = 51;
+	private static final Colour[] DETECTIVES = {BLUE, GREEN, RED, WHITE, YELLOW};
+	private static final int[] DETECTIVE_LOCATIONS = {26, 29, 50, 53, 91};
+
+	/**
+	 * Picks random moves and mirrors every move onto the search model
+	 */
+	private static class MirroringPlayer implements Player {
+
+		private final Random random;
+		private ScotlandYardSearchModel search;
+		private final List<String> history = new ArrayList<>();
+
+		MirroringPlayer(long seed) {
+			this.random = new Random(seed);
+		}
+
+		@Override
+		public void makeMove(ScotlandYardView view, int location, Set<Move> moves,
+				Consumer<Move> callback) {
+			LongMoveSet generated = new LongMoveSet();
+			search.generateMoves(generated);
+			assertThat(generated.toMoveSet()).isEqualTo(moves);
+			assertThat(search.location(view.getCurrentPlayer())).isEqualTo(location);
+			Move move = new ArrayList<>(moves).get(random.nextInt(moves.size()));
+			history.add(snapshot(search));
+			search.apply(move);
+			callback.accept(move);
+		}
+	}
+
+	@Test
+	public void testRandomPlayoutsMatchModelAndUndoExactly() {
+		for (long seed = 0; seed < 20; seed++) {
+
+			MirroringPlayer player = new MirroringPlayer(seed);
+			ScotlandYardModel model = createModel(player);
+			player.search = new ScotlandYardSearchModel(model, MRX_LOCATION);
+
+			while (!model.isGameOver()) {
+				model.startRotate();
+				assertSameState(player.search, model);
+			}
+			assertThat(player.search.getWinningPlayers()).isEqualTo(model.getWinningPlayers());
+
+			while (player.search.depth() > 0) {
+				player.search.undo();
+				assertThat(snapshot(player.search))
+						.isEqualTo(player.history.get(player.search.depth()));
+				assertThat(player.search.zobristKey()).isEqualTo(
+						Zobrist.of(player.search, player.search.location(BLACK)));
+			}
+			assertThat(player.search.isGameOver()).isFalse();
+		}
+	}
+
+	@Test
+	public void testUndoWithoutMovesThrows() {
+		ScotlandYardSearchModel search = new ScotlandYardSearchModel(
+				createModel(new MirroringPlayer(0)), MRX_LOCATION);
+		assertThatThrownBy(search::undo).isInstanceOf(IllegalStateException.class);
+	}
+
+	@Test
+	public void testApplyForWrongPlayerThrows() {
+		ScotlandYardSearchModel search = new ScotlandYardSearchModel(
+				createModel(new MirroringPlayer(0)), MRX_LOCATION);
+		assertThatThrownBy(() -> search.apply(TestGames.taxi(BLUE, 1)))
+				.isInstanceOf(IllegalArgumentException.class);
+		assertThat(search.depth()).isZero();
+	}
+
+	private static ScotlandYardModel createModel(Player player) {
+		PlayerConfiguration mrX = new PlayerConfiguration.Builder(BLACK).using(player)
+				.with(mrXTickets()).at(MRX_LOCATION).build();
+		PlayerConfiguration[] detectives = new PlayerConfiguration[DETECTIVES.length];
+		for (int i = 0; i < DETECTIVES.length; i++)
+			detectives[i] = new PlayerConfiguration.Builder(DETECTIVES[i]).using(player)
+					.with(detectiveTickets()).at(DETECTIVE_LOCATIONS[i]).build();
+		return new ScotlandYardModel(ofRounds(24, DEFAULT_REVEAL), testGraph(), mrX, detectives[0],
+				Arrays.copyOfRange(detectives, 1, detectives.length));
+	}
+
+	private static void assertSameState(ScotlandYardSearchModel search, ScotlandYardModel model) {
+		for (Colour colour : model.getPlayers()) {
+			assertThat(search.getPlayerLocation(colour)).isEqualTo(model.getPlayerLocation(colour));
+			for (Ticket ticket : Ticket.values())
+				assertThat(search.getPlayerTickets(colour, ticket))
+						.isEqualTo(model.getPlayerTickets(colour, ticket));
+		}
+		assertThat(search.getCurrentPlayer()).isEqualTo(model.getCurrentPlayer());
+		assertThat(search.getCurrentRound()).isEqualTo(model.getCurrentRound());
+		assertThat(search.isGameOver()).isEqualTo(model.isGameOver());
+		assertThat(search.zobristKey()).isEqualTo(model.zobristKey());
+	}
+
+	private static String snapshot(ScotlandYardSearchModel search) {
+		StringBuilder sb = new StringBuilder();
+		for (Colour colour : search.getPlayers()) {
+			sb.append(colour).append('@').append(search.location(colour));
+			for (Ticket ticket : Ticket.values())
+				sb.append(',').append(search.tickets(colour, ticket));
+			sb.append(';');
+		}
+		return sb.append(search.getCurrentPlayer()).append(';')
+				.append(search.getCurrentRound()).append(';')
+				.append(search.getPlayerLocation(BLACK).orElse(-1)).append(';')
+				.append(search.zobristKey()).toString();
+	}
+
+}
@@ -0,0 +1,113 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.Comparator;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.ai.PlayerFactory;
+import uk.ac.bris.cs.scotlandyard.ai.ResourceProvider;
+import uk.ac.bris.cs.scotlandyard.ai.Visualiser;
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationRunner;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationRunner.Report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link SimulationRunner}
+ */
+public class SimulationRunnerTest {
+
+	private static Graph<Integer, Transport> graph;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		graph = StandardGame.standardGraph();
+	}
+
+	/**
+	 * Always picks the smallest move by its string form, so games only depend
+	 * on their starting locations
+	 */
+	private static PlayerFactory firstMove() {
+		return colour -> (view, location, moves, callback) -> callback.accept(
+				moves.stream().min(Comparator.comparing(Move::toString)).orElseThrow(AssertionError::new));
+	}
+
+	/**
+	 * Same as {@link #firstMove()} but calls back from another thread
+	 */
+	private static PlayerFactory asyncFirstMove() {
+		return colour -> (view, location, moves, callback) -> {
+			Move move = moves.stream().min(Comparator.comparing(Move::toString))
+					.orElseThrow(AssertionError::new);
+			CompletableFuture.runAsync(() -> callback.accept(move));
+		};
+	}
+
+	@Test
+	public void testPlaysEveryGameAndIsRepeatable() {
+		SimulationRunner runner = new SimulationRunner.Builder(ScotlandYardModel::new,
+				SimulationRunnerTest::firstMove, SimulationRunnerTest::firstMove, graph)
+				.threads(4).build();
+		Report first = runner.run(40, 0);
+		Report second = runner.run(40, 0);
+		assertThat(first.games()).isEqualTo(40);
+		assertThat(first.failedSeeds()).isEmpty();
+		assertThat(first.mrXWins() + first.detectiveWins()).isEqualTo(40);
+		assertThat(second.mrXWins()).isEqualTo(first.mrXWins());
+		assertThat(second.averageRounds()).isEqualTo(first.averageRounds());
+		assertThat(first.gamesPerSecond()).isPositive();
+	}
+
+	@Test
+	public void testWaitsForPlayersCallingBackOnOtherThreads() {
+		Report sync = new SimulationRunner.Builder(ScotlandYardModel::new,
+				SimulationRunnerTest::firstMove, SimulationRunnerTest::firstMove, graph)
+				.detectives(3).build().run(10, 100);
+		Report async = new SimulationRunner.Builder(ScotlandYardModel::new,
+				SimulationRunnerTest::asyncFirstMove, SimulationRunnerTest::asyncFirstMove, graph)
+				.detectives(3).build().run(10, 100);
+		assertThat(async.failedSeeds()).isEmpty();
+		assertThat(async.mrXWins()).isEqualTo(sync.mrXWins());
+	}
+
+	@Test
+	public void testFailingPlayersAreReportedNotThrown() {
+		PlayerFactory broken = new PlayerFactory() {
+			@Override
+			public Player createPlayer(Colour colour) {
+				return (view, location, moves, callback) -> {
+					throw new IllegalStateException("broken");
+				};
+			}
+
+			@Override
+			public void ready(Visualiser visualiser, ResourceProvider provider) {
+				assertThat(provider.getGraph()).isSameAs(graph);
+				assertThat(provider.getDistances().distance(1, 46)).isEqualTo(1);
+				assertThatThrownBy(provider::getMap)
+						.isInstanceOf(UnsupportedOperationException.class);
+				assertThatThrownBy(visualiser::surface)
+						.isInstanceOf(UnsupportedOperationException.class);
+			}
+		};
+		Report report = new SimulationRunner.Builder(ScotlandYardModel::new,
+				() -> broken, SimulationRunnerTest::firstMove, graph)
+				.rotationTimeout(5, TimeUnit.SECONDS).build().run(3, 7);
+		assertThat(report.failedSeeds()).containsExactly(7L, 8L, 9L);
+		assertThat(report.firstFailure()).hasMessage("broken");
+	}
+
+}
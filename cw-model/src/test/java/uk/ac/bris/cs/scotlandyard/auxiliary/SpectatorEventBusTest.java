@@ -0,0 +1,224 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+
+import uk.ac.bris.cs.scotlandyard.model.Colour;
+import uk.ac.bris.cs.scotlandyard.model.GameState;
+import uk.ac.bris.cs.scotlandyard.model.Move;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
+import uk.ac.bris.cs.scotlandyard.model.Spectator;
+import uk.ac.bris.cs.scotlandyard.model.SpectatorEventBus;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.threePlayerModel;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.RED;
+
+/**
+ * Tests for {@link SpectatorEventBus}
+ */
+public class SpectatorEventBusTest {
+
+	/**
+	 * Records every event along with what the view showed at the time
+	 */
+	private static class RecordingSpectator implements Spectator {
+
+		final List<String> events = Collections.synchronizedList(new ArrayList<>());
+		final List<ScotlandYardView> views = Collections.synchronizedList(new ArrayList<>());
+		final long delayMillis;
+
+		RecordingSpectator(long delayMillis) {
+			this.delayMillis = delayMillis;
+		}
+
+		private void record(String event, ScotlandYardView view) {
+			events.add(event + " round=" + view.getCurrentRound()
+					+ " current=" + view.getCurrentPlayer()
+					+ " mrX=" + view.getPlayerLocation(BLACK).orElse(-1)
+					+ " red=" + view.getPlayerLocation(RED).orElse(-1)
+					+ " over=" + view.isGameOver());
+			views.add(view);
+			if (delayMillis > 0) {
+				try {
+					Thread.sleep(delayMillis);
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+				}
+			}
+		}
+
+		@Override
+		public void onMoveMade(ScotlandYardView view, Move move) {
+			record("move " + move, view);
+		}
+
+		@Override
+		public void onRoundStarted(ScotlandYardView view, int round) {
+			record("round " + round, view);
+		}
+
+		@Override
+		public void onRotationComplete(ScotlandYardView view) {
+			record("rotation", view);
+		}
+
+		@Override
+		public void onGameOver(ScotlandYardView view, Set<Colour> winningPlayers) {
+			record("over " + new TreeSet<>(winningPlayers), view);
+		}
+	}
+
+	private static List<String> playDirectly() {
+		ScotlandYardModel model = createModel();
+		RecordingSpectator spectator = new RecordingSpectator(0);
+		model.registerSpectator(spectator);
+		while (!model.isGameOver())
+			model.startRotate();
+		return spectator.events;
+	}
+
+	@Test
+	public void testEventsArriveInOrderWithSnapshots() throws InterruptedException {
+		List<String> expected = playDirectly();
+
+		ExecutorService executor = Executors.newFixedThreadPool(2);
+		try (SpectatorEventBus bus = new SpectatorEventBus(executor, 2, 1, e -> {
+			throw new AssertionError(e);
+		})) {
+			ScotlandYardModel model = createModel();
+			RecordingSpectator slow = new RecordingSpectator(1);
+			RecordingSpectator fast = new RecordingSpectator(0);
+			model.registerSpectator(slow);
+			model.registerSpectator(fast);
+			model.setEventBus(bus);
+			while (!model.isGameOver())
+				model.startRotate();
+			bus.flush();
+
+			assertThat(slow.events).containsExactlyElementsOf(expected);
+			assertThat(fast.events).containsExactlyElementsOf(expected);
+			// Snapshots hide Mr X like the model does, even when cast.
+			assertThat(fast.views).noneMatch(view -> view instanceof GameState
+					|| view instanceof ScotlandYardModel);
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test
+	public void testSpectatorExceptionsGoToHandler() throws InterruptedException {
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try (SpectatorEventBus bus = new SpectatorEventBus(executor, 16, 4, errors::add)) {
+			ScotlandYardModel model = createModel();
+			RecordingSpectator recording = new RecordingSpectator(0);
+			model.registerSpectator(new Spectator() {
+				@Override
+				public void onRotationComplete(ScotlandYardView view) {
+					throw new IllegalStateException("spectator failed");
+				}
+			});
+			model.registerSpectator(recording);
+			model.setEventBus(bus);
+			model.startRotate();
+			bus.flush();
+			assertThat(errors).hasSize(1);
+			assertThat(recording.events).last().asString().startsWith("rotation");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testSpectatorErrorsDoNotStopDelivery() throws InterruptedException {
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		ExecutorService executor = Executors.newSingleThreadExecutor();
+		try (SpectatorEventBus bus = new SpectatorEventBus(executor, 16, 4, errors::add)) {
+			ScotlandYardModel model = createModel();
+			RecordingSpectator recording = new RecordingSpectator(0);
+			model.registerSpectator(new Spectator() {
+				@Override
+				public void onMoveMade(ScotlandYardView view, Move move) {
+					throw new AssertionError("spectator failed");
+				}
+			});
+			model.registerSpectator(recording);
+			model.setEventBus(bus);
+			model.startRotate();
+			bus.flush();
+			assertThat(errors).isNotEmpty().allMatch(e -> e instanceof AssertionError);
+			assertThat(recording.events).last().asString().startsWith("rotation");
+		} finally {
+			executor.shutdown();
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testRejectedDrainDoesNotBlockFlush() throws InterruptedException {
+		List<Throwable> errors = Collections.synchronizedList(new ArrayList<>());
+		try (SpectatorEventBus bus = new SpectatorEventBus(runnable -> {
+			throw new RejectedExecutionException("shut down");
+		}, 16, 4, errors::add)) {
+			ScotlandYardModel model = createModel();
+			model.registerSpectator(new RecordingSpectator(0));
+			model.setEventBus(bus);
+			model.startRotate();
+			bus.flush();
+			assertThat(errors).isNotEmpty().allMatch(e -> e instanceof RejectedExecutionException);
+		}
+	}
+
+	@Test(timeout = 10000)
+	public void testUnregisteredSpectatorGetsNoQueuedEvents() throws InterruptedException {
+		List<Runnable> drains = new ArrayList<>();
+		try (SpectatorEventBus bus = new SpectatorEventBus(drains::add, 16, 4, e -> {
+			throw new AssertionError(e);
+		})) {
+			ScotlandYardModel model = createModel();
+			RecordingSpectator removed = new RecordingSpectator(0);
+			RecordingSpectator kept = new RecordingSpectator(0);
+			model.registerSpectator(removed);
+			model.registerSpectator(kept);
+			model.setEventBus(bus);
+			model.startRotate();
+			model.unregisterSpectator(removed);
+			while (!drains.isEmpty())
+				drains.remove(0).run();
+			bus.flush();
+			assertThat(removed.events).isEmpty();
+			assertThat(kept.events).isNotEmpty();
+		}
+	}
+
+	@Test
+	public void testPostAfterCloseThrows() {
+		SpectatorEventBus bus = new SpectatorEventBus();
+		bus.close();
+		ScotlandYardModel model = createModel();
+		model.registerSpectator(new RecordingSpectator(0));
+		model.setEventBus(bus);
+		assertThatThrownBy(model::startRotate).isInstanceOf(IllegalStateException.class);
+	}
+
+	private static ScotlandYardModel createModel() {
+		Player player = (view, location, moves, callback) -> callback.accept(
+				moves.stream().min(Comparator.comparing(Move::toString))
+						.orElseThrow(AssertionError::new));
+		return threePlayerModel(player);
+	}
+
+}
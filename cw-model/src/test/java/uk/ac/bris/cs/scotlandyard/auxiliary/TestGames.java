@@ -2,6 +2,11 @@ package uk.ac.bris.cs.scotlandyard.auxiliary;
 
 import com.google.common.collect.ImmutableMap;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
@@ -12,6 +17,7 @@ import java.util.Set;
 import java.util.function.Consumer;
 import java.util.stream.IntStream;
 
+import uk.ac.bris.cs.gamekit.graph.Graph;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousDoubleMove;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousPassMove;
 import uk.ac.bris.cs.scotlandyard.auxiliary.AnonymousMoves.AnonymousTicketMove;
@@ -22,9 +28,12 @@ import uk.ac.bris.cs.scotlandyard.model.PassMove;
 import uk.ac.bris.cs.scotlandyard.model.Player;
 import uk.ac.bris.cs.scotlandyard.model.PlayerConfiguration;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGame;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
 import uk.ac.bris.cs.scotlandyard.model.ScotlandYardView;
 import uk.ac.bris.cs.scotlandyard.model.Ticket;
 import uk.ac.bris.cs.scotlandyard.model.TicketMove;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
 
 import static java.lang.String.format;
 import static java.util.Arrays.asList;
@@ -400,5 +409,43 @@ public class TestGames {
 		return doNothingPlayer(WHITE, DETECTIVE_LOCATIONS.get(4));
 	}
 
+	private static Graph<Integer, Transport> testGraph;
+
+	/**
+	 * The map the tests play on, read from game_graph.txt once and shared
+	 *
+	 * @return the map; never null
+	 */
+	public static synchronized Graph<Integer, Transport> testGraph() {
+		if (testGraph == null) {
+			try {
+				testGraph = ScotlandYardGraphReader.fromLines(Files.readAllLines(Paths.get(
+						TestGames.class.getResource("/game_graph.txt").toURI())));
+			} catch (IOException e) {
+				throw new UncheckedIOException(e);
+			} catch (URISyntaxException e) {
+				throw new IllegalStateException(e);
+			}
+		}
+		return testGraph;
+	}
+
+	/**
+	 * A game of 24 rounds on {@link #testGraph()} with Mr.X at 51, blue at 26
+	 * and red at 50, all with default tickets
+	 *
+	 * @param player the player making the moves of everyone
+	 * @return the game; never null
+	 */
+	public static ScotlandYardModel threePlayerModel(Player player) {
+		return new ScotlandYardModel(ofRounds(24, DEFAULT_REVEAL), testGraph(),
+				new PlayerConfiguration.Builder(BLACK).using(player)
+						.with(mrXTickets()).at(51).build(),
+				new PlayerConfiguration.Builder(BLUE).using(player)
+						.with(detectiveTickets()).at(26).build(),
+				new PlayerConfiguration.Builder(RED).using(player)
+						.with(detectiveTickets()).at(50).build());
+	}
+
 
 }
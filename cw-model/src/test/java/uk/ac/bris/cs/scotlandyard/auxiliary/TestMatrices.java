@@ -0,0 +1,46 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import uk.ac.bris.cs.gamekit.matrix.IntSquareMatrix;
+import uk.ac.bris.cs.gamekit.matrix.SquareMatrix;
+
+/**
+ * Matrices shared by the matrix tests
+ */
+public final class TestMatrices {
+
+	private TestMatrices() {
+		// nope
+	}
+
+	/**
+	 * A matrix counting up row by row from 0, so for a size of 3:
+	 * <pre>
+	 * 0 1 2
+	 * 3 4 5
+	 * 6 7 8
+	 * </pre>
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 * @return a new matrix; never null
+	 */
+	public static IntSquareMatrix counting(int size) {
+		IntSquareMatrix matrix = new IntSquareMatrix(size);
+		for (int row = 0; row < size; row++)
+			for (int column = 0; column < size; column++)
+				matrix.put(row, column, row * size + column);
+		return matrix;
+	}
+
+	/**
+	 * The same cells as {@link #counting(int)} in a boxed matrix
+	 *
+	 * @param size size of the size*size grid, must be &gt; 0
+	 * @return a new matrix; never null
+	 */
+	public static SquareMatrix<Integer> boxedCounting(int size) {
+		SquareMatrix<Integer> matrix = new SquareMatrix<>(size, 0);
+		counting(size).forEachCell(matrix::put);
+		return matrix;
+	}
+
+}
@@ -0,0 +1,131 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.EnumSet;
+import java.util.Random;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.scotlandyard.ai.DistanceTable;
+import uk.ac.bris.cs.scotlandyard.ai.ThreatField;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.simulation.MapGenerator;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link ThreatField}
+ */
+public class ThreatFieldTest {
+
+	private static final EnumSet<Transport> LAND = EnumSet.complementOf(EnumSet.of(Transport.FERRY));
+
+	private static Graph<Integer, Transport> graph;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		graph = StandardGame.standardGraph();
+	}
+
+	/**
+	 * Checks every node against the distances from each detective
+	 */
+	private static void assertMatchesTable(ThreatField field, DistanceTable table, int maxNode) {
+		for (int node = 0; node <= maxNode + 1; node++) {
+			int best = DistanceTable.UNREACHABLE;
+			int nearest = ThreatField.NONE;
+			for (int detective = 0; detective < field.detectives(); detective++) {
+				int location = field.location(detective);
+				if (!table.contains(location) || !table.contains(node)) continue;
+				int distance = table.distance(location, node);
+				if (distance != DistanceTable.UNREACHABLE
+						&& (best == DistanceTable.UNREACHABLE || distance < best)) {
+					best = distance;
+					nearest = detective;
+				}
+			}
+			assertThat(field.distance(node)).as("distance to %s", node).isEqualTo(best);
+			assertThat(field.nearest(node)).as("nearest to %s", node).isEqualTo(nearest);
+		}
+	}
+
+	private static void assertRandomMovesMatch(Graph<Integer, Transport> graph, int detectives,
+			int moves, long seed) {
+		DistanceTable table = DistanceTable.of(graph, LAND);
+		int maxNode = IntGraph.of(graph).maxNodeId();
+		Random random = new Random(seed);
+		int[] locations = new int[detectives];
+		for (int i = 0; i < detectives; i++)
+			locations[i] = 1 + random.nextInt(maxNode);
+		ThreatField field = new ThreatField(graph);
+		field.place(locations);
+		assertMatchesTable(field, table, maxNode);
+		for (int i = 0; i < moves; i++) {
+			// Sometimes move onto another detective to exercise ties.
+			int location = random.nextInt(4) == 0
+					? field.location(random.nextInt(detectives))
+					: 1 + random.nextInt(maxNode);
+			field.move(random.nextInt(detectives), location);
+			assertMatchesTable(field, table, maxNode);
+		}
+	}
+
+	@Test
+	public void testMovesMatchDistancesOnStandardMap() {
+		assertRandomMovesMatch(graph, 5, 200, 1);
+		assertRandomMovesMatch(graph, 1, 50, 2);
+	}
+
+	@Test
+	public void testMovesMatchDistancesOnGeneratedMap() {
+		assertRandomMovesMatch(new MapGenerator.Builder(1500).seed(4).build().graph(), 5, 100, 3);
+		assertRandomMovesMatch(new MapGenerator.Builder(300).taxiDegree(2).busDegree(0)
+				.undergroundDegree(0).build().graph(), 3, 100, 4);
+	}
+
+	@Test
+	public void testTiesGoToTheFirstDetective() {
+		ThreatField field = new ThreatField(graph);
+		field.place(8, 1, 9);
+		// 1 is next to both 8 and 9
+		assertThat(field.distance(1)).isZero();
+		assertThat(field.nearest(8)).isEqualTo(0);
+		field.move(1, 0);
+		assertThat(field.distance(1)).isEqualTo(1);
+		assertThat(field.nearest(1)).isEqualTo(0);
+		field.move(0, 9);
+		assertThat(field.nearest(9)).isEqualTo(0);
+		assertThat(field.nearest(1)).isEqualTo(0);
+		field.move(1, 1);
+		assertThat(field.nearest(1)).isEqualTo(1);
+	}
+
+	@Test
+	public void testFerriesAreNotUsed() {
+		ThreatField field = new ThreatField(graph);
+		field.place(108);
+		assertThat(field.distance(115)).isGreaterThan(1);
+		ThreatField ferries = new ThreatField(graph, EnumSet.allOf(Transport.class));
+		ferries.place(108);
+		assertThat(ferries.distance(115)).isEqualTo(1);
+	}
+
+	@Test
+	public void testNodesOffTheMapAndBadDetectives() {
+		ThreatField field = new ThreatField(graph);
+		assertThat(field.distance(1)).isEqualTo(ThreatField.UNREACHABLE);
+		field.place(0, 46);
+		assertThat(field.nearest(1)).isEqualTo(1);
+		assertThat(field.distance(0)).isEqualTo(ThreatField.UNREACHABLE);
+		assertThat(field.nearest(500)).isEqualTo(ThreatField.NONE);
+		assertThatThrownBy(() -> field.move(2, 1)).isInstanceOf(IllegalArgumentException.class);
+		field.move(1, 0);
+		assertThat(field.distance(1)).isEqualTo(ThreatField.UNREACHABLE);
+	}
+
+}
@@ -0,0 +1,146 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.ai.DistanceTable;
+import uk.ac.bris.cs.scotlandyard.ai.TicketPaths;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.model.TransportAdjacency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Tests for {@link TicketPaths}
+ */
+public class TicketPathsTest {
+
+	private static Graph<Integer, Transport> graph;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		graph = StandardGame.standardGraph();
+	}
+
+	/**
+	 * Breadth first search over every (node, tickets left) state
+	 */
+	private static Map<Integer, Integer> search(int source, int[] wallet) {
+		Map<Integer, Integer> distances = new HashMap<>();
+		Set<String> seen = new HashSet<>();
+		Deque<Object[]> queue = new ArrayDeque<>();
+		queue.add(new Object[] { source, wallet.clone(), 0 });
+		while (!queue.isEmpty()) {
+			Object[] state = queue.poll();
+			int node = (Integer) state[0];
+			int[] left = (int[]) state[1];
+			int moves = (Integer) state[2];
+			if (!seen.add(node + ":" + left[0] + "," + left[1] + "," + left[2] + "," + left[3]))
+				continue;
+			distances.putIfAbsent(node, moves);
+			for (Edge<Integer, Transport> edge : graph.getEdgesFrom(graph.getNode(node))) {
+				int own = edge.data().ordinal();
+				for (int ticket : new int[] { own, 3 }) {
+					if (ticket < left.length && left[ticket] > 0) {
+						int[] next = left.clone();
+						next[ticket]--;
+						queue.add(new Object[] { edge.destination().value(), next, moves + 1 });
+					}
+				}
+			}
+		}
+		return distances;
+	}
+
+	private static void assertMatchesSearch(TicketPaths paths, int source, int[] wallet) {
+		Map<Integer, Integer> expected = search(source, wallet);
+		int packed = TicketPaths.wallet(wallet[0], wallet[1], wallet[2], wallet[3]);
+		for (Node<Integer> node : graph.getNodes())
+			assertThat(paths.distance(source, node.value(), packed))
+					.as("%s to %s", source, node.value())
+					.isEqualTo(expected.getOrDefault(node.value(), TicketPaths.UNREACHABLE));
+	}
+
+	@Test
+	public void testMatchesSearchOverEveryTicketState() {
+		TicketPaths paths = new TicketPaths(graph);
+		assertMatchesSearch(paths, 1, new int[] { 2, 1, 1, 0 });
+		assertMatchesSearch(paths, 108, new int[] { 1, 1, 0, 1 });
+		assertMatchesSearch(paths, 51, new int[] { 3, 0, 1, 1 });
+		assertMatchesSearch(paths, 194, new int[] { 0, 2, 2, 0 });
+		assertMatchesSearch(paths, 13, new int[] { 2, 2, 1, 2 });
+	}
+
+	@Test
+	public void testPlentyOfTicketsMatchesDistanceTable() {
+		TicketPaths paths = new TicketPaths(graph);
+		DistanceTable table = DistanceTable.of(graph);
+		int wallet = TicketPaths.wallet(50, 50, 50, 50);
+		for (Node<Integer> node : graph.getNodes())
+			assertThat(paths.distance(91, node.value(), wallet)).isEqualTo(table.distance(91, node.value()));
+	}
+
+	@Test
+	public void testFerryNeedsSecretTicket() {
+		TicketPaths paths = TicketPaths.cached(graph);
+		assertThat(paths.distance(108, 115, TicketPaths.wallet(0, 0, 0, 0)))
+				.isEqualTo(TicketPaths.UNREACHABLE);
+		assertThat(paths.distance(108, 115, TicketPaths.wallet(5, 5, 5, 1))).isEqualTo(1);
+		assertThat(paths.distance(108, 108, TicketPaths.wallet(0, 0, 0, 0))).isZero();
+		assertThat(paths.distance(0, 108, TicketPaths.wallet(5, 5, 5, 1)))
+				.isEqualTo(TicketPaths.UNREACHABLE);
+		assertThat(TicketPaths.cached(graph)).isSameAs(paths);
+	}
+
+	@Test
+	public void testEnginesOfDifferentMapsAreCachedTogether() throws IOException {
+		Graph<Integer, Transport> other = StandardGame.standardGraph();
+		TicketPaths first = TicketPaths.cached(graph);
+		TicketPaths second = TicketPaths.cached(other);
+		assertThat(second).isNotSameAs(first);
+		assertThat(TicketPaths.cached(graph)).isSameAs(first);
+		assertThat(TicketPaths.cached(other)).isSameAs(second);
+	}
+
+	@Test
+	public void testReachableWithinMoves() {
+		TicketPaths paths = new TicketPaths(graph, 1);
+		long[] nodes = paths.reachable(1, TicketPaths.wallet(2, 0, 0, 0), 1);
+		assertThat(TransportAdjacency.contains(nodes, 1)).isTrue();
+		assertThat(TransportAdjacency.contains(nodes, 8)).isTrue();
+		assertThat(TransportAdjacency.contains(nodes, 9)).isTrue();
+		assertThat(TransportAdjacency.contains(nodes, 46)).isFalse();
+		assertThat(TransportAdjacency.contains(nodes, 18)).isFalse();
+		nodes = paths.reachable(1, TicketPaths.wallet(2, 0, 0, 0), 2);
+		assertThat(TransportAdjacency.contains(nodes, 18)).isTrue();
+	}
+
+	@Test
+	public void testWalletPacking() {
+		int wallet = TicketPaths.wallet(11, 8, 4, 200);
+		assertThat(TicketPaths.tickets(wallet, Ticket.TAXI)).isEqualTo(11);
+		assertThat(TicketPaths.tickets(wallet, Ticket.BUS)).isEqualTo(8);
+		assertThat(TicketPaths.tickets(wallet, Ticket.UNDERGROUND)).isEqualTo(4);
+		assertThat(TicketPaths.tickets(wallet, Ticket.SECRET)).isEqualTo(TicketPaths.MAX_TICKETS);
+		assertThat(TicketPaths.tickets(wallet, Ticket.DOUBLE)).isZero();
+		assertThat(TicketPaths.wallet(TestGames.detectiveTickets()))
+				.isEqualTo(TicketPaths.wallet(11, 8, 4, 0));
+		assertThatThrownBy(() -> TicketPaths.wallet(-1, 0, 0, 0))
+				.isInstanceOf(IllegalArgumentException.class);
+	}
+
+}
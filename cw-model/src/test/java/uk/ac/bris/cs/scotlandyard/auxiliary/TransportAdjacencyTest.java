@@ -0,0 +1,129 @@
+package uk.ac.bris.cs.scotlandyard.auxiliary;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.Set;
+import java.util.TreeSet;
+
+import uk.ac.bris.cs.gamekit.graph.Edge;
+import uk.ac.bris.cs.gamekit.graph.IntGraph;
+import uk.ac.bris.cs.gamekit.graph.Node;
+import uk.ac.bris.cs.scotlandyard.model.LongMoveList;
+import uk.ac.bris.cs.scotlandyard.model.LongMoveSet;
+import uk.ac.bris.cs.scotlandyard.model.MoveGenerator;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardGraphReader;
+import uk.ac.bris.cs.scotlandyard.model.Ticket;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.model.TransportAdjacency;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+/**
+ * Tests for {@link TransportAdjacency}
+ */
+public class TransportAdjacencyTest {
+
+	private static IntGraph<Transport> graph;
+	private static TransportAdjacency adjacency;
+
+	@BeforeClass
+	public static void setUp() throws IOException, URISyntaxException {
+		graph = ScotlandYardGraphReader.intGraphFromLines(Files.readAllLines(Paths.get(
+				TransportAdjacencyTest.class.getResource("/game_graph.txt").toURI())));
+		adjacency = TransportAdjacency.of(graph);
+	}
+
+	private static Set<Integer> nodes(long[] set) {
+		Set<Integer> nodes = new TreeSet<>();
+		for (int node = 0; node < set.length * 64; node++)
+			if (TransportAdjacency.contains(set, node))
+				nodes.add(node);
+		return nodes;
+	}
+
+	private static Set<Integer> expected(Node<Integer> node, int mask, Set<Integer> excluded) {
+		Set<Integer> nodes = new TreeSet<>();
+		for (Edge<Integer, Transport> edge : graph.getEdgesFrom(node))
+			if ((TransportAdjacency.mask(edge.data()) & mask) != 0
+					&& !excluded.contains(edge.destination().value()))
+				nodes.add(edge.destination().value());
+		return nodes;
+	}
+
+	@Test
+	public void testNeighboursMatchEdgesForEveryTransportMask() {
+		long[] excluded = adjacency.newNodeSet(0);
+		TransportAdjacency.add(excluded, 1);
+		TransportAdjacency.add(excluded, 128);
+		for (Node<Integer> node : graph.getNodes()) {
+			for (int mask = 1; mask <= TransportAdjacency.ALL; mask++) {
+				long[] into = adjacency.newNodeSet(0);
+				adjacency.neighbours(node.value(), mask, excluded, into);
+				Set<Integer> expected = expected(node, mask, nodes(excluded));
+				assertThat(nodes(into)).isEqualTo(expected);
+				assertThat(adjacency.hasNeighbour(node.value(), mask, excluded))
+						.isEqualTo(!expected.isEmpty());
+			}
+		}
+	}
+
+	@Test
+	public void testCachedOncePerGraphInstance() {
+		TransportAdjacency cached = TransportAdjacency.cached(graph);
+		assertThat(TransportAdjacency.cached(graph)).isSameAs(cached);
+		assertThat(cached.matrix(TransportAdjacency.ALL))
+				.isEqualTo(adjacency.matrix(TransportAdjacency.ALL));
+	}
+
+	@Test
+	public void testTicketMasks() {
+		assertThat(TransportAdjacency.mask(Ticket.BUS)).isEqualTo(TransportAdjacency.mask(Transport.BUS));
+		assertThat(TransportAdjacency.mask(Ticket.SECRET)).isEqualTo(TransportAdjacency.ALL);
+		assertThat(TransportAdjacency.mask(Ticket.DOUBLE)).isZero();
+	}
+
+	@Test
+	public void testReachableExpandsWholeSet() {
+		long[] set = adjacency.newNodeSet(0);
+		TransportAdjacency.add(set, 1);
+		adjacency.reachable(set, TransportAdjacency.mask(Transport.TAXI), null, set);
+		assertThat(nodes(set)).containsExactly(1, 8, 9);
+		adjacency.reachable(set, TransportAdjacency.mask(Transport.TAXI), null, set);
+		assertThat(nodes(set)).containsExactly(1, 8, 9, 18, 19, 20);
+	}
+
+	@Test
+	public void testNodesOutsideTheMapHaveNoNeighbours() {
+		long[] set = adjacency.newNodeSet(1000);
+		assertThat(set.length).isEqualTo(1000 / 64 + 1);
+		assertThat(adjacency.hasNeighbour(1000, TransportAdjacency.ALL, set)).isFalse();
+		assertThat(adjacency.rowEnd(-1, null)).isEqualTo(adjacency.rowStart(-1, null));
+		assertThat(TransportAdjacency.contains(set, 5000)).isFalse();
+	}
+
+	@Test
+	public void testGeneratedMovesAreUnique() {
+		int[] tickets = new int[Ticket.values().length];
+		tickets[Ticket.TAXI.ordinal()] = 4;
+		tickets[Ticket.BUS.ordinal()] = 3;
+		tickets[Ticket.UNDERGROUND.ordinal()] = 3;
+		tickets[Ticket.DOUBLE.ordinal()] = 2;
+		tickets[Ticket.SECRET.ordinal()] = 5;
+		long[] occupied = adjacency.newNodeSet(0);
+		TransportAdjacency.add(occupied, 46);
+		for (Node<Integer> node : graph.getNodes()) {
+			LongMoveList list = new LongMoveList();
+			LongMoveSet set = new LongMoveSet();
+			int count = MoveGenerator.generate(adjacency, BLACK, node.value(), tickets, true, occupied, list);
+			MoveGenerator.generate(adjacency, BLACK, node.value(), tickets, true, occupied, set);
+			assertThat(list.size()).isEqualTo(count).isEqualTo(set.size());
+		}
+	}
+
+}
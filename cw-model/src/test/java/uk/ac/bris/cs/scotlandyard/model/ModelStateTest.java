@@ -0,0 +1,50 @@
+package uk.ac.bris.cs.scotlandyard.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static uk.ac.bris.cs.scotlandyard.auxiliary.TestGames.threePlayerModel;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+/**
+ * Tests the snapshots {@link ScotlandYardModel} keeps of itself and that
+ * players cannot reach them
+ */
+public class ModelStateTest {
+
+	@Test
+	public void testSnapshotIsCachedUntilStateChanges() {
+		ScotlandYardModel model = threePlayerModel((view, location, moves, callback) ->
+				callback.accept(moves.iterator().next()));
+		GameState first = model.state();
+		assertThat(model.state()).isSameAs(first);
+		model.startRotate();
+		assertThat(model.state()).isNotSameAs(first);
+		assertThat(model.state().location(BLACK)).isNotEqualTo(51);
+	}
+
+	@Test
+	public void testPlayersGetAViewThatIsNotTheModel() {
+		List<ScotlandYardView> views = new ArrayList<>();
+		ScotlandYardModel model = threePlayerModel((view, location, moves, callback) -> {
+			views.add(view);
+			callback.accept(moves.stream().min(Comparator.comparing(Move::toString))
+					.orElseThrow(AssertionError::new));
+		});
+		model.startRotate();
+
+		assertThat(views).hasSize(3).doesNotContainNull();
+		assertThat(views).noneMatch(view -> view instanceof ScotlandYardModel
+				|| view instanceof GameState);
+		// The view follows the model, hiding Mr X until he is revealed.
+		ScotlandYardView view = views.get(0);
+		assertThat(view.getCurrentRound()).isEqualTo(model.getCurrentRound());
+		assertThat(view.getPlayerLocation(BLACK)).contains(0);
+		assertThat(view.getGraph()).isSameAs(model.getGraph());
+	}
+
+}
@@ -0,0 +1,91 @@
+package uk.ac.bris.cs.scotlandyard.ui.ai;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.RejectedExecutionException;
+
+import uk.ac.bris.cs.gamekit.graph.Graph;
+import uk.ac.bris.cs.scotlandyard.auxiliary.TestGames;
+import uk.ac.bris.cs.scotlandyard.model.PassMove;
+import uk.ac.bris.cs.scotlandyard.model.Player;
+import uk.ac.bris.cs.scotlandyard.model.ScotlandYardModel;
+import uk.ac.bris.cs.scotlandyard.model.StandardGame;
+import uk.ac.bris.cs.scotlandyard.model.Transport;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationRunner;
+import uk.ac.bris.cs.scotlandyard.simulation.SimulationRunner.Report;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static uk.ac.bris.cs.scotlandyard.model.Colour.BLACK;
+
+/**
+ * Tests for {@link MonteCarlo}. Searches play a fixed number of rollouts so
+ * the results do not depend on timing; how strong the search plays is
+ * measured by {@link MonteCarloBenchmark}.
+ */
+public class MonteCarloTest {
+
+	private static Graph<Integer, Transport> graph;
+
+	@BeforeClass
+	public static void setUp() throws IOException {
+		graph = StandardGame.standardGraph();
+	}
+
+	@Test
+	public void testPlaysLegalMovesAndReusesTheTree() {
+		List<MonteCarlo> searches = new CopyOnWriteArrayList<>();
+		Report report = new SimulationRunner.Builder(ScotlandYardModel::new, () -> {
+			MonteCarlo factory = new MonteCarlo(2, 500);
+			searches.add(factory);
+			return factory;
+		}, () -> new MonteCarlo(1), graph)
+				.detectives(1)
+				.threads(1)
+				.build()
+				.run(3, 0);
+
+		// Illegal moves are rejected by the model, failing their game.
+		assertThat(report.failedSeeds()).isEmpty();
+		assertThat(report.mrXWins() + report.detectiveWins()).isEqualTo(3);
+		assertThat(searches).hasSize(3);
+		for (MonteCarlo factory : searches) {
+			assertThat(factory.rollouts()).isPositive();
+			// Every move plays 500 rollouts on each of the two threads.
+			assertThat(factory.rollouts() % 1000).isZero();
+			assertThat(factory.rolloutsPerSecond()).isPositive();
+			assertThat(factory.reusedTrees()).isPositive();
+		}
+	}
+
+	@Test
+	public void testFinishShutsTheSearchDown() {
+		List<MonteCarlo> searches = new CopyOnWriteArrayList<>();
+		new SimulationRunner.Builder(ScotlandYardModel::new, () -> {
+			MonteCarlo factory = new MonteCarlo(1, 1);
+			searches.add(factory);
+			return factory;
+		}, () -> new MonteCarlo(1), graph)
+				.detectives(1)
+				.threads(1)
+				.build()
+				.run(1, 0);
+
+		Player player = searches.get(0).createPlayer(BLACK);
+		ScotlandYardModel view = TestGames.threePlayerModel(TestGames.dummyPlayer());
+		assertThatThrownBy(() -> player.makeMove(view, 51, Set.of(new PassMove(BLACK)), move -> {}))
+				.isInstanceOf(RejectedExecutionException.class);
+	}
+
+	@Test
+	public void testBadThreads() {
+		assertThatThrownBy(() -> new MonteCarlo(0)).isInstanceOf(IllegalArgumentException.class);
+		assertThatThrownBy(() -> new MonteCarlo(1, -1)).isInstanceOf(IllegalArgumentException.class);
+	}
+
+}